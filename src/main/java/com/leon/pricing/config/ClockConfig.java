@@ -0,0 +1,18 @@
+package com.leon.pricing.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.time.Clock;
+import java.time.ZoneId;
+
+@Configuration
+public class ClockConfig
+{
+    // Decides which date is today when an expiry date is turned into days to expiry; tests substitute a fixed clock.
+    @Bean
+    public Clock clock(@Value("${pricing.clock.zone:UTC}") String zone)
+    {
+        return Clock.system(ZoneId.of(zone));
+    }
+}
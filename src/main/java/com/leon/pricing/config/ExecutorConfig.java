@@ -1,27 +1,83 @@
 package com.leon.pricing.config;
 
+import com.leon.pricing.model.ExecutionBackend;
+import com.leon.pricing.model.ExecutionBackendType;
+import com.leon.pricing.model.ExecutorServiceExecutionBackend;
+import com.leon.pricing.model.ForkJoinExecutionBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 @EnableAsync
 public class ExecutorConfig 
 {
-    @Bean(name = "rangeCalculationExecutor")
-    public Executor rangeCalculationExecutor() 
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    // Runs range, grid and batch chunks; pricing.execution.backend picks platform, fork-join or virtual.
+    @Bean(name = "executionBackend")
+    public ExecutionBackend executionBackend(@Value("${pricing.execution.backend:fork-join}") String backend,
+                                             @Value("${pricing.execution.platform.queue.capacity:1000}") int queueCapacity)
     {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors());
-        executor.setMaxPoolSize(Runtime.getRuntime().availableProcessors() * 2);
-        executor.setQueueCapacity(1000);
-        executor.setThreadNamePrefix("RangeCalc-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        executor.initialize();
-        return executor;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        ExecutionBackendType type = ExecutionBackendType.fromString(backend);
+        if (type == ExecutionBackendType.VIRTUAL)
+        {
+            ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+            if (virtualThreads != null)
+            {
+                logger.info("Range execution backend: virtual threads, {} helpers per range", parallelism);
+                return new ExecutorServiceExecutionBackend(type, virtualThreads, parallelism);
+            }
+
+            logger.warn("Virtual threads need JDK 21 or later and this is JDK {}; using the platform backend instead", Runtime.version().feature());
+            type = ExecutionBackendType.PLATFORM;
+        }
+
+        if (type == ExecutionBackendType.PLATFORM)
+        {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, "RangeCalc-" + threadNumber.incrementAndGet()));
+            logger.info("Range execution backend: platform pool of {} threads with a queue of {}", parallelism, queueCapacity);
+            return new ExecutorServiceExecutionBackend(type, pool, parallelism);
+        }
+
+        // Work-stealing pool for range chunks; it has no submission queue to overflow, and idle workers steal split-off chunks.
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool ->
+        {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("RangeChunk-" + thread.getPoolIndex());
+            return thread;
+        };
+        logger.info("Range execution backend: fork/join pool of {} workers", parallelism);
+        return new ForkJoinExecutionBackend(new ForkJoinPool(parallelism, threadFactory, null, false));
+    }
+
+    // Looked up reflectively so the service still builds and runs on JDK 17.
+    private static ExecutorService newVirtualThreadPerTaskExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return null;
+        }
     }
 
     @Bean(name = "performanceTrackingExecutor")
@@ -1,17 +1,44 @@
 package com.leon.pricing.controller;
 
+import com.leon.pricing.model.MarketDataReadiness;
+import com.leon.pricing.service.MarketDataBootstrap;
+import com.leon.pricing.service.PricingWarmup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @CrossOrigin
 @RestController
 public class HealthController
 {
+    @Autowired
+    private MarketDataBootstrap marketDataBootstrap;
+
+    @Autowired
+    private PricingWarmup pricingWarmup;
+
+    // Held back until the pricing code has been warmed up, so traffic is not routed here while it still runs interpreted.
     @GetMapping("/health")
     public ResponseEntity<String> health()
     {
+        if (!pricingWarmup.isComplete())
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Warming up");
+
         return ResponseEntity.ok("Up");
     }
+
+    // Warm but stale still serves requests from the local snapshot, so only a cold store is reported as unavailable.
+    @GetMapping("/health/readiness")
+    public ResponseEntity<Map<String, Object>> readiness()
+    {
+        boolean ready = pricingWarmup.isComplete() && marketDataBootstrap.getReadiness() != MarketDataReadiness.COLD;
+        Map<String, Object> status = new LinkedHashMap<>(marketDataBootstrap.getStatus());
+        status.putAll(pricingWarmup.getStatus());
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(status);
+    }
 }
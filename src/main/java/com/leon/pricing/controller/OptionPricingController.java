@@ -1,19 +1,40 @@
 package com.leon.pricing.controller;
 
+import com.leon.pricing.model.BatchPricingResultSet;
+import com.leon.pricing.model.GridCalculationRequest;
+import com.leon.pricing.model.InstrumentPriceResult;
+import com.leon.pricing.model.InstrumentPricingRequest;
+import com.leon.pricing.model.OptionPriceGrid;
 import com.leon.pricing.model.OptionPriceResult;
 import com.leon.pricing.model.OptionPriceResultSet;
 import com.leon.pricing.model.OptionPricingRequest;
 import com.leon.pricing.model.RangeCalculationRequest;
+import com.leon.pricing.model.RangeResultStream;
+import com.leon.pricing.service.AdmissionControl;
+import com.leon.pricing.service.AdmissionRejectedException;
 import com.leon.pricing.service.OptionPricingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/pricing")
@@ -21,8 +42,20 @@ import java.util.Map;
 public class OptionPricingController
 {
     private static final Logger logger = LoggerFactory.getLogger(OptionPricingController.class);
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final byte[] SSE_DATA_PREFIX = "data: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_EVENT_SUFFIX = "\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NDJSON_LINE_SUFFIX = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final String CLIENT_ID_HEADER = "X-Client-Id";
     @Autowired
     private OptionPricingService optionPricingService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AdmissionControl admissionControl;
+    // Only these addresses may name the client in X-Client-Id; anyone could set it, so it is ignored from any other caller.
+    @Value("${pricing.admission.trusted.proxies:}")
+    private Set<String> trustedProxies;
 
     @CrossOrigin
     @RequestMapping("/heartbeat")
@@ -52,14 +85,89 @@ public class OptionPricingController
         }
     }
 
+    // Prices against the market data held by the service, so clients no longer fetch and assemble it themselves.
+    @PostMapping("/instrument")
+    public ResponseEntity<InstrumentPriceResult> calculateInstrumentPrice(@Valid @RequestBody InstrumentPricingRequest request)
+    {
+        try
+        {
+            logger.info("Received instrument pricing request: {}", request);
+            InstrumentPriceResult result = optionPricingService.calculateInstrumentPrice(request);
+            return ResponseEntity.ok(result);
+        }
+        catch (NoSuchElementException e)
+        {
+            logger.warn("Missing market data: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+        catch (IllegalArgumentException e)
+        {
+            logger.warn("Invalid request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        catch (Exception e)
+        {
+            logger.error("Error calculating instrument price: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchPricingResultSet> calculateBatch(@RequestBody List<OptionPricingRequest> requests, HttpServletRequest httpRequest)
+    {
+        try
+        {
+            logger.info("Received batch pricing request with {} options", requests == null ? 0 : requests.size());
+            AdmissionControl.Admission admission = admissionControl.admit(clientId(httpRequest), optionPricingService.estimateBatchCpuMs(requests));
+            try
+            {
+                BatchPricingResultSet result = optionPricingService.calculateBatch(requests);
+                admission.settle(optionPricingService.unestimatedBatchCpuMs(requests, result));
+                return ResponseEntity.ok(result);
+            }
+            finally
+            {
+                admission.close();
+            }
+        }
+        catch (AdmissionRejectedException e)
+        {
+            return tooManyRequests(e);
+        }
+        catch (IllegalArgumentException e)
+        {
+            logger.warn("Invalid batch request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        catch (Exception e)
+        {
+            logger.error("Error calculating batch: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping("/range")
-    public ResponseEntity<OptionPriceResultSet> calculateRange(@Valid @RequestBody RangeCalculationRequest request)
+    public ResponseEntity<OptionPriceResultSet> calculateRange(@Valid @RequestBody RangeCalculationRequest request, HttpServletRequest httpRequest)
     {
         try
         {
             logger.info("Received range calculation request: {}", request);
-            OptionPriceResultSet result = optionPricingService.calculateRange(request);
-            return ResponseEntity.ok(result);
+            double estimatedCpuMs = optionPricingService.estimateRangeCpuMs(request.getBaseRequest(), request.getRangeKey(), request.getStartValue(), request.getEndValue(), request.getIncrement());
+            AdmissionControl.Admission admission = admissionControl.admit(clientId(httpRequest), estimatedCpuMs);
+            try
+            {
+                OptionPriceResultSet result = optionPricingService.calculateRange(request);
+                admission.settle(optionPricingService.unestimatedCpuMs(request.getBaseRequest(), result.getResults().size(), pathCount(result.getResults())));
+                return ResponseEntity.ok(result);
+            }
+            finally
+            {
+                admission.close();
+            }
+        }
+        catch (AdmissionRejectedException e)
+        {
+            return tooManyRequests(e);
         }
         catch (IllegalArgumentException e)
         {
@@ -73,16 +181,108 @@ public class OptionPricingController
         }
     }
     
+    // Streams each result as it is priced: NDJSON by default, or Server-Sent Events when the client accepts text/event-stream.
+    @PostMapping(value = "/range/stream", produces = {NDJSON_MEDIA_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamRange(@Valid @RequestBody RangeCalculationRequest request, @RequestHeader(value = "Accept", required = false) String accept,
+                                                             HttpServletRequest httpRequest)
+    {
+        AdmissionControl.Admission admission = null;
+        try
+        {
+            logger.info("Received streaming range calculation request: {}", request);
+            double estimatedCpuMs = optionPricingService.estimateRangeCpuMs(request.getBaseRequest(), request.getRangeKey(), request.getStartValue(), request.getEndValue(), request.getIncrement());
+            admission = admissionControl.admit(clientId(httpRequest), estimatedCpuMs);
+            RangeResultStream stream = optionPricingService.openRangeStream(request);
+            boolean serverSentEvents = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+
+            // The admission is held until the last block has been written, on the async thread that writes the body.
+            AdmissionControl.Admission streamAdmission = admission;
+            StreamingResponseBody body = outputStream ->
+            {
+                try (streamAdmission)
+                {
+                    writeBlocks(stream, request.getBaseRequest(), streamAdmission, outputStream, serverSentEvents);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .contentType(serverSentEvents ? MediaType.TEXT_EVENT_STREAM : MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                    .body(body);
+        }
+        catch (AdmissionRejectedException e)
+        {
+            return tooManyRequests(e);
+        }
+        catch (IllegalArgumentException e)
+        {
+            if (admission != null)
+                admission.close();
+            logger.warn("Invalid streaming range request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        catch (Exception e)
+        {
+            if (admission != null)
+                admission.close();
+            logger.error("Error starting streaming range: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Each block is settled before it is written, so a client that goes away is still charged for what was priced.
+    private void writeBlocks(RangeResultStream stream, OptionPricingRequest baseRequest, AdmissionControl.Admission admission, OutputStream outputStream, boolean serverSentEvents)
+    {
+        long[] pricedPoints = new long[1];
+        long[] pathCount = new long[1];
+        stream.forEachBlock(block ->
+        {
+            pricedPoints[0] += block.size();
+            pathCount[0] += pathCount(block);
+            admission.settle(optionPricingService.unestimatedCpuMs(baseRequest, pricedPoints[0], pathCount[0]));
+            try
+            {
+                for (OptionPriceResult result : block)
+                {
+                    if (serverSentEvents)
+                        outputStream.write(SSE_DATA_PREFIX);
+                    outputStream.write(objectMapper.writeValueAsBytes(result));
+                    outputStream.write(serverSentEvents ? SSE_EVENT_SUFFIX : NDJSON_LINE_SUFFIX);
+                }
+                outputStream.flush();
+            }
+            catch (IOException e)
+            {
+                // Usually the client disconnecting; failing the block stops the remaining blocks from being priced.
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    
     @PostMapping("/range/simple")
-    public ResponseEntity<OptionPriceResultSet> calculateRangeSimple(@Valid @RequestBody OptionPricingRequest baseRequest, @RequestParam String rangeKey, @RequestParam double startValue, @RequestParam double endValue,  @RequestParam double increment)
+    public ResponseEntity<OptionPriceResultSet> calculateRangeSimple(@Valid @RequestBody OptionPricingRequest baseRequest, @RequestParam String rangeKey, @RequestParam double startValue, @RequestParam double endValue,  @RequestParam double increment,
+                                                                     HttpServletRequest httpRequest)
     {
         try
         {
             logger.info("Received simple range calculation request: baseRequest={}, rangeKey={}, start={}, end={}, increment={}", 
                        baseRequest, rangeKey, startValue, endValue, increment);
             
-            OptionPriceResultSet result = optionPricingService.calculateRange(baseRequest, rangeKey, startValue, endValue, increment);
-            return ResponseEntity.ok(result);
+            double estimatedCpuMs = optionPricingService.estimateRangeCpuMs(baseRequest, rangeKey, startValue, endValue, increment);
+            AdmissionControl.Admission admission = admissionControl.admit(clientId(httpRequest), estimatedCpuMs);
+            try
+            {
+                OptionPriceResultSet result = optionPricingService.calculateRange(baseRequest, rangeKey, startValue, endValue, increment);
+                admission.settle(optionPricingService.unestimatedCpuMs(baseRequest, result.getResults().size(), pathCount(result.getResults())));
+                return ResponseEntity.ok(result);
+            }
+            finally
+            {
+                admission.close();
+            }
+        }
+        catch (AdmissionRejectedException e)
+        {
+            return tooManyRequests(e);
         }
         catch (IllegalArgumentException e)
         {
@@ -96,6 +296,40 @@ public class OptionPricingController
         }
     }
 
+    @PostMapping("/grid")
+    public ResponseEntity<OptionPriceGrid> calculateGrid(@Valid @RequestBody GridCalculationRequest request, HttpServletRequest httpRequest)
+    {
+        try
+        {
+            logger.info("Received grid calculation request: {}", request);
+            AdmissionControl.Admission admission = admissionControl.admit(clientId(httpRequest), optionPricingService.estimateGridCpuMs(request));
+            try
+            {
+                OptionPriceGrid result = optionPricingService.calculateGrid(request);
+                admission.settle(optionPricingService.unestimatedCpuMs(request.getBaseRequest(), result.getPricedCount(), result.getPathCount()));
+                return ResponseEntity.ok(result);
+            }
+            finally
+            {
+                admission.close();
+            }
+        }
+        catch (AdmissionRejectedException e)
+        {
+            return tooManyRequests(e);
+        }
+        catch (IllegalArgumentException e)
+        {
+            logger.warn("Invalid grid request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        catch (Exception e)
+        {
+            logger.error("Error calculating grid: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/model-details")
     public ResponseEntity<Map<String, String>> getModelDetails()
     {
@@ -112,4 +346,31 @@ public class OptionPricingController
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    private String clientId(HttpServletRequest httpRequest)
+    {
+        if (httpRequest.getUserPrincipal() != null)
+            return httpRequest.getUserPrincipal().getName();
+
+        String clientId = httpRequest.getHeader(CLIENT_ID_HEADER);
+        if (clientId != null && !clientId.isBlank() && trustedProxies.contains(httpRequest.getRemoteAddr()))
+            return clientId.trim();
+        return httpRequest.getRemoteAddr();
+    }
+
+    private static long pathCount(List<OptionPriceResult> results)
+    {
+        long pathCount = 0;
+        for (OptionPriceResult result : results)
+        {
+            if (result.getPathCount() != null)
+                pathCount += result.getPathCount();
+        }
+        return pathCount;
+    }
+
+    private static <T> ResponseEntity<T> tooManyRequests(AdmissionRejectedException e)
+    {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds())).build();
+    }
 }
@@ -53,21 +53,10 @@ public class ParametricInterestRateController
         {
             logger.info("Updating interest rate for currency {}: {}% by user {}", rateData.getCurrencyCode(), rateData.getInterestRatePercentage(), rateData.getLastUpdatedBy());
 
-            if (rateData.getCurrencyCode() == null || rateData.getCurrencyCode().trim().isEmpty())
+            String validationError = validationError(rateData);
+            if (validationError != null)
             {
-                logger.warn("Invalid request: currency code is null or empty");
-                return ResponseEntity.badRequest().build();
-            }
-            
-            if (rateData.getInterestRatePercentage() == null || rateData.getInterestRatePercentage() < 0 || rateData.getInterestRatePercentage() > 100)
-            {
-                logger.warn("Invalid request: interest rate percentage must be between 0 and 100");
-                return ResponseEntity.badRequest().build();
-            }
-            
-            if (rateData.getLastUpdatedBy() == null || rateData.getLastUpdatedBy().trim().isEmpty())
-            {
-                logger.warn("Invalid request: last updated by is null or empty");
+                logger.warn("Invalid request: {}", validationError);
                 return ResponseEntity.badRequest().build();
             }
 
@@ -112,4 +101,83 @@ public class ParametricInterestRateController
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<List<InterestRate>> updateRates(@RequestBody List<InterestRate> records)
+    {
+        try
+        {
+            logger.info("Updating {} interest rates in bulk", records.size());
+
+            if (records.isEmpty())
+            {
+                logger.warn("Invalid request: no interest rates supplied");
+                return ResponseEntity.badRequest().build();
+            }
+
+            for (int index = 0; index < records.size(); index++)
+            {
+                String validationError = validationError(records.get(index));
+                if (validationError != null)
+                {
+                    logger.warn("Invalid request: interest rate {} of {}: {}", index, records.size(), validationError);
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+
+            List<InterestRate> updated = interestRateService.updateRates(records);
+            logger.info("Successfully updated {} interest rates in bulk", updated.size());
+            return ResponseEntity.ok(updated);
+        }
+        catch (IllegalArgumentException e)
+        {
+            logger.warn("Invalid request data: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        catch (Exception e)
+        {
+            logger.error("Error updating {} interest rates in bulk: {}", records.size(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/bulk")
+    public ResponseEntity<List<InterestRate>> getRates(@RequestParam List<String> currencyCodes)
+    {
+        return lookupRates(currencyCodes);
+    }
+
+    // Same as GET /bulk with the codes in the body, for lists too long for a query string such as a full end-of-day set.
+    @PostMapping("/bulk/lookup")
+    public ResponseEntity<List<InterestRate>> lookupRates(@RequestBody List<String> currencyCodes)
+    {
+        try
+        {
+            logger.debug("Getting interest rates for {} currency codes", currencyCodes.size());
+            return ResponseEntity.ok(interestRateService.getRates(currencyCodes));
+        }
+        catch (Exception e)
+        {
+            logger.error("Error getting interest rates for {} currency codes: {}", currencyCodes.size(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Returns why the record cannot be applied, or null if it is valid.
+    private static String validationError(InterestRate record)
+    {
+        if (record == null)
+            return "interest rate is null";
+
+        if (record.getCurrencyCode() == null || record.getCurrencyCode().trim().isEmpty())
+            return "currency code is null or empty";
+
+        if (record.getInterestRatePercentage() == null || record.getInterestRatePercentage() < 0 || record.getInterestRatePercentage() > 100)
+            return "interest rate percentage must be between 0 and 100";
+
+        if (record.getLastUpdatedBy() == null || record.getLastUpdatedBy().trim().isEmpty())
+            return "last updated by is null or empty";
+
+        return null;
+    }
 }
@@ -54,27 +54,10 @@ public class ParametricPriceController
             logger.info("Updating price for instrument {}: close={}, open={} by user {}", 
                     priceData.getInstrumentCode(), priceData.getClosePrice(), priceData.getOpenPrice(), priceData.getLastUpdatedBy());
 
-            if (priceData.getInstrumentCode() == null || priceData.getInstrumentCode().trim().isEmpty())
+            String validationError = validationError(priceData);
+            if (validationError != null)
             {
-                logger.warn("Invalid request: instrument code is null or empty");
-                return ResponseEntity.badRequest().build();
-            }
-            
-            if (priceData.getClosePrice() == null || priceData.getClosePrice() < 0)
-            {
-                logger.warn("Invalid request: close price must be non-negative");
-                return ResponseEntity.badRequest().build();
-            }
-            
-            if (priceData.getOpenPrice() == null || priceData.getOpenPrice() < 0)
-            {
-                logger.warn("Invalid request: open price must be non-negative");
-                return ResponseEntity.badRequest().build();
-            }
-            
-            if (priceData.getLastUpdatedBy() == null || priceData.getLastUpdatedBy().trim().isEmpty())
-            {
-                logger.warn("Invalid request: last updated by is null or empty");
+                logger.warn("Invalid request: {}", validationError);
                 return ResponseEntity.badRequest().build();
             }
 
@@ -120,4 +103,86 @@ public class ParametricPriceController
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<List<Price>> updatePrices(@RequestBody List<Price> records)
+    {
+        try
+        {
+            logger.info("Updating {} prices in bulk", records.size());
+
+            if (records.isEmpty())
+            {
+                logger.warn("Invalid request: no prices supplied");
+                return ResponseEntity.badRequest().build();
+            }
+
+            for (int index = 0; index < records.size(); index++)
+            {
+                String validationError = validationError(records.get(index));
+                if (validationError != null)
+                {
+                    logger.warn("Invalid request: price {} of {}: {}", index, records.size(), validationError);
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+
+            List<Price> updated = priceService.updatePrices(records);
+            logger.info("Successfully updated {} prices in bulk", updated.size());
+            return ResponseEntity.ok(updated);
+        }
+        catch (IllegalArgumentException e)
+        {
+            logger.warn("Invalid request data: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        catch (Exception e)
+        {
+            logger.error("Error updating {} prices in bulk: {}", records.size(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/bulk")
+    public ResponseEntity<List<Price>> getPrices(@RequestParam List<String> instrumentCodes)
+    {
+        return lookupPrices(instrumentCodes);
+    }
+
+    // Same as GET /bulk with the codes in the body, for lists too long for a query string such as a full end-of-day set.
+    @PostMapping("/bulk/lookup")
+    public ResponseEntity<List<Price>> lookupPrices(@RequestBody List<String> instrumentCodes)
+    {
+        try
+        {
+            logger.debug("Getting prices for {} instrument codes", instrumentCodes.size());
+            return ResponseEntity.ok(priceService.getPrices(instrumentCodes));
+        }
+        catch (Exception e)
+        {
+            logger.error("Error getting prices for {} instrument codes: {}", instrumentCodes.size(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Returns why the record cannot be applied, or null if it is valid.
+    private static String validationError(Price record)
+    {
+        if (record == null)
+            return "price is null";
+
+        if (record.getInstrumentCode() == null || record.getInstrumentCode().trim().isEmpty())
+            return "instrument code is null or empty";
+
+        if (record.getClosePrice() == null || record.getClosePrice() < 0)
+            return "close price must be non-negative";
+
+        if (record.getOpenPrice() == null || record.getOpenPrice() < 0)
+            return "open price must be non-negative";
+
+        if (record.getLastUpdatedBy() == null || record.getLastUpdatedBy().trim().isEmpty())
+            return "last updated by is null or empty";
+
+        return null;
+    }
 }
@@ -53,21 +53,10 @@ public class ParametricVolatilityController
         {
             logger.info("Updating volatility for instrument {}: {}% by user {}", volatilityData.getInstrumentCode(), volatilityData.getVolatilityPercentage(), volatilityData.getLastUpdatedBy());
 
-            if (volatilityData.getInstrumentCode() == null || volatilityData.getInstrumentCode().trim().isEmpty())
+            String validationError = validationError(volatilityData);
+            if (validationError != null)
             {
-                logger.warn("Invalid request: instrument code is null or empty");
-                return ResponseEntity.badRequest().build();
-            }
-            
-            if (volatilityData.getVolatilityPercentage() == null || volatilityData.getVolatilityPercentage() < 0 || volatilityData.getVolatilityPercentage() > 100)
-            {
-                logger.warn("Invalid request: volatility percentage must be between 0 and 100");
-                return ResponseEntity.badRequest().build();
-            }
-            
-            if (volatilityData.getLastUpdatedBy() == null || volatilityData.getLastUpdatedBy().trim().isEmpty())
-            {
-                logger.warn("Invalid request: last updated by is null or empty");
+                logger.warn("Invalid request: {}", validationError);
                 return ResponseEntity.badRequest().build();
             }
 
@@ -112,6 +101,82 @@ public class ParametricVolatilityController
         }
     }
 
+    @PutMapping("/bulk")
+    public ResponseEntity<List<Volatility>> updateVolatilities(@RequestBody List<Volatility> records)
+    {
+        try
+        {
+            logger.info("Updating {} volatilities in bulk", records.size());
+
+            if (records.isEmpty())
+            {
+                logger.warn("Invalid request: no volatilities supplied");
+                return ResponseEntity.badRequest().build();
+            }
+
+            for (int index = 0; index < records.size(); index++)
+            {
+                String validationError = validationError(records.get(index));
+                if (validationError != null)
+                {
+                    logger.warn("Invalid request: volatility {} of {}: {}", index, records.size(), validationError);
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+
+            List<Volatility> updated = volatilityService.updateVolatilities(records);
+            logger.info("Successfully updated {} volatilities in bulk", updated.size());
+            return ResponseEntity.ok(updated);
+        }
+        catch (IllegalArgumentException e)
+        {
+            logger.warn("Invalid request data: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        catch (Exception e)
+        {
+            logger.error("Error updating {} volatilities in bulk: {}", records.size(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/bulk")
+    public ResponseEntity<List<Volatility>> getVolatilities(@RequestParam List<String> instrumentCodes)
+    {
+        return lookupVolatilities(instrumentCodes);
+    }
+
+    // Same as GET /bulk with the codes in the body, for lists too long for a query string such as a full end-of-day set.
+    @PostMapping("/bulk/lookup")
+    public ResponseEntity<List<Volatility>> lookupVolatilities(@RequestBody List<String> instrumentCodes)
+    {
+        try
+        {
+            logger.debug("Getting volatilities for {} instrument codes", instrumentCodes.size());
+            return ResponseEntity.ok(volatilityService.getVolatilities(instrumentCodes));
+        }
+        catch (Exception e)
+        {
+            logger.error("Error getting volatilities for {} instrument codes: {}", instrumentCodes.size(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Returns why the record cannot be applied, or null if it is valid.
+    private static String validationError(Volatility record)
+    {
+        if (record == null)
+            return "volatility is null";
+
+        if (record.getInstrumentCode() == null || record.getInstrumentCode().trim().isEmpty())
+            return "instrument code is null or empty";
+
+        if (record.getVolatilityPercentage() == null || record.getVolatilityPercentage() < 0 || record.getVolatilityPercentage() > 100)
+            return "volatility percentage must be between 0 and 100";
 
+        if (record.getLastUpdatedBy() == null || record.getLastUpdatedBy().trim().isEmpty())
+            return "last updated by is null or empty";
 
+        return null;
+    }
 }
@@ -1,6 +1,11 @@
 package com.leon.pricing.controller;
 
+import com.leon.pricing.model.PricingResultCache;
+import com.leon.pricing.model.RangeCalculationEngine;
+import com.leon.pricing.service.AdmissionControl;
+import com.leon.pricing.service.MarketDataWriteBehind;
 import com.leon.pricing.service.PerformanceTrackingService;
+import com.leon.pricing.service.PricingCostEstimator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +18,16 @@ public class PerformanceController
 {
     @Autowired
     private PerformanceTrackingService performanceTrackingService;
+    @Autowired
+    private PricingResultCache pricingResultCache;
+    @Autowired
+    private MarketDataWriteBehind marketDataWriteBehind;
+    @Autowired
+    private RangeCalculationEngine rangeCalculationEngine;
+    @Autowired
+    private AdmissionControl admissionControl;
+    @Autowired
+    private PricingCostEstimator pricingCostEstimator;
 
     @GetMapping("/range-calculations")
     public ResponseEntity<Map<String, Object>> getRangeCalculationPerformance() 
@@ -41,4 +56,86 @@ public class PerformanceController
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @GetMapping("/pricing-cache")
+    public ResponseEntity<Map<String, Object>> getPricingCacheStatistics() 
+    {
+        try 
+        {
+            return ResponseEntity.ok(pricingResultCache.getStatistics());
+        } 
+        catch (Exception e) 
+        {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/pricing-cache/reset")
+    public ResponseEntity<String> resetPricingCache() 
+    {
+        try 
+        {
+            pricingResultCache.invalidateAll();
+            return ResponseEntity.ok("Pricing cache cleared successfully");
+        } 
+        catch (Exception e) 
+        {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/market-data-writes")
+    public ResponseEntity<Map<String, Object>> getMarketDataWriteStatistics() 
+    {
+        try 
+        {
+            return ResponseEntity.ok(marketDataWriteBehind.getStatistics());
+        } 
+        catch (Exception e) 
+        {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/execution")
+    public ResponseEntity<Map<String, Object>> getExecutionStatistics() 
+    {
+        try 
+        {
+            return ResponseEntity.ok(rangeCalculationEngine.getStatistics());
+        } 
+        catch (Exception e) 
+        {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/execution/reset")
+    public ResponseEntity<String> resetExecutionStatistics() 
+    {
+        try 
+        {
+            rangeCalculationEngine.resetStatistics();
+            return ResponseEntity.ok("Execution statistics reset successfully");
+        } 
+        catch (Exception e) 
+        {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmissionStatistics() 
+    {
+        try 
+        {
+            Map<String, Object> statistics = admissionControl.getStatistics();
+            statistics.put("costModel", pricingCostEstimator.getStatistics());
+            return ResponseEntity.ok(statistics);
+        } 
+        catch (Exception e) 
+        {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 }
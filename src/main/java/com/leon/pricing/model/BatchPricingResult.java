@@ -0,0 +1,76 @@
+package com.leon.pricing.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPricingResult
+{
+    @JsonProperty("index")
+    private int index;
+
+    @JsonProperty("result")
+    private OptionPriceResult result;
+
+    @JsonProperty("error")
+    private String error;
+
+    public BatchPricingResult() {}
+
+    public static BatchPricingResult success(int index, OptionPriceResult result)
+    {
+        BatchPricingResult batchResult = new BatchPricingResult();
+        batchResult.index = index;
+        batchResult.result = result;
+        return batchResult;
+    }
+
+    public static BatchPricingResult failure(int index, String error)
+    {
+        BatchPricingResult batchResult = new BatchPricingResult();
+        batchResult.index = index;
+        batchResult.error = error;
+        return batchResult;
+    }
+
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public void setIndex(int index)
+    {
+        this.index = index;
+    }
+
+    public OptionPriceResult getResult()
+    {
+        return result;
+    }
+
+    public void setResult(OptionPriceResult result)
+    {
+        this.result = result;
+    }
+
+    public String getError()
+    {
+        return error;
+    }
+
+    public void setError(String error)
+    {
+        this.error = error;
+    }
+
+    public boolean isSuccess()
+    {
+        return error == null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return isSuccess() ? "BatchPricingResult{index=" + index + ", result=" + result + "}" : "BatchPricingResult{index=" + index + ", error='" + error + "'}";
+    }
+}
@@ -0,0 +1,57 @@
+package com.leon.pricing.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchPricingResultSet
+{
+    @JsonProperty("results")
+    private List<BatchPricingResult> results;
+
+    @JsonProperty("totalCount")
+    private int totalCount;
+
+    @JsonProperty("errorCount")
+    private int errorCount;
+
+    public BatchPricingResultSet() {}
+
+    // Results arrive in a preallocated array indexed by request position, so input order is preserved.
+    public BatchPricingResultSet(BatchPricingResult[] results)
+    {
+        this.results = Arrays.asList(results);
+        this.totalCount = results.length;
+        this.errorCount = (int) this.results.stream().filter(result -> !result.isSuccess()).count();
+    }
+
+    public List<BatchPricingResult> getResults()
+    {
+        return results;
+    }
+
+    public void setResults(List<BatchPricingResult> results)
+    {
+        this.results = results;
+    }
+
+    public int getTotalCount()
+    {
+        return totalCount;
+    }
+
+    public void setTotalCount(int totalCount)
+    {
+        this.totalCount = totalCount;
+    }
+
+    public int getErrorCount()
+    {
+        return errorCount;
+    }
+
+    public void setErrorCount(int errorCount)
+    {
+        this.errorCount = errorCount;
+    }
+}
@@ -1,15 +1,11 @@
 package com.leon.pricing.model;
 
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
+import static com.leon.pricing.model.NormalDistribution.cumulativeNormalDistribution;
 import static java.lang.Math.*;
 
 @Component
@@ -17,64 +13,97 @@ public class BinomialTreeOptionModel implements OptionModel
 {
     private static final Logger logger = LoggerFactory.getLogger(BinomialTreeOptionModel.class);
     private static final int DEFAULT_STEPS = 1000;
+    private static final int MINIMUM_STEPS = 6;
+    // A bump of 1% of the rate vanishes at a zero rate, so rho bumps by at least this much.
+    private static final double MINIMUM_RATE_BUMP = 1e-4;
     
-    private boolean isCallOption = true;
-    private boolean isEuropeanOption = true;
-    private int numberOfSteps = DEFAULT_STEPS;
+    @Value("${pricing.binomial.method:crr}")
+    private String configuredLatticeMethod;
+
+    @Value("${pricing.binomial.steps:" + DEFAULT_STEPS + "}")
+    private int configuredNumberOfSteps;
+
+    @Value("${pricing.binomial.richardson:false}")
+    private boolean configuredRichardsonExtrapolation;
+
+    private volatile int numberOfSteps = DEFAULT_STEPS;
+    private volatile LatticeMethod latticeMethod = LatticeMethod.CRR;
+    private volatile boolean richardsonExtrapolation = false;
     
     @org.springframework.beans.factory.annotation.Autowired
-    @Qualifier("rangeCalculationExecutor")
-    private Executor rangeCalculationExecutor;
+    private RangeCalculationEngine rangeCalculationEngine;
     
     public BinomialTreeOptionModel() {}
+
+    @PostConstruct
+    private void initializeLattice()
+    {
+        setLatticeMethod(LatticeMethod.fromString(configuredLatticeMethod));
+        setNumberOfSteps(configuredNumberOfSteps);
+        setRichardsonExtrapolation(configuredRichardsonExtrapolation);
+        logger.info("Binomial tree model using a {} lattice with {} steps{}", latticeMethod, numberOfSteps, richardsonExtrapolation ? " and Richardson extrapolation" : "");
+    }
     
     public void setNumberOfSteps(int steps)
     {
+        // The coarse tree used for the error estimate has half as many steps and still needs step-two nodes for the Greeks.
+        if (steps < MINIMUM_STEPS)
+            throw new IllegalArgumentException("Binomial tree needs at least " + MINIMUM_STEPS + " steps to derive Greeks and an error estimate from the lattice");
+        
         this.numberOfSteps = steps;
     }
-    
-    @Override
-    public void setToCall(boolean isCallOption)
+
+    public void setLatticeMethod(LatticeMethod latticeMethod)
     {
-        this.isCallOption = isCallOption;
+        this.latticeMethod = latticeMethod;
     }
 
-    @Override
-    public void setToEuropean(boolean isEuropeanOption)
+    public void setRichardsonExtrapolation(boolean richardsonExtrapolation)
     {
-        this.isEuropeanOption = isEuropeanOption;
+        this.richardsonExtrapolation = richardsonExtrapolation;
     }
-
+    
     @Override
-    public OptionPriceResult calculate(Map<String, Double> input, boolean logCalculation)
+    public OptionPriceResult calculate(PricingContext context, boolean logCalculation)
     {
         OptionPriceResult optionResult = new OptionPriceResult();
         try
         {
-            double volatility = input.get(VOLATILITY);
-            double interestRate = input.get(INTEREST_RATE);
-            double strike = input.get(STRIKE);
-            double underlyingPrice = input.get(UNDERLYING_PRICE);
-            double timeToExpiryInYears = input.get(TIME_TO_EXPIRY);
+            double volatility = context.getVolatility();
+            double interestRate = context.getInterestRate();
+            double strike = context.getStrike();
+            double underlyingPrice = context.getUnderlyingPrice();
+            double timeToExpiryInYears = context.getTimeToExpiryInYears();
+            LatticeMethod latticeMethod = this.latticeMethod;
+            boolean richardsonExtrapolation = this.richardsonExtrapolation;
+            int fineSteps = fineSteps(latticeMethod, this.numberOfSteps);
+            int coarseSteps = coarseSteps(latticeMethod, fineSteps);
 
             if (logCalculation)
-                logger.info("Calculating option price using Binomial Tree with {} steps - Volatility: {}, Interest Rate: {}, Strike: {}, Underlying Price: {}, Time to Expiry (years): {}",
-                         numberOfSteps, volatility, interestRate, strike, underlyingPrice, timeToExpiryInYears);
+                logger.info("Calculating option price using a {} Binomial Tree with {} steps - Volatility: {}, Interest Rate: {}, Strike: {}, Underlying Price: {}, Time to Expiry (years): {}",
+                         latticeMethod, fineSteps, volatility, interestRate, strike, underlyingPrice, timeToExpiryInYears);
 
-            double optionPrice = calculateBinomialPrice(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            optionResult.setPrice(optionPrice);
+            // Price, delta, gamma and theta come from rolling back the base lattice, built in this thread's reusable workspace.
+            // A second tree at about half the steps gives the error estimate, or with Richardson extrapolation the correction itself.
+            // The coarse tree goes first so the workspace is left holding the fine tree's layout for the rho bumps.
+            LatticeWorkspace workspace = workspaces.get();
+            LatticeResult coarse = evaluate(workspace, context, volatility, interestRate, coarseSteps, latticeMethod);
+            LatticeResult fine = evaluate(workspace, context, volatility, interestRate, fineSteps, latticeMethod);
+            double refinementFactor = pow((double) fineSteps / coarseSteps, latticeMethod.getConvergenceOrder(context.isEuropeanOption())) - 1;
+            LatticeResult lattice = richardsonExtrapolation ? extrapolate(fine, coarse, refinementFactor) : fine;
 
-            double delta = calculateDelta(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            double gamma = calculateGamma(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            double vega = calculateVega(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            double rho = calculateRho(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            double theta = calculateTheta(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            
-            optionResult.setDelta(delta);
-            optionResult.setGamma(gamma);
-            optionResult.setVega(vega);
-            optionResult.setRho(rho);
-            optionResult.setTheta(theta);
+            optionResult.setPrice(lattice.price);
+            optionResult.setDelta(lattice.delta);
+            optionResult.setGamma(lattice.gamma);
+            optionResult.setTheta(lattice.theta);
+            // Without extrapolation this is the leading error term of the fine tree; with it, the size of the correction applied,
+            // which bounds the remaining error from above.
+            optionResult.setErrorEstimate(richardsonExtrapolation ? abs(lattice.price - fine.price) : abs(fine.price - coarse.price) / refinementFactor);
+
+            // Vega and rho are central differences of fine-tree reprices alone: extrapolating each bumped price would double the
+            // reprices, and the discretisation error they share mostly cancels in the difference anyway.
+            optionResult.setRho(calculateRho(context, workspace, latticeMethod, fineSteps));
+            optionResult.setVega(calculateVega(context, workspace, latticeMethod, fineSteps));
             
             return optionResult;
         }
@@ -86,50 +115,11 @@ public class BinomialTreeOptionModel implements OptionModel
     }
     
     @Override
-    public void calculateRange(OptionPriceResultSet optionPriceResultSet, Map<String, Double> input, String rangeKey, double startValue, double endValue, double increment, boolean logCalculations)
+    public void calculateRange(OptionPriceResultSet optionPriceResultSet, PricingContext context, RangeKey rangeKey, double startValue, double endValue, double increment, boolean logCalculations)
     {
         try
         {
-            int iterations = (int) Math.ceil((endValue - startValue) / increment) + 1;
-            List<CompletableFuture<OptionPriceResult>> futures = new ArrayList<>();
-            
-            for (int i = 0; i < iterations; i++)
-            {
-                double value = startValue + (i * increment);
-                if (value > endValue) break;
-                
-                final double currentValue = value;
-                CompletableFuture<OptionPriceResult> future = CompletableFuture.supplyAsync(() -> 
-                {
-                    Map<String, Double> inputCopy = new HashMap<>(input);
-                    inputCopy.put(rangeKey, currentValue);
-                    OptionPriceResult result = calculate(inputCopy, logCalculations);
-                    result.setRangeVariable(currentValue);
-                    return result;
-                }, rangeCalculationExecutor);
-                
-                futures.add(future);
-            }
-            
-            CompletableFuture<Void> allFutures = CompletableFuture.allOf(
-                futures.toArray(new CompletableFuture[0])
-            );
-            
-            allFutures.thenRun(() -> 
-            {
-                for (CompletableFuture<OptionPriceResult> future : futures)
-                {
-                    try
-                    {
-                        OptionPriceResult result = future.get();
-                        optionPriceResultSet.merge(result);
-                    }
-                    catch (Exception e)
-                    {
-                        logger.error("Error getting future result: {}", e.getMessage());
-                    }
-                }
-            }).join();
+            rangeCalculationEngine.calculateRange(optionPriceResultSet, context, rangeKey, startValue, endValue, increment, this, logCalculations);
         }
         catch (Exception e)
         {
@@ -138,115 +128,328 @@ public class BinomialTreeOptionModel implements OptionModel
         }
     }
 
-    private double calculateBinomialPrice(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+    // Leisen-Reimer only centres the strike on a node for odd step counts.
+    private static int fineSteps(LatticeMethod latticeMethod, int numberOfSteps)
     {
-        double dt = timeToExpiryInYears / numberOfSteps;
-        double u = exp(volatility * sqrt(dt));
-        double d = 1.0 / u;
-        double p = (exp(interestRate * dt) - d) / (u - d);
-        double discountFactor = exp(-interestRate * dt);
-        
-        // Create arrays to store option values at each node
-        double[] optionValues = new double[numberOfSteps + 1];
-        
-        // Calculate option values at expiration
-        for (int i = 0; i <= numberOfSteps; i++)
+        return latticeMethod == LatticeMethod.LEISEN_REIMER ? numberOfSteps | 1 : numberOfSteps;
+    }
+
+    private static int coarseSteps(LatticeMethod latticeMethod, int fineSteps)
+    {
+        return latticeMethod == LatticeMethod.LEISEN_REIMER ? (fineSteps / 2) | 1 : fineSteps / 2;
+    }
+
+    // Spot levels in a recombining tree are S * g^step * w^k for k = step - 2i in [-N, N], where g = sqrt(u * d) is 1 for CRR.
+    // One table of the 2N + 1 levels S * w^k covers every node; it is stored reversed and split by parity, so the levels of the
+    // nodes at any step are a contiguous slice that lines up with the option values, which keeps the rollback a unit-stride loop.
+    private static final class LatticeWorkspace
+    {
+        private LatticeMethod latticeMethod;
+        private int numberOfSteps;
+        private double dt;
+        private double underlyingPrice;
+        private double strike;
+        private double volatility;
+        private double interestRate;
+        private double payoffSign;
+        private double up;
+        private double down;
+        private double logDriftPerStep;
+        private double[] evenSpotLevels = new double[0];
+        private double[] oddSpotLevels = new double[0];
+        private double[] optionValues = new double[0];
+
+        private void build(PricingContext context, double volatility, double interestRate, int numberOfSteps, LatticeMethod latticeMethod)
         {
-            double stockPrice = underlyingPrice * pow(u, numberOfSteps - i) * pow(d, i);
-            optionValues[i] = calculatePayoff(stockPrice, strike);
+            this.latticeMethod = latticeMethod;
+            this.numberOfSteps = numberOfSteps;
+            this.dt = context.getTimeToExpiryInYears() / numberOfSteps;
+            this.underlyingPrice = context.getUnderlyingPrice();
+            this.strike = context.getStrike();
+            this.volatility = volatility;
+            this.interestRate = interestRate;
+            this.payoffSign = context.isCallOption() ? 1.0 : -1.0;
+
+            double logSpreadPerStep;
+            if (latticeMethod == LatticeMethod.LEISEN_REIMER)
+            {
+                double timeToExpiryInYears = context.getTimeToExpiryInYears();
+                double volatilityOverExpiry = volatility * sqrt(timeToExpiryInYears);
+                double adjustedNormalizedDrift = (log(underlyingPrice / strike) + (interestRate + volatility * volatility / 2) * timeToExpiryInYears) / volatilityOverExpiry;
+                double probability = peizerPrattInversion(adjustedNormalizedDrift - volatilityOverExpiry, numberOfSteps);
+                double growthFactor = exp(interestRate * dt);
+                this.up = growthFactor * peizerPrattInversion(adjustedNormalizedDrift, numberOfSteps) / probability;
+                this.down = (growthFactor - probability * up) / (1 - probability);
+                this.logDriftPerStep = (log(up) + log(down)) / 2;
+                logSpreadPerStep = (log(up) - log(down)) / 2;
+            }
+            else
+            {
+                logSpreadPerStep = volatility * sqrt(dt);
+                this.up = exp(logSpreadPerStep);
+                this.down = 1.0 / up;
+                this.logDriftPerStep = 0.0;
+            }
+
+            // Buffers only ever grow, so a thread pricing at a fixed step count allocates once.
+            if (optionValues.length < numberOfSteps + 1)
+            {
+                evenSpotLevels = new double[numberOfSteps + 1];
+                oddSpotLevels = new double[numberOfSteps + 1];
+                optionValues = new double[numberOfSteps + 1];
+            }
+
+            // Reversed index j = N - step + 2i, i.e. level S * w^(N - j).
+            for (int j = 0; j <= 2 * numberOfSteps; j += 2)
+                evenSpotLevels[j >> 1] = underlyingPrice * exp((numberOfSteps - j) * logSpreadPerStep);
+            for (int j = 1; j <= 2 * numberOfSteps; j += 2)
+                oddSpotLevels[j >> 1] = underlyingPrice * exp((numberOfSteps - j) * logSpreadPerStep);
         }
+
+        // Spot levels of the nodes at a step, before the drift factor; node i is at offset spotOffset(step) + i.
+        private double[] spotLevelsAt(int step)
+        {
+            return ((numberOfSteps - step) & 1) == 0 ? evenSpotLevels : oddSpotLevels;
+        }
+
+        private int spotOffset(int step)
+        {
+            return (numberOfSteps - step) >> 1;
+        }
+
+        private double driftFactor(int step)
+        {
+            return logDriftPerStep == 0.0 ? 1.0 : exp(step * logDriftPerStep);
+        }
+
+        private double spot(int step, int i)
+        {
+            return driftFactor(step) * spotLevelsAt(step)[spotOffset(step) + i];
+        }
+    }
+
+    private static final ThreadLocal<LatticeWorkspace> workspaces = ThreadLocal.withInitial(LatticeWorkspace::new);
+
+    // Method 2 of Peizer and Pratt: maps a normal quantile to the binomial probability Leisen-Reimer matches it with.
+    private static double peizerPrattInversion(double z, int numberOfSteps)
+    {
+        double scaled = z / (numberOfSteps + 1.0 / 3.0 + 0.1 / (numberOfSteps + 1));
+        return 0.5 + signum(z) * 0.5 * sqrt(1 - exp(-scaled * scaled * (numberOfSteps + 1.0 / 6.0)));
+    }
+
+    private static final class LatticeResult
+    {
+        private double price;
+        private double delta;
+        private double gamma;
+        private double theta;
+        private final double[] stepOneValues = new double[2];
+        private final double[] stepTwoValues = new double[3];
+    }
+
+    private LatticeResult evaluate(LatticeWorkspace workspace, PricingContext context, double volatility, double interestRate, int numberOfSteps, LatticeMethod latticeMethod)
+    {
+        workspace.build(context, volatility, interestRate, numberOfSteps, latticeMethod);
+        LatticeResult lattice = rollBack(workspace, context.isEuropeanOption());
+        calculateDelta(workspace, lattice);
+        calculateGamma(workspace, lattice);
+        calculateTheta(workspace, lattice);
+        return lattice;
+    }
+
+    // A bumped reprice needs only the price, so none of the lattice Greeks are derived from it.
+    private double price(LatticeWorkspace workspace, PricingContext context, double volatility, double interestRate, int numberOfSteps, LatticeMethod latticeMethod)
+    {
+        workspace.build(context, volatility, interestRate, numberOfSteps, latticeMethod);
+        return rollBack(workspace, context.isEuropeanOption()).price;
+    }
+
+    // Two-point Richardson extrapolation: with error ~ c / N^order, V = V_fine + (V_fine - V_coarse) / ((N_fine / N_coarse)^order - 1).
+    private static LatticeResult extrapolate(LatticeResult fine, LatticeResult coarse, double refinementFactor)
+    {
+        LatticeResult result = new LatticeResult();
+        result.price = fine.price + (fine.price - coarse.price) / refinementFactor;
+        result.delta = fine.delta + (fine.delta - coarse.delta) / refinementFactor;
+        result.gamma = fine.gamma + (fine.gamma - coarse.gamma) / refinementFactor;
+        result.theta = fine.theta + (fine.theta - coarse.theta) / refinementFactor;
+        return result;
+    }
+
+    private LatticeResult rollBack(LatticeWorkspace workspace, boolean isEuropeanOption)
+    {
+        int numberOfSteps = workspace.numberOfSteps;
+        double growthFactor = exp(workspace.interestRate * workspace.dt);
+        double p = (growthFactor - workspace.down) / (workspace.up - workspace.down);
+        // Discounting is folded into the branch weights so each node costs two multiplies and an add.
+        double upWeight = p / growthFactor;
+        double downWeight = (1 - p) / growthFactor;
+        double[] optionValues = workspace.optionValues;
+        LatticeResult result = new LatticeResult();
+
+        // Start from the payoffs at expiration, or for binomial Black-Scholes from closed-form values one step before it
+        int startStep = workspace.latticeMethod == LatticeMethod.BINOMIAL_BLACK_SCHOLES ? numberOfSteps - 1 : numberOfSteps;
+        if (startStep == numberOfSteps)
+            initializePayoffs(workspace, optionValues);
+        else
+            initializeBlackScholesValues(workspace, optionValues, startStep, isEuropeanOption);
+        captureNodes(result, optionValues, startStep);
         
-        // Work backwards through the tree
-        for (int step = numberOfSteps - 1; step >= 0; step--)
+        // Work backwards through the tree. The exercise style is chosen per step rather than per node, and both inner loops
+        // walk contiguous arrays with unit stride so the JIT can unroll (and for the European loop, vectorize) them.
+        for (int step = startStep - 1; step >= 0; step--)
         {
-            for (int i = 0; i <= step; i++)
-            {
-                double stockPrice = underlyingPrice * pow(u, step - i) * pow(d, i);
-                double exerciseValue = calculatePayoff(stockPrice, strike);
-                
-                if (isEuropeanOption)
-                {
-                    // European option: only exercise at expiration
-                    optionValues[i] = discountFactor * (p * optionValues[i] + (1 - p) * optionValues[i + 1]);
-                }
-                else
-                {
-                    // American option: can exercise early
-                    double holdValue = discountFactor * (p * optionValues[i] + (1 - p) * optionValues[i + 1]);
-                    optionValues[i] = max(exerciseValue, holdValue);
-                }
-            }
+            if (isEuropeanOption)
+                discountStep(optionValues, step, upWeight, downWeight);
+            else
+                exerciseStep(optionValues, step, upWeight, downWeight, workspace.spotLevelsAt(step), workspace.spotOffset(step),
+                        workspace.payoffSign * workspace.driftFactor(step), -workspace.payoffSign * workspace.strike);
+
+            captureNodes(result, optionValues, step);
         }
         
-        return optionValues[0];
+        result.price = optionValues[0];
+        return result;
     }
-    
-    private double calculatePayoff(double stockPrice, double strike)
+
+    private static void captureNodes(LatticeResult result, double[] optionValues, int step)
+    {
+        if (step == 2)
+            System.arraycopy(optionValues, 0, result.stepTwoValues, 0, 3);
+        else if (step == 1)
+            System.arraycopy(optionValues, 0, result.stepOneValues, 0, 2);
+    }
+
+    private static void initializePayoffs(LatticeWorkspace workspace, double[] optionValues)
     {
-        if (isCallOption)
+        int numberOfSteps = workspace.numberOfSteps;
+        double[] spotLevels = workspace.spotLevelsAt(numberOfSteps);
+        int offset = workspace.spotOffset(numberOfSteps);
+        double slope = workspace.payoffSign * workspace.driftFactor(numberOfSteps);
+        double intercept = -workspace.payoffSign * workspace.strike;
+
+        for (int i = 0; i <= numberOfSteps; i++)
+            optionValues[i] = max(slope * spotLevels[offset + i] + intercept, 0.0);
+    }
+
+    // One step from expiry the option is priced exactly by Black-Scholes, which smooths out the kink in the payoff.
+    private static void initializeBlackScholesValues(LatticeWorkspace workspace, double[] optionValues, int step, boolean isEuropeanOption)
+    {
+        double dt = workspace.dt;
+        double strike = workspace.strike;
+        double volatilityOverStep = workspace.volatility * sqrt(dt);
+        double driftOverStep = (workspace.interestRate + workspace.volatility * workspace.volatility / 2) * dt;
+        double discountedStrike = strike * exp(-workspace.interestRate * dt);
+        double payoffSign = workspace.payoffSign;
+
+        for (int i = 0; i <= step; i++)
         {
-            return max(stockPrice - strike, 0.0);
+            double spot = workspace.spot(step, i);
+            double adjustedNormalizedDrift = (log(spot / strike) + driftOverStep) / volatilityOverStep;
+            double adjustedNormalizedDriftOffsetByVolatility = adjustedNormalizedDrift - volatilityOverStep;
+            double value = payoffSign * (spot * cumulativeNormalDistribution(payoffSign * adjustedNormalizedDrift)
+                    - discountedStrike * cumulativeNormalDistribution(payoffSign * adjustedNormalizedDriftOffsetByVolatility));
+            optionValues[i] = isEuropeanOption ? value : max(value, payoffSign * (spot - strike));
         }
-        else
+    }
+
+    private static void discountStep(double[] optionValues, int step, double upWeight, double downWeight)
+    {
+        for (int i = 0; i <= step; i++)
+            optionValues[i] = upWeight * optionValues[i] + downWeight * optionValues[i + 1];
+    }
+
+    // Exercise values are slope * level + intercept. A plain comparison is used rather than Math.max: values are never NaN
+    // or -0.0 here, and the NaN-safe intrinsic is measurably slower.
+    private static void exerciseStep(double[] optionValues, int step, double upWeight, double downWeight, double[] spotLevels, int offset, double slope, double intercept)
+    {
+        for (int i = 0; i <= step; i++)
         {
-            return max(strike - stockPrice, 0.0);
+            double holdValue = upWeight * optionValues[i] + downWeight * optionValues[i + 1];
+            double exerciseValue = slope * spotLevels[offset + i] + intercept;
+            optionValues[i] = holdValue >= exerciseValue ? holdValue : exerciseValue;
         }
     }
     
-    private double calculateDelta(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+    private void calculateDelta(LatticeWorkspace workspace, LatticeResult lattice)
     {
-        double epsilon = underlyingPrice * 0.01;
-        double priceUp = calculateBinomialPrice(underlyingPrice + epsilon, strike, volatility, interestRate, timeToExpiryInYears);
-        double priceDown = calculateBinomialPrice(underlyingPrice - epsilon, strike, volatility, interestRate, timeToExpiryInYears);
-        return (priceUp - priceDown) / (2 * epsilon);
+        double underlyingPrice = workspace.underlyingPrice;
+        lattice.delta = (lattice.stepOneValues[0] - lattice.stepOneValues[1]) / (underlyingPrice * workspace.up - underlyingPrice * workspace.down);
     }
     
-    private double calculateGamma(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+    // The middle node two steps in sits at S * u * d, which is S for CRR but not for Leisen-Reimer.
+    private void calculateGamma(LatticeWorkspace workspace, LatticeResult lattice)
     {
-        double epsilon = underlyingPrice * 0.01;
-        double priceUp = calculateBinomialPrice(underlyingPrice + epsilon, strike, volatility, interestRate, timeToExpiryInYears);
-        double priceDown = calculateBinomialPrice(underlyingPrice - epsilon, strike, volatility, interestRate, timeToExpiryInYears);
-        double priceCenter = calculateBinomialPrice(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-        return (priceUp - 2 * priceCenter + priceDown) / (epsilon * epsilon);
+        double underlyingPrice = workspace.underlyingPrice;
+        double priceUpUp = underlyingPrice * workspace.up * workspace.up;
+        double priceUpDown = underlyingPrice * workspace.up * workspace.down;
+        double priceDownDown = underlyingPrice * workspace.down * workspace.down;
+        double deltaUp = (lattice.stepTwoValues[0] - lattice.stepTwoValues[1]) / (priceUpUp - priceUpDown);
+        double deltaDown = (lattice.stepTwoValues[1] - lattice.stepTwoValues[2]) / (priceUpDown - priceDownDown);
+        lattice.gamma = (deltaUp - deltaDown) / (0.5 * (priceUpUp - priceDownDown));
     }
     
-    private double calculateVega(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+    // The middle node two steps in has 2 * dt less to expiry; it is moved back to today's spot with a second-order Taylor
+    // expansion before differencing. Sign matches the dV/dT convention of the other Greeks.
+    private void calculateTheta(LatticeWorkspace workspace, LatticeResult lattice)
     {
-        double epsilon = volatility * 0.01;
-        double priceUp = calculateBinomialPrice(underlyingPrice, strike, volatility + epsilon, interestRate, timeToExpiryInYears);
-        double priceDown = calculateBinomialPrice(underlyingPrice, strike, volatility - epsilon, interestRate, timeToExpiryInYears);
-        return (priceUp - priceDown) / (2 * epsilon);
+        double spotShift = workspace.underlyingPrice - workspace.underlyingPrice * workspace.up * workspace.down;
+        double middleValueAtSpot = lattice.stepTwoValues[1] + lattice.delta * spotShift + 0.5 * lattice.gamma * spotShift * spotShift;
+        lattice.theta = (lattice.price - middleValueAtSpot) / (2 * workspace.dt);
     }
     
-    private double calculateRho(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+    private double calculateVega(PricingContext context, LatticeWorkspace workspace, LatticeMethod latticeMethod, int fineSteps)
     {
-        double epsilon = interestRate * 0.01;
-        double priceUp = calculateBinomialPrice(underlyingPrice, strike, volatility, interestRate + epsilon, timeToExpiryInYears);
-        double priceDown = calculateBinomialPrice(underlyingPrice, strike, volatility, interestRate - epsilon, timeToExpiryInYears);
+        double volatility = context.getVolatility();
+        double interestRate = context.getInterestRate();
+        double epsilon = volatility * 0.01;
+        double priceUp = price(workspace, context, volatility + epsilon, interestRate, fineSteps, latticeMethod);
+        double priceDown = price(workspace, context, volatility - epsilon, interestRate, fineSteps, latticeMethod);
         return (priceUp - priceDown) / (2 * epsilon);
     }
     
-    private double calculateTheta(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+    // CRR and binomial Black-Scholes space their nodes by volatility and step size alone, so a rate bump only reweights the
+    // branches of the fine tree already built in the workspace. Leisen-Reimer centres its nodes using the rate and is rebuilt.
+    private double calculateRho(PricingContext context, LatticeWorkspace workspace, LatticeMethod latticeMethod, int fineSteps)
     {
-        double epsilon = timeToExpiryInYears * 0.01;
-        double priceUp = calculateBinomialPrice(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears + epsilon);
-        double priceDown = calculateBinomialPrice(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears - epsilon);
+        double volatility = context.getVolatility();
+        double interestRate = context.getInterestRate();
+        double epsilon = max(abs(interestRate) * 0.01, MINIMUM_RATE_BUMP);
+        double priceUp;
+        double priceDown;
+        if (latticeMethod == LatticeMethod.LEISEN_REIMER)
+        {
+            priceUp = price(workspace, context, volatility, interestRate + epsilon, fineSteps, latticeMethod);
+            priceDown = price(workspace, context, volatility, interestRate - epsilon, fineSteps, latticeMethod);
+        }
+        else
+        {
+            workspace.interestRate = interestRate + epsilon;
+            priceUp = rollBack(workspace, context.isEuropeanOption()).price;
+            workspace.interestRate = interestRate - epsilon;
+            priceDown = rollBack(workspace, context.isEuropeanOption()).price;
+        }
         return (priceUp - priceDown) / (2 * epsilon);
     }
 
+    // Both trees, whose nodes grow with the square of their steps; the vega and rho reprices of the fine tree scale the same way.
+    @Override
+    public double estimateWork(PricingContext context)
+    {
+        int fineSteps = fineSteps(latticeMethod, numberOfSteps);
+        int coarseSteps = coarseSteps(latticeMethod, fineSteps);
+        return (double) fineSteps * fineSteps + (double) coarseSteps * coarseSteps;
+    }
+
     @Override
     public String getModelDetails()
     {
-        return String.format("Binomial Tree Option Model: %s %s options with %d steps", 
-                isEuropeanOption ? "European" : "American", 
-                isCallOption ? "Call" : "Put", 
-                numberOfSteps);
+        return String.format("Binomial Tree Option Model: European and American calls and puts on a %s lattice with %d steps%s",
+                latticeMethod, numberOfSteps, richardsonExtrapolation ? " and Richardson extrapolation" : "");
     }
 
     @Override
     public String toString()
     {
-        return String.format("BinomialTreeOptionModel{isCall=%b, isEuropean=%b, steps=%d}", 
-                isCallOption, isEuropeanOption, numberOfSteps);
+        return String.format("BinomialTreeOptionModel{method=%s, steps=%d, richardson=%b}", latticeMethod, numberOfSteps, richardsonExtrapolation);
     }
 }
@@ -0,0 +1,95 @@
+package com.leon.pricing.model;
+
+// Structure-of-arrays view of many European options so a kernel can sweep each input column contiguously.
+public final class BlackScholesBatch
+{
+    final double[] underlyingPrices;
+    final double[] strikes;
+    final double[] volatilities;
+    final double[] interestRates;
+    final double[] timesToExpiryInYears;
+    final double[] dayCountConventions;
+    final boolean[] isCallOptions;
+
+    final double[] prices;
+    final double[] deltas;
+    final double[] gammas;
+    final double[] vegas;
+    final double[] rhos;
+    final double[] thetas;
+
+    // Optional precomputed sqrt(T) and exp(-rT) for callers that can share them across many points; null means the kernel derives them.
+    double[] squareRootsOfTimeToExpiry;
+    double[] discountFactors;
+
+    private final int size;
+
+    public BlackScholesBatch(int size)
+    {
+        this.size = size;
+        this.underlyingPrices = new double[size];
+        this.strikes = new double[size];
+        this.volatilities = new double[size];
+        this.interestRates = new double[size];
+        this.timesToExpiryInYears = new double[size];
+        this.dayCountConventions = new double[size];
+        this.isCallOptions = new boolean[size];
+        this.prices = new double[size];
+        this.deltas = new double[size];
+        this.gammas = new double[size];
+        this.vegas = new double[size];
+        this.rhos = new double[size];
+        this.thetas = new double[size];
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void set(int index, PricingContext context)
+    {
+        underlyingPrices[index] = context.getUnderlyingPrice();
+        strikes[index] = context.getStrike();
+        volatilities[index] = context.getVolatility();
+        interestRates[index] = context.getInterestRate();
+        timesToExpiryInYears[index] = context.getTimeToExpiryInYears();
+        dayCountConventions[index] = context.getDayCountConvention();
+        isCallOptions[index] = context.isCallOption();
+    }
+
+    public void setValue(int index, RangeKey key, double value)
+    {
+        switch (key)
+        {
+            case UNDERLYING_PRICE: underlyingPrices[index] = value; break;
+            case STRIKE: strikes[index] = value; break;
+            case VOLATILITY: volatilities[index] = value; break;
+            case INTEREST_RATE: interestRates[index] = value; break;
+            case TIME_TO_EXPIRY: timesToExpiryInYears[index] = value; break;
+            default: throw new IllegalArgumentException("Unsupported range key: " + key);
+        }
+    }
+
+    // Once used, it must be set for every index in the batch.
+    public void setTimeTerms(int index, double squareRootOfTimeToExpiryInYears, double discountFactor)
+    {
+        if (squareRootsOfTimeToExpiry == null)
+        {
+            squareRootsOfTimeToExpiry = new double[size];
+            discountFactors = new double[size];
+        }
+        squareRootsOfTimeToExpiry[index] = squareRootOfTimeToExpiryInYears;
+        discountFactors[index] = discountFactor;
+    }
+
+    public boolean hasTimeTerms()
+    {
+        return squareRootsOfTimeToExpiry != null;
+    }
+
+    public OptionPriceResult getResult(int index)
+    {
+        return new OptionPriceResult(deltas[index], gammas[index], rhos[index], thetas[index], vegas[index], prices[index]);
+    }
+}
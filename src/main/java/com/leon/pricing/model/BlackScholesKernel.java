@@ -0,0 +1,7 @@
+package com.leon.pricing.model;
+
+public interface BlackScholesKernel
+{
+    void calculate(BlackScholesBatch batch);
+    String getName();
+}
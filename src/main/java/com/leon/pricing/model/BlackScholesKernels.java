@@ -0,0 +1,39 @@
+package com.leon.pricing.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class BlackScholesKernels
+{
+    private static final Logger logger = LoggerFactory.getLogger(BlackScholesKernels.class);
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL_CLASS = "com.leon.pricing.model.VectorBlackScholesKernel";
+
+    private BlackScholesKernels() {}
+
+    public static boolean isVectorApiAvailable()
+    {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    public static BlackScholesKernel select(boolean vectorizationEnabled)
+    {
+        if (vectorizationEnabled && isVectorApiAvailable())
+        {
+            try
+            {
+                return (BlackScholesKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+            }
+            catch (ReflectiveOperationException | LinkageError e)
+            {
+                logger.warn("Failed to load vectorized Black-Scholes kernel, falling back to scalar: {}", e.getMessage());
+            }
+        }
+        else if (vectorizationEnabled)
+        {
+            logger.info("Module {} is not available (start the JVM with --add-modules {}), using the scalar Black-Scholes kernel", VECTOR_MODULE, VECTOR_MODULE);
+        }
+
+        return new ScalarBlackScholesKernel();
+    }
+}
@@ -2,73 +2,69 @@ package com.leon.pricing.model;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
+import java.util.Arrays;
+import static com.leon.pricing.model.NormalDistribution.cumulativeNormalDistribution;
+import static com.leon.pricing.model.NormalDistribution.standardNormalProbabilityDensityFunction;
 import static java.lang.Math.*;
 
 @Component
 public class EuropeanBlackScholesModel implements OptionModel
 {
     private static final Logger logger = LoggerFactory.getLogger(EuropeanBlackScholesModel.class);
-    private double adjustedNormalizedDrift = 0.0;  // Normalized drift term adjusted for volatility and time.
-    private double adjustedNormalizedDriftOffsetByVolatility = 0.0;  // Represents adjustedNormalizedDrift minus volatility over time.
-    private double discountFactor = 0.0; // Present value factor for future cash flows based on interest rate and time to expiry.
-    private double squareRootOfTimeToExpiryInYears = 0.0;
-    private boolean isCallOption = true;
-    private boolean isEuropeanOption = true;
-    
-    @org.springframework.beans.factory.annotation.Autowired
-    @Qualifier("rangeCalculationExecutor")
-    private Executor rangeCalculationExecutor;
+
+    private static final int MIN_RANGE_CHUNK_SIZE = 1024;
+
+    @Value("${pricing.european.vectorized:true}")
+    private boolean vectorizationEnabled;
+
+    private BlackScholesKernel kernel = new ScalarBlackScholesKernel();
+
+    @Autowired
+    private RangeCalculationEngine rangeCalculationEngine;
     
     public EuropeanBlackScholesModel() {}
-    
-    @Override
-    public void setToCall(boolean isCallOption)
-    {
-        this.isCallOption = isCallOption;
-    }
 
-    @Override
-    public void setToEuropean(boolean isEuropeanOption)
+    @PostConstruct
+    private void initializeKernel()
     {
-        this.isEuropeanOption = true;
+        this.kernel = BlackScholesKernels.select(vectorizationEnabled);
+        logger.info("European Black-Scholes model using the {} kernel for batch and range evaluation", kernel.getName());
     }
 
     @Override
-    public OptionPriceResult calculate(Map<String, Double> input, boolean logCalculation)
+    public OptionPriceResult calculate(PricingContext context, boolean logCalculation)
     {
         OptionPriceResult optionResult = new OptionPriceResult();
         try
         {
-            double volatility = input.get(VOLATILITY);
-            double interestRate = input.get(INTEREST_RATE);
-            double strike = input.get(STRIKE);
-            double underlyingPrice = input.get(UNDERLYING_PRICE);
-            double timeToExpiryInYears = input.get(TIME_TO_EXPIRY);
-            double dayCountConvention = input.getOrDefault("DAY_COUNT_CONVENTION", 250.0);
+            double volatility = context.getVolatility();
+            double interestRate = context.getInterestRate();
+            double strike = context.getStrike();
+            double underlyingPrice = context.getUnderlyingPrice();
+            double timeToExpiryInYears = context.getTimeToExpiryInYears();
+            double dayCountConvention = context.getDayCountConvention();
+            boolean isCallOption = context.isCallOption();
 
             if(logCalculation)
                 logger.info("Calculating option price and greeks using European Black Scholes model with inputs - Volatility: {}, Interest Rate: {}, Strike: {}, Underlying Price: {}, Time to Expiry (years): {}",
                          volatility, interestRate, strike, underlyingPrice, timeToExpiryInYears);
 
-            this.adjustedNormalizedDrift = (log(underlyingPrice/strike) + ((interestRate + ((volatility * volatility)/2)) * timeToExpiryInYears)) / (volatility * sqrt(timeToExpiryInYears));
-            this.adjustedNormalizedDriftOffsetByVolatility = this.adjustedNormalizedDrift - (volatility * sqrt(timeToExpiryInYears));
-            this.discountFactor = exp(-interestRate * timeToExpiryInYears);
-            this.squareRootOfTimeToExpiryInYears = sqrt(timeToExpiryInYears);
-            
-            optionResult.setPrice(this.calculateOptionPrice(underlyingPrice, strike, timeToExpiryInYears, interestRate));
-            optionResult.setDelta(this.calculateOptionDelta());
-            optionResult.setGamma(this.calculateOptionGamma(underlyingPrice, volatility));
-            optionResult.setVega(this.calculateOptionVega(underlyingPrice));
-            optionResult.setRho(this.calculateOptionRho(strike, timeToExpiryInYears, interestRate));
-            optionResult.setTheta(this.calculateOptionTheta(underlyingPrice, strike, interestRate, volatility, dayCountConvention));
+            // Per-call terms live on the stack so concurrent calculations never share state.
+            double squareRootOfTimeToExpiryInYears = sqrt(timeToExpiryInYears);
+            double adjustedNormalizedDrift = (log(underlyingPrice/strike) + ((interestRate + ((volatility * volatility)/2)) * timeToExpiryInYears)) / (volatility * squareRootOfTimeToExpiryInYears);
+            double adjustedNormalizedDriftOffsetByVolatility = adjustedNormalizedDrift - (volatility * squareRootOfTimeToExpiryInYears);
+            double discountFactor = exp(-interestRate * timeToExpiryInYears);
+
+            optionResult.setPrice(this.calculateOptionPrice(isCallOption, underlyingPrice, strike, adjustedNormalizedDrift, adjustedNormalizedDriftOffsetByVolatility, discountFactor));
+            optionResult.setDelta(this.calculateOptionDelta(isCallOption, adjustedNormalizedDrift));
+            optionResult.setGamma(this.calculateOptionGamma(underlyingPrice, volatility, adjustedNormalizedDrift, squareRootOfTimeToExpiryInYears));
+            optionResult.setVega(this.calculateOptionVega(underlyingPrice, adjustedNormalizedDrift, squareRootOfTimeToExpiryInYears));
+            optionResult.setRho(this.calculateOptionRho(isCallOption, strike, timeToExpiryInYears, adjustedNormalizedDriftOffsetByVolatility, discountFactor));
+            optionResult.setTheta(this.calculateOptionTheta(isCallOption, underlyingPrice, strike, interestRate, volatility, dayCountConvention, adjustedNormalizedDrift, adjustedNormalizedDriftOffsetByVolatility, discountFactor, squareRootOfTimeToExpiryInYears));
             
             return optionResult;
         }
@@ -80,54 +76,64 @@ public class EuropeanBlackScholesModel implements OptionModel
     }
     
     @Override
-    public void calculateRange(OptionPriceResultSet optionPriceResultSet, Map<String, Double> input, String rangeKey, double startValue, double endValue, double increment, boolean logCalculations)
+    public OptionPriceResult[] calculateAll(PricingContext[] contexts, boolean logCalculation)
     {
         try
         {
-            // Calculate the number of iterations
-            int iterations = (int) Math.ceil((endValue - startValue) / increment) + 1;
-            
-            // Create CompletableFutures for parallel execution
-            List<CompletableFuture<OptionPriceResult>> futures = new ArrayList<>();
-            
-            for (int i = 0; i < iterations; i++)
+            if (logCalculation)
+                logger.info("Calculating {} European options with the {} Black-Scholes kernel", contexts.length, kernel.getName());
+
+            BlackScholesBatch batch = new BlackScholesBatch(contexts.length);
+            for (int i = 0; i < contexts.length; i++)
+                batch.set(i, contexts[i]);
+
+            kernel.calculate(batch);
+
+            OptionPriceResult[] results = new OptionPriceResult[contexts.length];
+            for (int i = 0; i < contexts.length; i++)
+                results[i] = batch.getResult(i);
+            return results;
+        }
+        catch (Exception e)
+        {
+            logger.error("Batch calculation error: {}", e.getMessage());
+            throw new RuntimeException("Black-Scholes batch calculation error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void calculateRange(OptionPriceResultSet optionPriceResultSet, PricingContext context, RangeKey rangeKey, double startValue, double endValue, double increment, boolean logCalculations)
+    {
+        try
+        {
+            int iterations = RangeCalculationEngine.pointCount(startValue, endValue, increment);
+
+            if (logCalculations)
+                logger.info("Calculating {} range points for {} with the {} Black-Scholes kernel", iterations, rangeKey, kernel.getName());
+
+            // Chunks are large enough to keep the kernel's vector lanes busy; each fills its own batch and writes into its own slots.
+            OptionPriceResult[] slots = new OptionPriceResult[iterations];
+            rangeCalculationEngine.forEachChunk(iterations, MIN_RANGE_CHUNK_SIZE, (from, to) ->
             {
-                double value = startValue + (i * increment);
-                if (value > endValue) break;
-                
-                final double currentValue = value;
-                CompletableFuture<OptionPriceResult> future = CompletableFuture.supplyAsync(() -> 
+                // Every point shares the base inputs, so fill the columns once and overwrite only the ranged one.
+                BlackScholesBatch batch = new BlackScholesBatch(to - from);
+                for (int i = from; i < to; i++)
                 {
-                    Map<String, Double> inputCopy = new HashMap<>(input);
-                    inputCopy.put(rangeKey, currentValue);
-                    OptionPriceResult result = calculate(inputCopy, logCalculations);
-                    result.setRangeVariable(currentValue);
-                    return result;
-                }, rangeCalculationExecutor);
-                
-                futures.add(future);
-            }
-            
-            // Wait for all futures to complete and merge results
-            CompletableFuture<Void> allFutures = CompletableFuture.allOf(
-                futures.toArray(new CompletableFuture[0])
-            );
-            
-            allFutures.thenRun(() -> 
-            {
-                for (CompletableFuture<OptionPriceResult> future : futures)
+                    batch.set(i - from, context);
+                    batch.setValue(i - from, rangeKey, startValue + (i * increment));
+                }
+
+                kernel.calculate(batch);
+
+                for (int i = from; i < to; i++)
                 {
-                    try
-                    {
-                        OptionPriceResult result = future.get();
-                        optionPriceResultSet.merge(result);
-                    }
-                    catch (Exception e)
-                    {
-                        logger.error("Error getting future result: {}", e.getMessage());
-                    }
+                    OptionPriceResult result = batch.getResult(i - from);
+                    result.setRangeVariable(startValue + (i * increment));
+                    slots[i] = result;
                 }
-            }).join();
+            });
+
+            optionPriceResultSet.mergeAll(Arrays.asList(slots));
         }
         catch (Exception e)
         {
@@ -136,45 +142,82 @@ public class EuropeanBlackScholesModel implements OptionModel
         }
     }
 
-    private double cumulativeNormalDistribution(double input)
+    // Time and rate are fixed along a row unless the row runs over one of them, so sqrt(T) and the discount factor are worked
+    // out once per row; when the row runs over time they are worked out once per column for the whole tile instead.
+    @Override
+    public void calculateGridTile(OptionPriceGrid grid, PricingContext context, int fromRow, int toRow, boolean logCalculation)
     {
-        // Coefficients for the Abramowitz and Stegun approximation
-        double coefficient1 = 0.254829592;
-        double coefficient2 = -0.284496736;
-        double coefficient3 = 1.421413741;
-        double coefficient4 = -1.453152027;
-        double coefficient5 = 1.061405429;
-        double scaleFactor = 0.3275911;
+        try
+        {
+            int rowLength = grid.getRowLength();
+            RangeKey rowKey = grid.getRowKey();
+            boolean timeAlongRow = rowKey == RangeKey.TIME_TO_EXPIRY;
+            boolean rateAlongRow = rowKey == RangeKey.INTEREST_RATE;
 
-        // Determine the sign of the input
-        int inputSign = input < 0 ? -1 : 1;
+            if (logCalculation)
+                logger.info("Calculating grid rows {} to {} of {} points with the {} Black-Scholes kernel", fromRow, toRow, rowLength, kernel.getName());
 
-        // Normalize input for approximation
-        double normalizedInput = Math.abs(input) / Math.sqrt(2.0);
+            double[] columnSquareRoots = null;
+            double[] columnDiscountFactors = null;
+            if (timeAlongRow)
+            {
+                columnSquareRoots = new double[rowLength];
+                for (int column = 0; column < rowLength; column++)
+                    columnSquareRoots[column] = sqrt(grid.getRowValue(column));
 
-        // Polynomial approximation term
-        double t = 1.0 / (1.0 + scaleFactor * normalizedInput);
+                // Only shareable down the columns when no other axis moves the rate.
+                if (!grid.hasAxis(RangeKey.INTEREST_RATE))
+                {
+                    columnDiscountFactors = new double[rowLength];
+                    for (int column = 0; column < rowLength; column++)
+                        columnDiscountFactors[column] = exp(-context.getInterestRate() * grid.getRowValue(column));
+                }
+            }
 
-        // Approximate the error function
-        double errorFunctionApprox = 1.0 - ((((coefficient5 * t + coefficient4) * t + coefficient3) * t + coefficient2) * t + coefficient1) * t * Math.exp(-normalizedInput * normalizedInput);
+            BlackScholesBatch batch = new BlackScholesBatch((toRow - fromRow) * rowLength);
+            for (int row = fromRow; row < toRow; row++)
+            {
+                PricingContext rowContext = grid.rowContext(context, row);
+                double rowInterestRate = rowContext.getInterestRate();
+                double rowTimeToExpiry = rowContext.getTimeToExpiryInYears();
+                double rowSquareRoot = sqrt(rowTimeToExpiry);
+                double rowDiscountFactor = exp(-rowInterestRate * rowTimeToExpiry);
+                int offset = (row - fromRow) * rowLength;
 
-        // Return the cumulative probability
-        return 0.5 * (1.0 + inputSign * errorFunctionApprox);
-    }
+                for (int column = 0; column < rowLength; column++)
+                {
+                    int i = offset + column;
+                    double value = grid.getRowValue(column);
+                    batch.set(i, rowContext);
+                    batch.setValue(i, rowKey, value);
 
-    private double standardNormalProbabilityDensityFunction(double x)
-    {
-        return (1.0 / Math.sqrt(2 * Math.PI)) * Math.exp(-0.5 * x * x);
+                    if (timeAlongRow)
+                        batch.setTimeTerms(i, columnSquareRoots[column], columnDiscountFactors != null ? columnDiscountFactors[column] : exp(-rowInterestRate * value));
+                    else if (rateAlongRow)
+                        batch.setTimeTerms(i, rowSquareRoot, exp(-value * rowTimeToExpiry));
+                    else
+                        batch.setTimeTerms(i, rowSquareRoot, rowDiscountFactor);
+                }
+            }
+
+            kernel.calculate(batch);
+            grid.set(fromRow * rowLength, batch);
+        }
+        catch (Exception e)
+        {
+            logger.error("Grid calculation error: {}", e.getMessage());
+            throw new RuntimeException("Black-Scholes grid calculation error: " + e.getMessage());
+        }
     }
 
-    private double calculateOptionPrice(double underlyingPrice, double strike, double timeToExpiryInYears, double interestRate)
+    private double calculateOptionPrice(boolean isCallOption, double underlyingPrice, double strike, double adjustedNormalizedDrift, double adjustedNormalizedDriftOffsetByVolatility, double discountFactor)
     {
         try
         {
-            if (this.isCallOption)
-                return (underlyingPrice * cumulativeNormalDistribution(this.adjustedNormalizedDrift)) - (strike * this.discountFactor * cumulativeNormalDistribution(this.adjustedNormalizedDriftOffsetByVolatility));
+            if (isCallOption)
+                return (underlyingPrice * cumulativeNormalDistribution(adjustedNormalizedDrift)) - (strike * discountFactor * cumulativeNormalDistribution(adjustedNormalizedDriftOffsetByVolatility));
             else
-                return (strike * this.discountFactor * cumulativeNormalDistribution(-this.adjustedNormalizedDriftOffsetByVolatility)) - (underlyingPrice * cumulativeNormalDistribution(-this.adjustedNormalizedDrift));
+                return (strike * discountFactor * cumulativeNormalDistribution(-adjustedNormalizedDriftOffsetByVolatility)) - (underlyingPrice * cumulativeNormalDistribution(-adjustedNormalizedDrift));
         }
         catch (Exception e)
         {
@@ -182,14 +225,14 @@ public class EuropeanBlackScholesModel implements OptionModel
         }
     }
 
-    private double calculateOptionDelta()
+    private double calculateOptionDelta(boolean isCallOption, double adjustedNormalizedDrift)
     {
         try
         {
-            if (this.isCallOption)
-                return cumulativeNormalDistribution(this.adjustedNormalizedDrift);
+            if (isCallOption)
+                return cumulativeNormalDistribution(adjustedNormalizedDrift);
             else
-                return cumulativeNormalDistribution(this.adjustedNormalizedDrift) - 1;
+                return cumulativeNormalDistribution(adjustedNormalizedDrift) - 1;
         }
         catch (Exception e)
         {
@@ -197,11 +240,11 @@ public class EuropeanBlackScholesModel implements OptionModel
         }
     }
 
-    private double calculateOptionGamma(double underlyingPrice, double volatility)
+    private double calculateOptionGamma(double underlyingPrice, double volatility, double adjustedNormalizedDrift, double squareRootOfTimeToExpiryInYears)
     {
         try
         {
-            return standardNormalProbabilityDensityFunction(this.adjustedNormalizedDrift) / (underlyingPrice * volatility * this.squareRootOfTimeToExpiryInYears);
+            return standardNormalProbabilityDensityFunction(adjustedNormalizedDrift) / (underlyingPrice * volatility * squareRootOfTimeToExpiryInYears);
         }
         catch (Exception e)
         {
@@ -209,11 +252,11 @@ public class EuropeanBlackScholesModel implements OptionModel
         }
     }
 
-    private double calculateOptionVega(double underlyingPrice)
+    private double calculateOptionVega(double underlyingPrice, double adjustedNormalizedDrift, double squareRootOfTimeToExpiryInYears)
     {
         try
         {
-            return underlyingPrice * standardNormalProbabilityDensityFunction(this.adjustedNormalizedDrift) * this.squareRootOfTimeToExpiryInYears * 0.01;
+            return underlyingPrice * standardNormalProbabilityDensityFunction(adjustedNormalizedDrift) * squareRootOfTimeToExpiryInYears * 0.01;
         }
         catch (Exception e)
         {
@@ -222,14 +265,14 @@ public class EuropeanBlackScholesModel implements OptionModel
     }
 
 
-    private double calculateOptionRho(double strike, double timeToExpiryInYears, double interestRate)
+    private double calculateOptionRho(boolean isCallOption, double strike, double timeToExpiryInYears, double adjustedNormalizedDriftOffsetByVolatility, double discountFactor)
     {
         try
         {
-            if (this.isCallOption)
-                return strike * timeToExpiryInYears * this.discountFactor * cumulativeNormalDistribution(this.adjustedNormalizedDriftOffsetByVolatility) * 0.01;
+            if (isCallOption)
+                return strike * timeToExpiryInYears * discountFactor * cumulativeNormalDistribution(adjustedNormalizedDriftOffsetByVolatility) * 0.01;
             else
-                return -strike * timeToExpiryInYears * this.discountFactor * cumulativeNormalDistribution(-this.adjustedNormalizedDriftOffsetByVolatility) * 0.01;
+                return -strike * timeToExpiryInYears * discountFactor * cumulativeNormalDistribution(-adjustedNormalizedDriftOffsetByVolatility) * 0.01;
         }
         catch (Exception e)
         {
@@ -237,17 +280,17 @@ public class EuropeanBlackScholesModel implements OptionModel
         }
     }
 
-    private double calculateOptionTheta(double underlyingPrice, double strike, double interestRate, double volatility, double dayCountConvention)
+    private double calculateOptionTheta(boolean isCallOption, double underlyingPrice, double strike, double interestRate, double volatility, double dayCountConvention, double adjustedNormalizedDrift, double adjustedNormalizedDriftOffsetByVolatility, double discountFactor, double squareRootOfTimeToExpiryInYears)
     {
         try
         {
-            double firstTerm = -(underlyingPrice * standardNormalProbabilityDensityFunction(this.adjustedNormalizedDrift) * volatility) / (2 * this.squareRootOfTimeToExpiryInYears);
+            double firstTerm = -(underlyingPrice * standardNormalProbabilityDensityFunction(adjustedNormalizedDrift) * volatility) / (2 * squareRootOfTimeToExpiryInYears);
             double secondTerm;
 
-            if (this.isCallOption)
-                secondTerm = -interestRate * strike * this.discountFactor * cumulativeNormalDistribution(this.adjustedNormalizedDriftOffsetByVolatility);
+            if (isCallOption)
+                secondTerm = -interestRate * strike * discountFactor * cumulativeNormalDistribution(adjustedNormalizedDriftOffsetByVolatility);
             else
-                secondTerm = interestRate * strike * this.discountFactor * cumulativeNormalDistribution(-this.adjustedNormalizedDriftOffsetByVolatility);
+                secondTerm = interestRate * strike * discountFactor * cumulativeNormalDistribution(-adjustedNormalizedDriftOffsetByVolatility);
 
             return (firstTerm + secondTerm) / dayCountConvention;
         }
@@ -260,12 +303,12 @@ public class EuropeanBlackScholesModel implements OptionModel
     @Override
     public String getModelDetails()
     {
-        return "Black-Scholes Model: European Option Pricer only. Support both calls and puts.";
+        return "Black-Scholes Model: European Option Pricer only. Support both calls and puts. Batch kernel: " + kernel.getName() + ".";
     }
 
     @Override
     public String toString()
     {
-        return "BlackScholesModel{isCall=" + isCallOption + ", isEuropean=" + isEuropeanOption + "}";
+        return "BlackScholesModel{stateless}";
     }
 }
@@ -0,0 +1,84 @@
+package com.leon.pricing.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the chunks of a range, grid or batch in parallel and returns once all of them have completed. The implementations
+ * differ only in where the chunks run; which one is used is chosen by pricing.execution.backend. Every backend counts its
+ * invocations, the chunks it ran and how many of those ran on the calling thread, and adds its own pool figures.
+ */
+public abstract class ExecutionBackend
+{
+    @FunctionalInterface
+    public interface ChunkRunner
+    {
+        void run(int chunk);
+    }
+
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder callerChunks = new LongAdder();
+    private final LongAdder invocationNanos = new LongAdder();
+    private final LongAccumulator maxInvocationNanos = new LongAccumulator(Math::max, 0);
+
+    public abstract ExecutionBackendType getType();
+
+    public abstract int getParallelism();
+
+    public abstract void shutdown();
+
+    // Runs chunks 0 to chunkCount - 1 and rethrows the first failure once they have all finished or been abandoned.
+    protected abstract void execute(int chunkCount, ChunkRunner runner);
+
+    protected abstract void addPoolStatistics(Map<String, Object> statistics);
+
+    public final void invokeAll(int chunkCount, ChunkRunner runner)
+    {
+        Thread caller = Thread.currentThread();
+        long startTime = System.nanoTime();
+        try
+        {
+            execute(chunkCount, chunk ->
+            {
+                runner.run(chunk);
+                chunks.increment();
+                if (Thread.currentThread() == caller)
+                    callerChunks.increment();
+            });
+        }
+        finally
+        {
+            long elapsed = System.nanoTime() - startTime;
+            invocations.increment();
+            invocationNanos.add(elapsed);
+            maxInvocationNanos.accumulate(elapsed);
+        }
+    }
+
+    public Map<String, Object> getStatistics()
+    {
+        long invocationCount = invocations.sum();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("backend", getType().getName());
+        statistics.put("parallelism", getParallelism());
+        statistics.put("invocations", invocationCount);
+        statistics.put("chunks", chunks.sum());
+        statistics.put("callerChunks", callerChunks.sum());
+        statistics.put("averageInvocationMs", invocationCount == 0 ? 0.0 : invocationNanos.sum() / 1_000_000.0 / invocationCount);
+        statistics.put("maxInvocationMs", maxInvocationNanos.get() / 1_000_000.0);
+        addPoolStatistics(statistics);
+        return statistics;
+    }
+
+    public void resetStatistics()
+    {
+        invocations.reset();
+        chunks.reset();
+        callerChunks.reset();
+        invocationNanos.reset();
+        maxInvocationNanos.reset();
+    }
+}
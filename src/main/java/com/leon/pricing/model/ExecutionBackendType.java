@@ -0,0 +1,37 @@
+package com.leon.pricing.model;
+
+public enum ExecutionBackendType
+{
+    // Bounded pool of platform threads, one per core, fed from a bounded queue
+    PLATFORM("platform"),
+    // Work-stealing pool: chunks are split recursively and idle workers steal them
+    FORK_JOIN("fork-join"),
+    // A virtual thread per helper task; needs JDK 21 or later
+    VIRTUAL("virtual");
+
+    private final String name;
+
+    ExecutionBackendType(String name)
+    {
+        this.name = name;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public static ExecutionBackendType fromString(String backend)
+    {
+        if (backend == null || backend.trim().isEmpty())
+            throw new IllegalArgumentException("Execution backend cannot be null or empty");
+
+        for (ExecutionBackendType type : values())
+        {
+            if (type.name.equalsIgnoreCase(backend.trim()) || type.name().equalsIgnoreCase(backend.trim()))
+                return type;
+        }
+
+        throw new IllegalArgumentException("Unknown execution backend: " + backend + "; expected platform, fork-join or virtual");
+    }
+}
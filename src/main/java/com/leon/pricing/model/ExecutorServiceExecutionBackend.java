@@ -0,0 +1,142 @@
+package com.leon.pricing.model;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the chunks on a plain executor, either the bounded platform pool or virtual threads. Rather than queueing a task per
+ * chunk and blocking on them, the caller submits up to parallelism - 1 helpers and then claims chunks itself alongside them
+ * from a shared counter. It only waits for chunks that a helper has already started, so a helper still queued behind other
+ * work, or rejected by a full queue, never holds the caller up, and a nested range run from a pool thread cannot deadlock.
+ */
+public class ExecutorServiceExecutionBackend extends ExecutionBackend
+{
+    private final ExecutionBackendType type;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final LongAdder helpersSubmitted = new LongAdder();
+    private final LongAdder helpersRejected = new LongAdder();
+
+    public ExecutorServiceExecutionBackend(ExecutionBackendType type, ExecutorService executor, int parallelism)
+    {
+        this.type = type;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public ExecutionBackendType getType()
+    {
+        return type;
+    }
+
+    @Override
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    @Override
+    public void shutdown()
+    {
+        executor.shutdown();
+    }
+
+    @Override
+    protected void execute(int chunkCount, ChunkRunner runner)
+    {
+        ChunkClaims claims = new ChunkClaims(chunkCount, runner);
+        int helpers = Math.min(parallelism, chunkCount) - 1;
+        for (int i = 0; i < helpers; i++)
+        {
+            try
+            {
+                executor.execute(claims::runClaimed);
+                helpersSubmitted.increment();
+            }
+            catch (RejectedExecutionException e)
+            {
+                // The caller runs whatever the helpers do not get to.
+                helpersRejected.increment();
+                break;
+            }
+        }
+
+        claims.runClaimed();
+        claims.completed.join();
+
+        Throwable failure = claims.failure.get();
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+    }
+
+    @Override
+    protected void addPoolStatistics(Map<String, Object> statistics)
+    {
+        statistics.put("helpersSubmitted", helpersSubmitted.sum());
+        statistics.put("helpersRejected", helpersRejected.sum());
+        if (executor instanceof ThreadPoolExecutor)
+        {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            statistics.put("poolSize", pool.getPoolSize());
+            statistics.put("activeThreads", pool.getActiveCount());
+            statistics.put("queuedTasks", pool.getQueue().size());
+            statistics.put("remainingQueueCapacity", pool.getQueue().remainingCapacity());
+        }
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        super.resetStatistics();
+        helpersSubmitted.reset();
+        helpersRejected.reset();
+    }
+
+    private static final class ChunkClaims
+    {
+        private final int chunkCount;
+        private final ChunkRunner runner;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicInteger finishedChunks = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        private ChunkClaims(int chunkCount, ChunkRunner runner)
+        {
+            this.chunkCount = chunkCount;
+            this.runner = runner;
+        }
+
+        // After a failure the remaining chunks are claimed but skipped, as a fork/join invocation abandons its other tasks.
+        private void runClaimed()
+        {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunkCount)
+            {
+                try
+                {
+                    if (failure.get() == null)
+                        runner.run(chunk);
+                }
+                catch (Throwable e)
+                {
+                    failure.compareAndSet(null, e);
+                }
+                finally
+                {
+                    if (finishedChunks.incrementAndGet() == chunkCount)
+                        completed.complete(null);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.leon.pricing.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import static java.lang.Math.*;
+
+@Component
+public class FiniteDifferenceOptionModel implements OptionModel
+{
+    private static final Logger logger = LoggerFactory.getLogger(FiniteDifferenceOptionModel.class);
+    private static final int DEFAULT_SPACE_STEPS = 400;
+    private static final int DEFAULT_TIME_STEPS = 200;
+    // Rannacher start-up: the first two Crank-Nicolson steps are replaced by four fully implicit half steps,
+    // which damps the oscillations the payoff kink would otherwise leave in gamma.
+    private static final int RANNACHER_HALF_STEPS = 4;
+    private static final double GRID_STANDARD_DEVIATIONS = 5.0;
+    // Wide spot ranges get more space steps so their nodes are as close together as a single quote's; this bounds the grid.
+    private static final int MAX_SPACE_STEPS = 20_000;
+    // Relative bumps vanish at a zero rate or volatility, so vega and rho bump by at least this much.
+    private static final double MINIMUM_BUMP = 1e-4;
+
+    private volatile int spaceSteps = DEFAULT_SPACE_STEPS;
+    private volatile int timeSteps = DEFAULT_TIME_STEPS;
+
+    @org.springframework.beans.factory.annotation.Autowired
+    private RangeCalculationEngine rangeCalculationEngine;
+
+    public FiniteDifferenceOptionModel() {}
+
+    public void setSpaceSteps(int spaceSteps)
+    {
+        if (spaceSteps < 4 || spaceSteps % 2 != 0)
+            throw new IllegalArgumentException("Finite difference grid needs an even number of at least 4 space steps");
+
+        this.spaceSteps = spaceSteps;
+    }
+
+    public void setTimeSteps(int timeSteps)
+    {
+        // Theta uses the last two full Crank-Nicolson steps, so there must be two left after the Rannacher start-up.
+        if (timeSteps < RANNACHER_HALF_STEPS / 2 + 2)
+            throw new IllegalArgumentException("Finite difference grid needs at least " + (RANNACHER_HALF_STEPS / 2 + 2) + " time steps");
+
+        this.timeSteps = timeSteps;
+    }
+
+    @Override
+    public OptionPriceResult calculate(PricingContext context, boolean logCalculation)
+    {
+        try
+        {
+            double underlyingPrice = context.getUnderlyingPrice();
+
+            if (logCalculation)
+                logger.info("Calculating option price using a Crank-Nicolson finite difference grid of {} x {} steps - Volatility: {}, Interest Rate: {}, Strike: {}, Underlying Price: {}, Time to Expiry (years): {}",
+                        spaceSteps, timeSteps, context.getVolatility(), context.getInterestRate(), context.getStrike(), underlyingPrice, context.getTimeToExpiryInYears());
+
+            // An even number of space steps centred on today's spot puts it exactly on the middle node.
+            return solveSurface(context, underlyingPrice, underlyingPrice).resultAt(underlyingPrice);
+        }
+        catch (Exception e)
+        {
+            logger.error("Finite difference calculation error: {}", e.getMessage());
+            throw new RuntimeException("Finite difference calculation error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void calculateRange(OptionPriceResultSet optionPriceResultSet, PricingContext context, RangeKey rangeKey, double startValue, double endValue, double increment, boolean logCalculations)
+    {
+        if (rangeKey == RangeKey.UNDERLYING_PRICE)
+            calculateUnderlyingPriceRange(optionPriceResultSet, context, startValue, endValue, increment, logCalculations);
+        else
+            calculateRangeByRepricing(optionPriceResultSet, context, rangeKey, startValue, endValue, increment, logCalculations);
+    }
+
+    // Every spot in the range lies on the same grid, so the whole range is read off one set of solves.
+    private void calculateUnderlyingPriceRange(OptionPriceResultSet optionPriceResultSet, PricingContext context, double startValue, double endValue, double increment, boolean logCalculations)
+    {
+        try
+        {
+            int iterations = RangeCalculationEngine.pointCount(startValue, endValue, increment);
+            if (iterations == 0)
+                return;
+
+            if (startValue <= 0.0)
+                throw new IllegalArgumentException("Underlying price range must be positive");
+
+            double lastValue = startValue + ((iterations - 1) * increment);
+            if (logCalculations)
+                logger.info("Calculating {} underlying price points from {} to {} with one finite difference surface", iterations, startValue, lastValue);
+
+            PriceSurface surface = solveSurface(context, min(startValue, context.getUnderlyingPrice()), max(lastValue, context.getUnderlyingPrice()));
+            for (int i = 0; i < iterations; i++)
+            {
+                double value = startValue + (i * increment);
+                OptionPriceResult result = surface.resultAt(value);
+                result.setRangeVariable(value);
+                optionPriceResultSet.merge(result);
+            }
+        }
+        catch (Exception e)
+        {
+            logger.error("Finite difference range calculation error: {}", e.getMessage());
+            throw new RuntimeException("Finite difference range calculation error: " + e.getMessage());
+        }
+    }
+
+    // A row along spot is a spot range for that row's other inputs, so each row is read off its own surface.
+    @Override
+    public void calculateGridTile(OptionPriceGrid grid, PricingContext context, int fromRow, int toRow, boolean logCalculation)
+    {
+        if (grid.getRowKey() != RangeKey.UNDERLYING_PRICE)
+        {
+            OptionModel.super.calculateGridTile(grid, context, fromRow, toRow, logCalculation);
+            return;
+        }
+
+        try
+        {
+            int rowLength = grid.getRowLength();
+            double lowestSpot = grid.getRowValue(0);
+            double highestSpot = grid.getRowValue(rowLength - 1);
+            if (lowestSpot <= 0.0)
+                throw new IllegalArgumentException("Underlying price axis must be positive");
+
+            for (int row = fromRow; row < toRow; row++)
+            {
+                PricingContext rowContext = grid.rowContext(context, row);
+                if (logCalculation)
+                    logger.info("Calculating grid row {} of {} underlying price points with one finite difference surface: {}", row, rowLength, rowContext);
+
+                PriceSurface surface = solveSurface(rowContext, min(lowestSpot, rowContext.getUnderlyingPrice()), max(highestSpot, rowContext.getUnderlyingPrice()));
+                for (int column = 0; column < rowLength; column++)
+                    grid.set((row * rowLength) + column, surface.resultAt(grid.getRowValue(column)));
+            }
+        }
+        catch (Exception e)
+        {
+            logger.error("Finite difference grid calculation error: {}", e.getMessage());
+            throw new RuntimeException("Finite difference grid calculation error: " + e.getMessage());
+        }
+    }
+
+    private void calculateRangeByRepricing(OptionPriceResultSet optionPriceResultSet, PricingContext context, RangeKey rangeKey, double startValue, double endValue, double increment, boolean logCalculations)
+    {
+        try
+        {
+            rangeCalculationEngine.calculateRange(optionPriceResultSet, context, rangeKey, startValue, endValue, increment, this, logCalculations);
+        }
+        catch (Exception e)
+        {
+            logger.error("Finite difference range calculation error: {}", e.getMessage());
+            throw new RuntimeException("Finite difference range calculation error: " + e.getMessage());
+        }
+    }
+
+    // The base grid plus the vega and rho bumps, all solved on the same log-spot nodes so they can be differenced point by point.
+    private PriceSurface solveSurface(PricingContext context, double lowestSpot, double highestSpot)
+    {
+        int spaceSteps = spaceStepsFor(context, lowestSpot, highestSpot, this.spaceSteps);
+        int timeSteps = this.timeSteps;
+        double volatility = context.getVolatility();
+        double interestRate = context.getInterestRate();
+        double margin = gridMargin(context);
+        double lowestLogSpot = log(lowestSpot) - margin;
+        double highestLogSpot = log(highestSpot) + margin;
+        double volatilityBump = max(abs(volatility) * 0.01, MINIMUM_BUMP);
+        double interestRateBump = max(abs(interestRate) * 0.01, MINIMUM_BUMP);
+
+        PriceSurface surface = new PriceSurface();
+        surface.base = solve(context, volatility, interestRate, lowestLogSpot, highestLogSpot, spaceSteps, timeSteps);
+        surface.volatilityUp = solve(context, volatility + volatilityBump, interestRate, lowestLogSpot, highestLogSpot, spaceSteps, timeSteps);
+        surface.volatilityDown = solve(context, volatility - volatilityBump, interestRate, lowestLogSpot, highestLogSpot, spaceSteps, timeSteps);
+        surface.interestRateUp = solve(context, volatility, interestRate + interestRateBump, lowestLogSpot, highestLogSpot, spaceSteps, timeSteps);
+        surface.interestRateDown = solve(context, volatility, interestRate - interestRateBump, lowestLogSpot, highestLogSpot, spaceSteps, timeSteps);
+        surface.volatilityBump = volatilityBump;
+        surface.interestRateBump = interestRateBump;
+        return surface;
+    }
+
+    private static double gridMargin(PricingContext context)
+    {
+        return GRID_STANDARD_DEVIATIONS * context.getVolatility() * sqrt(context.getTimeToExpiryInYears());
+    }
+
+    // A single quote spans 2 * margin in log spot with the configured steps; a range spans log(highest / lowest) more
+    // and gets proportionally more steps, rounded up to even, so its node spacing is no coarser than a single quote's.
+    private static int spaceStepsFor(PricingContext context, double lowestSpot, double highestSpot, int spaceSteps)
+    {
+        double margin = gridMargin(context);
+        if (highestSpot <= lowestSpot || margin <= 0.0)
+            return spaceSteps;
+
+        double widthInQuoteDomains = 1.0 + log(highestSpot / lowestSpot) / (2 * margin);
+        if (!(spaceSteps * widthInQuoteDomains <= MAX_SPACE_STEPS))
+            throw new IllegalArgumentException(String.format("Underlying prices from %s to %s need more than the %d space steps the finite difference grid allows at the resolution of a single quote; narrow the range",
+                    lowestSpot, highestSpot, MAX_SPACE_STEPS));
+
+        int steps = (int) ceil(spaceSteps * widthInQuoteDomains);
+        return steps + (steps % 2);
+    }
+
+    private static final class PriceSurface
+    {
+        private Grid base;
+        private Grid volatilityUp;
+        private Grid volatilityDown;
+        private Grid interestRateUp;
+        private Grid interestRateDown;
+        private double volatilityBump;
+        private double interestRateBump;
+
+        // Units follow the other numerical models: vega per unit volatility, rho per unit rate and theta as dV/dT per year.
+        private OptionPriceResult resultAt(double underlyingPrice)
+        {
+            double logSpot = log(underlyingPrice);
+            OptionPriceResult result = new OptionPriceResult();
+            result.setPrice(base.valueAt(base.values, logSpot));
+            double firstDerivative = base.firstDerivativeAt(logSpot);
+            double secondDerivative = base.secondDerivativeAt(logSpot);
+            result.setDelta(firstDerivative / underlyingPrice);
+            result.setGamma((secondDerivative - firstDerivative) / (underlyingPrice * underlyingPrice));
+            // Second-order backward difference over the last two time steps
+            result.setTheta((3 * result.getPrice() - 4 * base.valueAt(base.previousValues, logSpot) + base.valueAt(base.earlierValues, logSpot)) / (2 * base.timeStep));
+            result.setVega((volatilityUp.valueAt(volatilityUp.values, logSpot) - volatilityDown.valueAt(volatilityDown.values, logSpot)) / (2 * volatilityBump));
+            result.setRho((interestRateUp.valueAt(interestRateUp.values, logSpot) - interestRateDown.valueAt(interestRateDown.values, logSpot)) / (2 * interestRateBump));
+            return result;
+        }
+    }
+
+    // Option values today on a uniform log-spot grid, plus the two time steps before for theta.
+    private static final class Grid
+    {
+        private double lowestLogSpot;
+        private double logSpotStep;
+        private double[] values;
+        private double[] previousValues;
+        private double[] earlierValues;
+        private double timeStep;
+
+        // Local quadratic through the nearest node and its neighbours; the spot is never more than half a step from the centre node.
+        private int nearestNode(double logSpot)
+        {
+            int node = (int) round((logSpot - lowestLogSpot) / logSpotStep);
+            return max(1, min(values.length - 2, node));
+        }
+
+        private double valueAt(double[] nodeValues, double logSpot)
+        {
+            int node = nearestNode(logSpot);
+            double offset = logSpot - (lowestLogSpot + node * logSpotStep);
+            double firstDifference = (nodeValues[node + 1] - nodeValues[node - 1]) / (2 * logSpotStep);
+            double secondDifference = (nodeValues[node + 1] - 2 * nodeValues[node] + nodeValues[node - 1]) / (logSpotStep * logSpotStep);
+            return nodeValues[node] + offset * firstDifference + 0.5 * offset * offset * secondDifference;
+        }
+
+        private double firstDerivativeAt(double logSpot)
+        {
+            int node = nearestNode(logSpot);
+            double offset = logSpot - (lowestLogSpot + node * logSpotStep);
+            return (values[node + 1] - values[node - 1]) / (2 * logSpotStep) + offset * secondDerivativeAt(logSpot);
+        }
+
+        private double secondDerivativeAt(double logSpot)
+        {
+            int node = nearestNode(logSpot);
+            return (values[node + 1] - 2 * values[node] + values[node - 1]) / (logSpotStep * logSpotStep);
+        }
+    }
+
+    // Solves V_t = 0.5 * sigma^2 * V_xx + (r - 0.5 * sigma^2) * V_x - r * V in x = ln(S), marching from expiry towards today.
+    private Grid solve(PricingContext context, double volatility, double interestRate, double lowestLogSpot, double highestLogSpot, int spaceSteps, int timeSteps)
+    {
+        double strike = context.getStrike();
+        double timeToExpiryInYears = context.getTimeToExpiryInYears();
+        boolean isCallOption = context.isCallOption();
+        boolean isEuropeanOption = context.isEuropeanOption();
+        double logSpotStep = (highestLogSpot - lowestLogSpot) / spaceSteps;
+        double timeStep = timeToExpiryInYears / timeSteps;
+
+        double diffusion = 0.5 * volatility * volatility / (logSpotStep * logSpotStep);
+        double convection = (interestRate - 0.5 * volatility * volatility) / (2 * logSpotStep);
+        double lowerCoefficient = diffusion - convection;
+        double diagonalCoefficient = -2 * diffusion - interestRate;
+        double upperCoefficient = diffusion + convection;
+
+        double[] payoffs = new double[spaceSteps + 1];
+        double lowestSpot = exp(lowestLogSpot);
+        double highestSpot = exp(highestLogSpot);
+        for (int i = 0; i <= spaceSteps; i++)
+        {
+            double spot = exp(lowestLogSpot + i * logSpotStep);
+            payoffs[i] = isCallOption ? max(spot - strike, 0.0) : max(strike - spot, 0.0);
+        }
+
+        // Brennan-Schwartz: the projected sweep has to start on the side where early exercise happens, low spots for puts.
+        boolean eliminateFromHigh = !isCallOption;
+        double rannacherStepSize = timeStep / 2;
+        TridiagonalSolver implicitSolver = new TridiagonalSolver(lowerCoefficient, diagonalCoefficient, upperCoefficient, 1.0, rannacherStepSize, spaceSteps - 1, eliminateFromHigh);
+        TridiagonalSolver crankNicolsonSolver = new TridiagonalSolver(lowerCoefficient, diagonalCoefficient, upperCoefficient, 0.5, timeStep, spaceSteps - 1, eliminateFromHigh);
+        double[] exerciseValues = isEuropeanOption ? null : payoffs;
+
+        double[] values = payoffs.clone();
+        double[] nextValues = new double[spaceSteps + 1];
+        double[] rightHandSide = new double[spaceSteps - 1];
+        double[] interior = new double[spaceSteps - 1];
+        double[] previousValues = null;
+        double[] earlierValues = null;
+        double elapsed = 0.0;
+        int totalSteps = RANNACHER_HALF_STEPS + timeSteps - RANNACHER_HALF_STEPS / 2;
+
+        for (int step = 0; step < totalSteps; step++)
+        {
+            if (step == totalSteps - 2)
+                earlierValues = values.clone();
+            else if (step == totalSteps - 1)
+                previousValues = values.clone();
+
+            boolean rannacherStep = step < RANNACHER_HALF_STEPS;
+            TridiagonalSolver solver = rannacherStep ? implicitSolver : crankNicolsonSolver;
+            double stepSize = rannacherStep ? rannacherStepSize : timeStep;
+            elapsed += stepSize;
+
+            // Dirichlet boundaries: worthless far out of the money, discounted intrinsic (or intrinsic if exercisable) far in it.
+            double discountedStrike = strike * exp(-interestRate * elapsed);
+            nextValues[0] = isCallOption ? 0.0 : (isEuropeanOption ? max(discountedStrike - lowestSpot, 0.0) : strike - lowestSpot);
+            nextValues[spaceSteps] = isCallOption ? max(highestSpot - discountedStrike, isEuropeanOption ? 0.0 : highestSpot - strike) : 0.0;
+
+            double explicitWeight = (1 - solver.implicitWeight) * stepSize;
+            for (int i = 1; i < spaceSteps; i++)
+                rightHandSide[i - 1] = values[i] + explicitWeight * (lowerCoefficient * values[i - 1] + diagonalCoefficient * values[i] + upperCoefficient * values[i + 1]);
+
+            double implicitWeight = solver.implicitWeight * stepSize;
+            rightHandSide[0] += implicitWeight * lowerCoefficient * nextValues[0];
+            rightHandSide[spaceSteps - 2] += implicitWeight * upperCoefficient * nextValues[spaceSteps];
+
+            solver.solve(rightHandSide, interior, exerciseValues);
+            System.arraycopy(interior, 0, nextValues, 1, spaceSteps - 1);
+
+            double[] swap = values;
+            values = nextValues;
+            nextValues = swap;
+        }
+
+        Grid grid = new Grid();
+        grid.lowestLogSpot = lowestLogSpot;
+        grid.logSpotStep = logSpotStep;
+        grid.values = values;
+        grid.previousValues = previousValues;
+        grid.earlierValues = earlierValues;
+        grid.timeStep = timeStep;
+        return grid;
+    }
+
+    // Constant-coefficient tridiagonal system (I - theta * dt * L) x = b, factorised once per step size.
+    // With exercise values the back substitution projects each node onto the payoff as it goes (Brennan-Schwartz),
+    // which solves the linear complementarity problem exactly when there is a single exercise boundary.
+    private static final class TridiagonalSolver
+    {
+        private final double implicitWeight;
+        private final double lower;
+        private final double upper;
+        private final int size;
+        private final boolean eliminateFromHigh;
+        private final double[] eliminationFactors;
+        private final double[] inverseDiagonals;
+        private final double[] reducedRightHandSide;
+
+        private TridiagonalSolver(double lowerCoefficient, double diagonalCoefficient, double upperCoefficient, double implicitWeight, double stepSize, int size, boolean eliminateFromHigh)
+        {
+            this.implicitWeight = implicitWeight;
+            this.lower = -implicitWeight * stepSize * lowerCoefficient;
+            this.upper = -implicitWeight * stepSize * upperCoefficient;
+            double diagonal = 1 - implicitWeight * stepSize * diagonalCoefficient;
+            this.size = size;
+            this.eliminateFromHigh = eliminateFromHigh;
+            this.eliminationFactors = new double[size];
+            this.inverseDiagonals = new double[size];
+            this.reducedRightHandSide = new double[size];
+
+            if (eliminateFromHigh)
+            {
+                inverseDiagonals[size - 1] = 1.0 / diagonal;
+                eliminationFactors[size - 1] = lower * inverseDiagonals[size - 1];
+                for (int k = size - 2; k >= 0; k--)
+                {
+                    inverseDiagonals[k] = 1.0 / (diagonal - upper * eliminationFactors[k + 1]);
+                    eliminationFactors[k] = lower * inverseDiagonals[k];
+                }
+            }
+            else
+            {
+                inverseDiagonals[0] = 1.0 / diagonal;
+                eliminationFactors[0] = upper * inverseDiagonals[0];
+                for (int k = 1; k < size; k++)
+                {
+                    inverseDiagonals[k] = 1.0 / (diagonal - lower * eliminationFactors[k - 1]);
+                    eliminationFactors[k] = upper * inverseDiagonals[k];
+                }
+            }
+        }
+
+        private void solve(double[] rightHandSide, double[] solution, double[] exerciseValues)
+        {
+            double[] reduced = reducedRightHandSide;
+            if (eliminateFromHigh)
+            {
+                reduced[size - 1] = rightHandSide[size - 1] * inverseDiagonals[size - 1];
+                for (int k = size - 2; k >= 0; k--)
+                    reduced[k] = (rightHandSide[k] - upper * reduced[k + 1]) * inverseDiagonals[k];
+
+                solution[0] = project(reduced[0], exerciseValues, 0);
+                for (int k = 1; k < size; k++)
+                    solution[k] = project(reduced[k] - eliminationFactors[k] * solution[k - 1], exerciseValues, k);
+            }
+            else
+            {
+                reduced[0] = rightHandSide[0] * inverseDiagonals[0];
+                for (int k = 1; k < size; k++)
+                    reduced[k] = (rightHandSide[k] - lower * reduced[k - 1]) * inverseDiagonals[k];
+
+                solution[size - 1] = project(reduced[size - 1], exerciseValues, size - 1);
+                for (int k = size - 2; k >= 0; k--)
+                    solution[k] = project(reduced[k] - eliminationFactors[k] * solution[k + 1], exerciseValues, k);
+            }
+        }
+
+        // Interior unknown k is grid node k + 1.
+        private static double project(double value, double[] exerciseValues, int k)
+        {
+            return exerciseValues == null ? value : max(value, exerciseValues[k + 1]);
+        }
+    }
+
+    @Override
+    public double estimateWork(PricingContext context)
+    {
+        return (double) spaceSteps * (timeSteps + RANNACHER_HALF_STEPS / 2);
+    }
+
+    // An underlying price range or grid row is read off one surface, however many points it has, with as many more
+    // space steps as the range needs to keep a single quote's resolution.
+    @Override
+    public double estimateRangeWork(PricingContext context, RangeKey rangeKey, double startValue, double endValue, long points)
+    {
+        if (rangeKey != RangeKey.UNDERLYING_PRICE)
+            return points * estimateWork(context);
+        if (points == 0)
+            return 0.0;
+        if (startValue <= 0.0)
+            throw new IllegalArgumentException("Underlying price range must be positive");
+
+        double underlyingPrice = context.getUnderlyingPrice();
+        int spaceSteps = spaceStepsFor(context, min(startValue, underlyingPrice), max(endValue, underlyingPrice), this.spaceSteps);
+        return (double) spaceSteps * (timeSteps + RANNACHER_HALF_STEPS / 2);
+    }
+
+    @Override
+    public String getModelDetails()
+    {
+        return String.format("Finite Difference Option Model: European and American calls and puts on a Crank-Nicolson grid of %d space by %d time steps with Rannacher start-up",
+                spaceSteps, timeSteps);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("FiniteDifferenceOptionModel{spaceSteps=%d, timeSteps=%d}", spaceSteps, timeSteps);
+    }
+}
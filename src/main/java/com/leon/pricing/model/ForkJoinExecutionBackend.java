@@ -0,0 +1,79 @@
+package com.leon.pricing.model;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Splits the chunks recursively on a work-stealing pool. It has no submission queue to overflow, and a worker that waits
+// on its split-off half runs other chunks meanwhile, so nested ranges cannot starve the pool.
+public class ForkJoinExecutionBackend extends ExecutionBackend
+{
+    private final ForkJoinPool pool;
+
+    public ForkJoinExecutionBackend(ForkJoinPool pool)
+    {
+        this.pool = pool;
+    }
+
+    @Override
+    public ExecutionBackendType getType()
+    {
+        return ExecutionBackendType.FORK_JOIN;
+    }
+
+    @Override
+    public int getParallelism()
+    {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    @Override
+    protected void execute(int chunkCount, ChunkRunner runner)
+    {
+        pool.invoke(new ChunkAction(runner, 0, chunkCount));
+    }
+
+    @Override
+    protected void addPoolStatistics(Map<String, Object> statistics)
+    {
+        statistics.put("poolSize", pool.getPoolSize());
+        statistics.put("activeThreads", pool.getActiveThreadCount());
+        statistics.put("queuedTasks", pool.getQueuedTaskCount());
+        statistics.put("steals", pool.getStealCount());
+    }
+
+    private static final class ChunkAction extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkRunner runner;
+        private final int from;
+        private final int to;
+
+        private ChunkAction(ChunkRunner runner, int from, int to)
+        {
+            this.runner = runner;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from == 1)
+            {
+                runner.run(from);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkAction(runner, from, middle), new ChunkAction(runner, middle, to));
+        }
+    }
+}
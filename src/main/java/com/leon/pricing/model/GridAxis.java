@@ -0,0 +1,57 @@
+package com.leon.pricing.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+public class GridAxis {
+    
+    @NotNull(message = "Axis key is required")
+    @JsonProperty("key")
+    private String key;
+    
+    @NotNull(message = "Start value is required")
+    @JsonProperty("startValue")
+    private Double startValue;
+    
+    @NotNull(message = "End value is required")
+    @JsonProperty("endValue")
+    private Double endValue;
+    
+    @NotNull(message = "Increment is required")
+    @DecimalMin(value = "0.0001", message = "Increment must be greater than 0")
+    @JsonProperty("increment")
+    private Double increment;
+    
+    public GridAxis() {}
+    
+    public GridAxis(String key, Double startValue, Double endValue, Double increment) {
+        this.key = key;
+        this.startValue = startValue;
+        this.endValue = endValue;
+        this.increment = increment;
+    }
+    
+    // Getters and Setters
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+    
+    public Double getStartValue() { return startValue; }
+    public void setStartValue(Double startValue) { this.startValue = startValue; }
+    
+    public Double getEndValue() { return endValue; }
+    public void setEndValue(Double endValue) { this.endValue = endValue; }
+    
+    public Double getIncrement() { return increment; }
+    public void setIncrement(Double increment) { this.increment = increment; }
+
+    @Override
+    public String toString() {
+        return "GridAxis{" +
+                "key='" + key + '\'' +
+                ", startValue=" + startValue +
+                ", endValue=" + endValue +
+                ", increment=" + increment +
+                '}';
+    }
+}
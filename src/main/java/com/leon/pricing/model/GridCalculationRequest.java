@@ -0,0 +1,42 @@
+package com.leon.pricing.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+public class GridCalculationRequest {
+    
+    @NotNull(message = "Base pricing request is required")
+    @JsonProperty("baseRequest")
+    private OptionPricingRequest baseRequest;
+    
+    // The last axis varies fastest: each row of the result runs along it with every other axis held fixed.
+    @NotEmpty(message = "At least one axis is required")
+    @Valid
+    @JsonProperty("axes")
+    private List<GridAxis> axes;
+    
+    public GridCalculationRequest() {}
+    
+    public GridCalculationRequest(OptionPricingRequest baseRequest, List<GridAxis> axes) {
+        this.baseRequest = baseRequest;
+        this.axes = axes;
+    }
+    
+    // Getters and Setters
+    public OptionPricingRequest getBaseRequest() { return baseRequest; }
+    public void setBaseRequest(OptionPricingRequest baseRequest) { this.baseRequest = baseRequest; }
+    
+    public List<GridAxis> getAxes() { return axes; }
+    public void setAxes(List<GridAxis> axes) { this.axes = axes; }
+
+    @Override
+    public String toString() {
+        return "GridCalculationRequest{" +
+                "baseRequest=" + baseRequest +
+                ", axes=" + axes +
+                '}';
+    }
+}
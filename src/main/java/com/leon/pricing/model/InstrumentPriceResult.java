@@ -0,0 +1,79 @@
+package com.leon.pricing.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// The option price together with the market data it was calculated from, all read from one market data version.
+public class InstrumentPriceResult {
+
+    @JsonProperty("instrumentCode")
+    private String instrumentCode;
+
+    @JsonProperty("currencyCode")
+    private String currencyCode;
+
+    @JsonProperty("underlyingPrice")
+    private double underlyingPrice;
+
+    @JsonProperty("volatility")
+    private double volatility;
+
+    @JsonProperty("interestRate")
+    private double interestRate;
+
+    @JsonProperty("daysToExpiry")
+    private double daysToExpiry;
+
+    @JsonProperty("marketDataVersion")
+    private long marketDataVersion;
+
+    @JsonProperty("result")
+    private OptionPriceResult result;
+
+    public InstrumentPriceResult() {}
+
+    public InstrumentPriceResult(String instrumentCode, String currencyCode, double underlyingPrice, double volatility, double interestRate,
+                                 double daysToExpiry, long marketDataVersion, OptionPriceResult result)
+    {
+        this.instrumentCode = instrumentCode;
+        this.currencyCode = currencyCode;
+        this.underlyingPrice = underlyingPrice;
+        this.volatility = volatility;
+        this.interestRate = interestRate;
+        this.daysToExpiry = daysToExpiry;
+        this.marketDataVersion = marketDataVersion;
+        this.result = result;
+    }
+
+    // Getters and Setters
+    public String getInstrumentCode() { return instrumentCode; }
+    public void setInstrumentCode(String instrumentCode) { this.instrumentCode = instrumentCode; }
+
+    public String getCurrencyCode() { return currencyCode; }
+    public void setCurrencyCode(String currencyCode) { this.currencyCode = currencyCode; }
+
+    public double getUnderlyingPrice() { return underlyingPrice; }
+    public void setUnderlyingPrice(double underlyingPrice) { this.underlyingPrice = underlyingPrice; }
+
+    public double getVolatility() { return volatility; }
+    public void setVolatility(double volatility) { this.volatility = volatility; }
+
+    public double getInterestRate() { return interestRate; }
+    public void setInterestRate(double interestRate) { this.interestRate = interestRate; }
+
+    public double getDaysToExpiry() { return daysToExpiry; }
+    public void setDaysToExpiry(double daysToExpiry) { this.daysToExpiry = daysToExpiry; }
+
+    public long getMarketDataVersion() { return marketDataVersion; }
+    public void setMarketDataVersion(long marketDataVersion) { this.marketDataVersion = marketDataVersion; }
+
+    public OptionPriceResult getResult() { return result; }
+    public void setResult(OptionPriceResult result) { this.result = result; }
+
+    @Override
+    public String toString()
+    {
+        return "InstrumentPriceResult{instrumentCode=" + instrumentCode + ", currencyCode=" + currencyCode + ", underlyingPrice=" + underlyingPrice +
+                ", volatility=" + volatility + ", interestRate=" + interestRate + ", daysToExpiry=" + daysToExpiry +
+                ", marketDataVersion=" + marketDataVersion + ", result=" + result + "}";
+    }
+}
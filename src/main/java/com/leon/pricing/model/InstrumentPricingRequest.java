@@ -0,0 +1,105 @@
+package com.leon.pricing.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+// Prices an option on a listed instrument; the spot, volatility and interest rate come from the service's market data.
+public class InstrumentPricingRequest {
+
+    @NotBlank(message = "Instrument code is required")
+    @JsonProperty("instrumentCode")
+    private String instrumentCode;
+
+    @NotBlank(message = "Currency code is required")
+    @JsonProperty("currencyCode")
+    private String currencyCode;
+
+    @NotNull(message = "Strike price is required")
+    @DecimalMin(value = "0.01", message = "Strike price must be greater than 0")
+    @JsonProperty("strike")
+    private Double strike;
+
+    // Either the expiry date or the days to expiry; the days are used when both are given. From a date, the days are counted
+    // as the day count convention expects: weekdays for a trading-day basis such as 250, calendar days for 360 or 365.
+    @JsonProperty("expiryDate")
+    private LocalDate expiryDate;
+
+    @DecimalMin(value = "0.0", message = "Days to expiry must be non-negative")
+    @JsonProperty("daysToExpiry")
+    private Double daysToExpiry;
+
+    @NotNull(message = "Is call option flag is required")
+    @JsonProperty("isCall")
+    private Boolean isCall;
+
+    @NotNull(message = "Is European option flag is required")
+    @JsonProperty("isEuropean")
+    private Boolean isEuropean;
+
+    @NotNull(message = "Day count convention is required")
+    @DecimalMin(value = "0.01", message = "Day count convention must be greater than 0")
+    @JsonProperty("dayCountConvention")
+    private Double dayCountConvention;
+
+    @JsonProperty("modelType")
+    private String modelType;
+
+    @DecimalMin(value = "0.0", inclusive = false, message = "Target standard error must be greater than 0")
+    @JsonProperty("targetStandardError")
+    private Double targetStandardError;
+
+    public InstrumentPricingRequest() {}
+
+    public InstrumentPricingRequest(String instrumentCode, String currencyCode, Double strike, LocalDate expiryDate, Boolean isCall, Boolean isEuropean, Double dayCountConvention)
+    {
+        this.instrumentCode = instrumentCode;
+        this.currencyCode = currencyCode;
+        this.strike = strike;
+        this.expiryDate = expiryDate;
+        this.isCall = isCall;
+        this.isEuropean = isEuropean;
+        this.dayCountConvention = dayCountConvention;
+    }
+
+    // Getters and Setters
+    public String getInstrumentCode() { return instrumentCode; }
+    public void setInstrumentCode(String instrumentCode) { this.instrumentCode = instrumentCode; }
+
+    public String getCurrencyCode() { return currencyCode; }
+    public void setCurrencyCode(String currencyCode) { this.currencyCode = currencyCode; }
+
+    public Double getStrike() { return strike; }
+    public void setStrike(Double strike) { this.strike = strike; }
+
+    public LocalDate getExpiryDate() { return expiryDate; }
+    public void setExpiryDate(LocalDate expiryDate) { this.expiryDate = expiryDate; }
+
+    public Double getDaysToExpiry() { return daysToExpiry; }
+    public void setDaysToExpiry(Double daysToExpiry) { this.daysToExpiry = daysToExpiry; }
+
+    public Boolean getIsCall() { return isCall; }
+    public void setIsCall(Boolean isCall) { this.isCall = isCall; }
+
+    public Boolean getIsEuropean() { return isEuropean; }
+    public void setIsEuropean(Boolean isEuropean) { this.isEuropean = isEuropean; }
+
+    public Double getDayCountConvention() { return dayCountConvention; }
+    public void setDayCountConvention(Double dayCountConvention) { this.dayCountConvention = dayCountConvention; }
+
+    public String getModelType() { return modelType; }
+    public void setModelType(String modelType) { this.modelType = modelType; }
+
+    public Double getTargetStandardError() { return targetStandardError; }
+    public void setTargetStandardError(Double targetStandardError) { this.targetStandardError = targetStandardError; }
+
+    @Override
+    public String toString()
+    {
+        return "InstrumentPricingRequest{instrumentCode=" + instrumentCode + ", currencyCode=" + currencyCode + ", strike=" + strike +
+                ", expiryDate=" + expiryDate + ", daysToExpiry=" + daysToExpiry + ", isCall=" + isCall + ", isEuropean=" + isEuropean +
+                ", dayCountConvention=" + dayCountConvention + ", modelType=" + modelType + "}";
+    }
+}
@@ -3,7 +3,9 @@ package com.leon.pricing.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -26,10 +28,14 @@ public class InterestRate
     @JsonProperty("lastUpdatedOn")
     private LocalDate lastUpdatedOn;
     
+    @JsonProperty("lastModified")
+    private Instant lastModified;
+    
     public InterestRate()
     {
         this.id = UUID.randomUUID();
         this.lastUpdatedOn = LocalDate.now();
+        this.lastModified = Instant.now().truncatedTo(ChronoUnit.MILLIS);
     }
     
     public InterestRate(String currencyCode, Double interestRatePercentage, String lastUpdatedBy)
@@ -40,6 +46,17 @@ public class InterestRate
         this.lastUpdatedBy = lastUpdatedBy;
     }
     
+    // Copies every field, so an instance published in the market data store can be handed out without sharing it.
+    public InterestRate(InterestRate other)
+    {
+        this.id = other.id;
+        this.currencyCode = other.currencyCode;
+        this.interestRatePercentage = other.interestRatePercentage;
+        this.lastUpdatedBy = other.lastUpdatedBy;
+        this.lastUpdatedOn = other.lastUpdatedOn;
+        this.lastModified = other.lastModified;
+    }
+    
     public UUID getId()
     {
         return id;
@@ -90,6 +107,16 @@ public class InterestRate
         this.lastUpdatedOn = lastUpdatedOn;
     }
     
+    public Instant getLastModified()
+    {
+        return lastModified;
+    }
+    
+    public void setLastModified(Instant lastModified)
+    {
+        this.lastModified = lastModified;
+    }
+    
     @Override
     public boolean equals(Object o)
     {
@@ -0,0 +1,39 @@
+package com.leon.pricing.model;
+
+public enum LatticeMethod
+{
+    // Cox-Ross-Rubinstein: first-order and oscillating in the step count
+    CRR(1),
+    // Leisen-Reimer: nodes centred on the strike via Peizer-Pratt inversion, second-order for European options; needs an odd step count
+    LEISEN_REIMER(2),
+    // CRR with the penultimate step replaced by Black-Scholes values, which removes the oscillation
+    BINOMIAL_BLACK_SCHOLES(1);
+
+    private final int convergenceOrder;
+
+    LatticeMethod(int convergenceOrder)
+    {
+        this.convergenceOrder = convergenceOrder;
+    }
+
+    // The early-exercise boundary cuts across the lattice, so every tree is first-order for American options.
+    public int getConvergenceOrder(boolean isEuropeanOption)
+    {
+        return isEuropeanOption ? convergenceOrder : 1;
+    }
+
+    public static LatticeMethod fromString(String latticeMethod)
+    {
+        if (latticeMethod == null || latticeMethod.trim().isEmpty())
+            throw new IllegalArgumentException("Lattice method cannot be null or empty");
+
+        try
+        {
+            return LatticeMethod.valueOf(latticeMethod.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Unknown lattice method: " + latticeMethod);
+        }
+    }
+}
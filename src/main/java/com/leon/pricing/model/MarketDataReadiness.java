@@ -0,0 +1,11 @@
+package com.leon.pricing.model;
+
+public enum MarketDataReadiness
+{
+    // No market data yet: there was no usable local snapshot and the database has not answered
+    COLD,
+    // Serving the market data from the local snapshot while it is reconciled with the database in the background
+    WARM_STALE,
+    // Reconciled with the database since startup
+    READY
+}
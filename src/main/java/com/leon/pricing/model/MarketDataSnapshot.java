@@ -0,0 +1,113 @@
+package com.leon.pricing.model;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * One consistent, immutable version of all prices, volatilities and interest rates. Hold on to a snapshot for the length
+ * of a pricing run to see the same market throughout, however many updates are published meanwhile. The entries are
+ * shared with later snapshots and must be treated as read-only.
+ */
+public final class MarketDataSnapshot
+{
+    static final MarketDataSnapshot EMPTY = new MarketDataSnapshot(0L, SnapshotMap.empty(), SnapshotMap.empty(), SnapshotMap.empty());
+
+    private final long version;
+    private final SnapshotMap<Price> prices;
+    private final SnapshotMap<Volatility> volatilities;
+    private final SnapshotMap<InterestRate> interestRates;
+
+    private MarketDataSnapshot(long version, SnapshotMap<Price> prices, SnapshotMap<Volatility> volatilities, SnapshotMap<InterestRate> interestRates)
+    {
+        this.version = version;
+        this.prices = prices;
+        this.volatilities = volatilities;
+        this.interestRates = interestRates;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public Price getPrice(String instrumentCode)
+    {
+        return prices.get(instrumentCode);
+    }
+
+    public Volatility getVolatility(String instrumentCode)
+    {
+        return volatilities.get(instrumentCode);
+    }
+
+    public InterestRate getInterestRate(String currencyCode)
+    {
+        return interestRates.get(currencyCode);
+    }
+
+    public List<Price> getPrices()
+    {
+        return prices.values();
+    }
+
+    public List<Volatility> getVolatilities()
+    {
+        return volatilities.values();
+    }
+
+    public List<InterestRate> getInterestRates()
+    {
+        return interestRates.values();
+    }
+
+    public int getPriceCount()
+    {
+        return prices.size();
+    }
+
+    public int getVolatilityCount()
+    {
+        return volatilities.size();
+    }
+
+    public int getInterestRateCount()
+    {
+        return interestRates.size();
+    }
+
+    MarketDataSnapshot withPrices(Collection<Price> updates)
+    {
+        return new MarketDataSnapshot(version + 1, prices.withAll(updates, Price::getInstrumentCode), volatilities, interestRates);
+    }
+
+    MarketDataSnapshot withVolatilities(Collection<Volatility> updates)
+    {
+        return new MarketDataSnapshot(version + 1, prices, volatilities.withAll(updates, Volatility::getInstrumentCode), interestRates);
+    }
+
+    MarketDataSnapshot withInterestRates(Collection<InterestRate> updates)
+    {
+        return new MarketDataSnapshot(version + 1, prices, volatilities, interestRates.withAll(updates, InterestRate::getCurrencyCode));
+    }
+
+    MarketDataSnapshot withPrice(Price price)
+    {
+        return new MarketDataSnapshot(version + 1, prices.with(price.getInstrumentCode(), price), volatilities, interestRates);
+    }
+
+    MarketDataSnapshot withVolatility(Volatility volatility)
+    {
+        return new MarketDataSnapshot(version + 1, prices, volatilities.with(volatility.getInstrumentCode(), volatility), interestRates);
+    }
+
+    MarketDataSnapshot withInterestRate(InterestRate interestRate)
+    {
+        return new MarketDataSnapshot(version + 1, prices, volatilities, interestRates.with(interestRate.getCurrencyCode(), interestRate));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("MarketDataSnapshot{version=%d, prices=%d, volatilities=%d, interestRates=%d}", version, prices.size(), volatilities.size(), interestRates.size());
+    }
+}
@@ -0,0 +1,207 @@
+package com.leon.pricing.model;
+
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Copy-on-write store of market data versions. Readers take the current snapshot with a single volatile read and never
+ * lock; writers build the next snapshot from the current one and publish it with a compare-and-set, retrying if another
+ * writer got there first. Every publish bumps the version.
+ */
+@Component
+public class MarketDataStore
+{
+    private final AtomicReference<MarketDataSnapshot> current = new AtomicReference<>(MarketDataSnapshot.EMPTY);
+
+    public MarketDataStore() {}
+
+    public MarketDataSnapshot snapshot()
+    {
+        return current.get();
+    }
+
+    public long getVersion()
+    {
+        return current.get().getVersion();
+    }
+
+    // Published entries must not be modified afterwards; callers change market data by publishing a new instance. The
+    // services hand copies, never the published entries, to code outside them.
+    public void publishPrice(Price price)
+    {
+        publish(snapshot -> snapshot.withPrice(price));
+    }
+
+    public void publishPrices(Collection<Price> prices)
+    {
+        if (!prices.isEmpty())
+            publish(snapshot -> snapshot.withPrices(prices));
+    }
+
+    // For read-through loads: a value fetched from the database must not overwrite a newer one published meanwhile.
+    public Price publishPriceIfAbsent(Price price)
+    {
+        return publish(snapshot -> snapshot.getPrice(price.getInstrumentCode()) != null ? snapshot : snapshot.withPrice(price))
+                .getPrice(price.getInstrumentCode());
+    }
+
+    public void publishPricesIfAbsent(Collection<Price> prices)
+    {
+        publish(snapshot ->
+        {
+            List<Price> absent = absentEntries(prices, price -> snapshot.getPrice(price.getInstrumentCode()));
+            return absent.isEmpty() ? snapshot : snapshot.withPrices(absent);
+        });
+    }
+
+    // For changes replicated from the database: keeps whichever entry was modified last, so a replayed, out-of-order or
+    // echoed change never rolls an entry back.
+    public void publishPricesIfNewer(Collection<Price> prices)
+    {
+        publish(snapshot ->
+        {
+            List<Price> newer = newerEntries(prices, price -> snapshot.getPrice(price.getInstrumentCode()), Price::getLastModified, true);
+            return newer.isEmpty() ? snapshot : snapshot.withPrices(newer);
+        });
+    }
+
+    // For a full reload from the database: as publishPricesIfNewer, except that a document without a timestamp may be an
+    // old copy that predates timestamps, so it never replaces an entry that has one.
+    public void reconcilePrices(Collection<Price> prices)
+    {
+        publish(snapshot ->
+        {
+            List<Price> newer = newerEntries(prices, price -> snapshot.getPrice(price.getInstrumentCode()), Price::getLastModified, false);
+            return newer.isEmpty() ? snapshot : snapshot.withPrices(newer);
+        });
+    }
+
+    public void publishVolatility(Volatility volatility)
+    {
+        publish(snapshot -> snapshot.withVolatility(volatility));
+    }
+
+    public void publishVolatilities(Collection<Volatility> volatilities)
+    {
+        if (!volatilities.isEmpty())
+            publish(snapshot -> snapshot.withVolatilities(volatilities));
+    }
+
+    public Volatility publishVolatilityIfAbsent(Volatility volatility)
+    {
+        return publish(snapshot -> snapshot.getVolatility(volatility.getInstrumentCode()) != null ? snapshot : snapshot.withVolatility(volatility))
+                .getVolatility(volatility.getInstrumentCode());
+    }
+
+    public void publishVolatilitiesIfAbsent(Collection<Volatility> volatilities)
+    {
+        publish(snapshot ->
+        {
+            List<Volatility> absent = absentEntries(volatilities, volatility -> snapshot.getVolatility(volatility.getInstrumentCode()));
+            return absent.isEmpty() ? snapshot : snapshot.withVolatilities(absent);
+        });
+    }
+
+    public void publishVolatilitiesIfNewer(Collection<Volatility> volatilities)
+    {
+        publish(snapshot ->
+        {
+            List<Volatility> newer = newerEntries(volatilities, volatility -> snapshot.getVolatility(volatility.getInstrumentCode()), Volatility::getLastModified, true);
+            return newer.isEmpty() ? snapshot : snapshot.withVolatilities(newer);
+        });
+    }
+
+    public void reconcileVolatilities(Collection<Volatility> volatilities)
+    {
+        publish(snapshot ->
+        {
+            List<Volatility> newer = newerEntries(volatilities, volatility -> snapshot.getVolatility(volatility.getInstrumentCode()), Volatility::getLastModified, false);
+            return newer.isEmpty() ? snapshot : snapshot.withVolatilities(newer);
+        });
+    }
+
+    public void publishInterestRate(InterestRate interestRate)
+    {
+        publish(snapshot -> snapshot.withInterestRate(interestRate));
+    }
+
+    public void publishInterestRates(Collection<InterestRate> interestRates)
+    {
+        if (!interestRates.isEmpty())
+            publish(snapshot -> snapshot.withInterestRates(interestRates));
+    }
+
+    public InterestRate publishInterestRateIfAbsent(InterestRate interestRate)
+    {
+        return publish(snapshot -> snapshot.getInterestRate(interestRate.getCurrencyCode()) != null ? snapshot : snapshot.withInterestRate(interestRate))
+                .getInterestRate(interestRate.getCurrencyCode());
+    }
+
+    public void publishInterestRatesIfAbsent(Collection<InterestRate> interestRates)
+    {
+        publish(snapshot ->
+        {
+            List<InterestRate> absent = absentEntries(interestRates, rate -> snapshot.getInterestRate(rate.getCurrencyCode()));
+            return absent.isEmpty() ? snapshot : snapshot.withInterestRates(absent);
+        });
+    }
+
+    public void publishInterestRatesIfNewer(Collection<InterestRate> interestRates)
+    {
+        publish(snapshot ->
+        {
+            List<InterestRate> newer = newerEntries(interestRates, rate -> snapshot.getInterestRate(rate.getCurrencyCode()), InterestRate::getLastModified, true);
+            return newer.isEmpty() ? snapshot : snapshot.withInterestRates(newer);
+        });
+    }
+
+    public void reconcileInterestRates(Collection<InterestRate> interestRates)
+    {
+        publish(snapshot ->
+        {
+            List<InterestRate> newer = newerEntries(interestRates, rate -> snapshot.getInterestRate(rate.getCurrencyCode()), InterestRate::getLastModified, false);
+            return newer.isEmpty() ? snapshot : snapshot.withInterestRates(newer);
+        });
+    }
+
+    private static <T> List<T> absentEntries(Collection<T> incoming, Function<T, T> publishedEntry)
+    {
+        List<T> absent = new ArrayList<>();
+        for (T entry : incoming)
+        {
+            if (publishedEntry.apply(entry) == null)
+                absent.add(entry);
+        }
+        return absent;
+    }
+
+    // An incoming change without a timestamp was just written by something that does not maintain one, so it is taken as the
+    // latest; a reloaded entry without one is taken as older than any published entry that has one.
+    private static <T> List<T> newerEntries(Collection<T> incoming, Function<T, T> publishedEntry, Function<T, Instant> lastModified, boolean unstampedIsLatest)
+    {
+        List<T> newer = new ArrayList<>();
+        for (T entry : incoming)
+        {
+            T published = publishedEntry.apply(entry);
+            Instant incomingModified = lastModified.apply(entry);
+            Instant publishedModified = published == null ? null : lastModified.apply(published);
+            if (published == null || publishedModified == null)
+                newer.add(entry);
+            else if (incomingModified == null ? unstampedIsLatest : incomingModified.isAfter(publishedModified))
+                newer.add(entry);
+        }
+        return newer;
+    }
+
+    // The update function may run more than once under contention, so it must not have side effects.
+    private MarketDataSnapshot publish(UnaryOperator<MarketDataSnapshot> update)
+    {
+        return current.updateAndGet(update);
+    }
+}
@@ -0,0 +1,142 @@
+package com.leon.pricing.model;
+
+import static java.lang.Math.*;
+
+/**
+ * Accumulates the discounted payoff and all five Greeks of a European option from terminal GBM draws.
+ * Delta, vega, rho and theta use pathwise derivatives; gamma uses the mixed pathwise/likelihood-ratio estimator,
+ * so every value comes from the same paths and carries its own standard error.
+ * Each sample is an antithetic pair (Z, -Z), and the price uses the discounted terminal spot as a control
+ * variate weighted by the Black-Scholes delta, whose expectation S is known in closed form.
+ */
+public class MonteCarloEstimator
+{
+    static final int PRICE = 0;
+    static final int DELTA = 1;
+    static final int GAMMA = 2;
+    static final int VEGA = 3;
+    static final int RHO = 4;
+    static final int THETA = 5;
+    static final int ESTIMATOR_COUNT = 6;
+
+    private final double underlyingPrice;
+    private final double strike;
+    private final double volatility;
+    private final double interestRate;
+    private final double timeToExpiryInYears;
+    private final boolean isCallOption;
+    private final double drift;
+    private final double diffusion;
+    private final double discountFactor;
+    private final double controlCoefficient;
+
+    private final double[] sums = new double[ESTIMATOR_COUNT];
+    private final double[] sumsOfSquares = new double[ESTIMATOR_COUNT];
+    private final double[] values = new double[ESTIMATOR_COUNT];
+    private final double[] antitheticValues = new double[ESTIMATOR_COUNT];
+    private long count;
+    private long pathCount;
+
+    public MonteCarloEstimator(PricingContext context)
+    {
+        this.underlyingPrice = context.getUnderlyingPrice();
+        this.strike = context.getStrike();
+        this.volatility = context.getVolatility();
+        this.interestRate = context.getInterestRate();
+        this.timeToExpiryInYears = context.getTimeToExpiryInYears();
+        this.isCallOption = context.isCallOption();
+        this.drift = (interestRate - 0.5 * volatility * volatility) * timeToExpiryInYears;
+        this.diffusion = volatility * sqrt(timeToExpiryInYears);
+        this.discountFactor = exp(-interestRate * timeToExpiryInYears);
+
+        // Black-Scholes delta is the optimal hedge ratio for the payoff against the stock, so it is a near-optimal control weight.
+        double adjustedNormalizedDrift = (log(underlyingPrice / strike) + (interestRate + 0.5 * volatility * volatility) * timeToExpiryInYears) / diffusion;
+        double callDelta = NormalDistribution.cumulativeNormalDistribution(adjustedNormalizedDrift);
+        this.controlCoefficient = isCallOption ? callDelta : callDelta - 1.0;
+    }
+
+    public void addAntitheticPair(double randomShock)
+    {
+        evaluatePath(randomShock, values);
+        evaluatePath(-randomShock, antitheticValues);
+        for (int i = 0; i < ESTIMATOR_COUNT; i++)
+            values[i] = 0.5 * (values[i] + antitheticValues[i]);
+
+        accumulate(values);
+        pathCount += 2;
+    }
+
+    // Writes the per-path estimates for one standard normal shock into the supplied array.
+    void evaluatePath(double randomShock, double[] estimates)
+    {
+        double futurePrice = underlyingPrice * exp(drift + diffusion * randomShock);
+        double payoff = isCallOption ? max(futurePrice - strike, 0.0) : max(strike - futurePrice, 0.0);
+        double discountedPayoff = discountFactor * payoff;
+        // Derivative of the payoff with respect to the terminal price: +1/-1 in the money, 0 otherwise.
+        double payoffSlope = isCallOption ? (futurePrice > strike ? 1.0 : 0.0) : (futurePrice < strike ? -1.0 : 0.0);
+        double discountedSlope = discountFactor * payoffSlope;
+
+        estimates[PRICE] = discountedPayoff - controlCoefficient * (discountFactor * futurePrice - underlyingPrice);
+        estimates[DELTA] = discountedSlope * futurePrice / underlyingPrice;
+        estimates[GAMMA] = discountedSlope * futurePrice / (underlyingPrice * underlyingPrice) * (randomShock / diffusion - 1.0);
+        estimates[VEGA] = discountedSlope * futurePrice * (sqrt(timeToExpiryInYears) * randomShock - volatility * timeToExpiryInYears);
+        estimates[RHO] = timeToExpiryInYears * (discountedSlope * futurePrice - discountedPayoff);
+        estimates[THETA] = discountedSlope * futurePrice * ((interestRate - 0.5 * volatility * volatility) + volatility * randomShock / (2 * sqrt(timeToExpiryInYears)))
+                - interestRate * discountedPayoff;
+    }
+
+    void accumulate(double[] estimates)
+    {
+        for (int i = 0; i < ESTIMATOR_COUNT; i++)
+        {
+            sums[i] += estimates[i];
+            sumsOfSquares[i] += estimates[i] * estimates[i];
+        }
+        count++;
+    }
+
+    public void merge(MonteCarloEstimator other)
+    {
+        for (int i = 0; i < ESTIMATOR_COUNT; i++)
+        {
+            sums[i] += other.sums[i];
+            sumsOfSquares[i] += other.sumsOfSquares[i];
+        }
+        count += other.count;
+        pathCount += other.pathCount;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getPathCount()
+    {
+        return pathCount;
+    }
+
+    public double getMean(int estimator)
+    {
+        return sums[estimator] / count;
+    }
+
+    public double getStandardError(int estimator)
+    {
+        if (count < 2)
+            return Double.NaN;
+
+        double mean = getMean(estimator);
+        double variance = max(sumsOfSquares[estimator] / count - mean * mean, 0.0) * count / (count - 1);
+        return sqrt(variance / count);
+    }
+
+    public OptionPriceResult toResult()
+    {
+        OptionPriceResult result = new OptionPriceResult(getMean(DELTA), getMean(GAMMA), getMean(RHO), getMean(THETA), getMean(VEGA), getMean(PRICE));
+        result.setStandardErrors(new StandardErrors(getStandardError(PRICE), getStandardError(DELTA), getStandardError(GAMMA),
+                getStandardError(VEGA), getStandardError(RHO), getStandardError(THETA)));
+        result.setPathCount(pathCount);
+        return result;
+    }
+}
@@ -2,15 +2,8 @@ package com.leon.pricing.model;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
+import java.util.SplittableRandom;
 import static java.lang.Math.*;
 
 @Component
@@ -18,15 +11,14 @@ public class MonteCarloOptionModel implements OptionModel
 {
     private static final Logger logger = LoggerFactory.getLogger(MonteCarloOptionModel.class);
     private static final int DEFAULT_SIMULATIONS = 100000;
-    private static final Random random = new Random();
+    private static final int MAX_ADAPTIVE_SIMULATIONS = 10_000_000;
+    private static final int PATHS_PER_CHUNK = 4096;
+    private static final int CHUNKS_PER_ROUND = 8;
     
-    private boolean isCallOption = true;
-    private boolean isEuropeanOption = true;
-    private int numberOfSimulations = DEFAULT_SIMULATIONS;
+    private volatile int numberOfSimulations = DEFAULT_SIMULATIONS;
     
     @org.springframework.beans.factory.annotation.Autowired
-    @Qualifier("rangeCalculationExecutor")
-    private Executor rangeCalculationExecutor;
+    private RangeCalculationEngine rangeCalculationEngine;
     
     public MonteCarloOptionModel() {}
     
@@ -36,51 +28,24 @@ public class MonteCarloOptionModel implements OptionModel
     }
     
     @Override
-    public void setToCall(boolean isCallOption)
+    public OptionPriceResult calculate(PricingContext context, boolean logCalculation)
     {
-        this.isCallOption = isCallOption;
-    }
-
-    @Override
-    public void setToEuropean(boolean isEuropeanOption)
-    {
-        this.isEuropeanOption = isEuropeanOption;
-    }
-
-    @Override
-    public OptionPriceResult calculate(Map<String, Double> input, boolean logCalculation)
-    {
-        OptionPriceResult optionResult = new OptionPriceResult();
         try
         {
-            double volatility = input.get(VOLATILITY);
-            double interestRate = input.get(INTEREST_RATE);
-            double strike = input.get(STRIKE);
-            double underlyingPrice = input.get(UNDERLYING_PRICE);
-            double timeToExpiryInYears = input.get(TIME_TO_EXPIRY);
+            double volatility = context.getVolatility();
+            double interestRate = context.getInterestRate();
+            double strike = context.getStrike();
+            double underlyingPrice = context.getUnderlyingPrice();
+            double timeToExpiryInYears = context.getTimeToExpiryInYears();
+            // With a target standard error the configured count is ignored and the simulation stops as soon as the target is met.
+            int numberOfSimulations = context.hasTargetStandardError() ? MAX_ADAPTIVE_SIMULATIONS : this.numberOfSimulations;
 
             if (logCalculation)
-                logger.info("Calculating option price using Monte Carlo simulation with {} simulations - Volatility: {}, Interest Rate: {}, Strike: {}, Underlying Price: {}, Time to Expiry (years): {}",
-                         numberOfSimulations, volatility, interestRate, strike, underlyingPrice, timeToExpiryInYears);
+                logger.info("Calculating option price using Monte Carlo simulation with up to {} simulations and target standard error {} - Volatility: {}, Interest Rate: {}, Strike: {}, Underlying Price: {}, Time to Expiry (years): {}",
+                         numberOfSimulations, context.getTargetStandardError(), volatility, interestRate, strike, underlyingPrice, timeToExpiryInYears);
 
-            // Calculate option price using Monte Carlo
-            double optionPrice = calculateMonteCarloPrice(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            optionResult.setPrice(optionPrice);
-            
-            // Calculate Greeks using finite difference method
-            double delta = calculateDelta(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            double gamma = calculateGamma(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            double vega = calculateVega(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            double rho = calculateRho(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            double theta = calculateTheta(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-            
-            optionResult.setDelta(delta);
-            optionResult.setGamma(gamma);
-            optionResult.setVega(vega);
-            optionResult.setRho(rho);
-            optionResult.setTheta(theta);
-            
-            return optionResult;
+            // Price and all Greeks come from a single set of simulated paths
+            return simulate(context, numberOfSimulations);
         }
         catch (Exception e)
         {
@@ -90,50 +55,11 @@ public class MonteCarloOptionModel implements OptionModel
     }
     
     @Override
-    public void calculateRange(OptionPriceResultSet optionPriceResultSet, Map<String, Double> input, String rangeKey, double startValue, double endValue, double increment, boolean logCalculations)
+    public void calculateRange(OptionPriceResultSet optionPriceResultSet, PricingContext context, RangeKey rangeKey, double startValue, double endValue, double increment, boolean logCalculations)
     {
         try
         {
-            int iterations = (int) Math.ceil((endValue - startValue) / increment) + 1;
-            List<CompletableFuture<OptionPriceResult>> futures = new ArrayList<>();
-            
-            for (int i = 0; i < iterations; i++)
-            {
-                double value = startValue + (i * increment);
-                if (value > endValue) break;
-                
-                final double currentValue = value;
-                CompletableFuture<OptionPriceResult> future = CompletableFuture.supplyAsync(() -> 
-                {
-                    Map<String, Double> inputCopy = new HashMap<>(input);
-                    inputCopy.put(rangeKey, currentValue);
-                    OptionPriceResult result = calculate(inputCopy, logCalculations);
-                    result.setRangeVariable(currentValue);
-                    return result;
-                }, rangeCalculationExecutor);
-                
-                futures.add(future);
-            }
-            
-            CompletableFuture<Void> allFutures = CompletableFuture.allOf(
-                futures.toArray(new CompletableFuture[0])
-            );
-            
-            allFutures.thenRun(() -> 
-            {
-                for (CompletableFuture<OptionPriceResult> future : futures)
-                {
-                    try
-                    {
-                        OptionPriceResult result = future.get();
-                        optionPriceResultSet.merge(result);
-                    }
-                    catch (Exception e)
-                    {
-                        logger.error("Error getting future result: {}", e.getMessage());
-                    }
-                }
-            }).join();
+            rangeCalculationEngine.calculateRange(optionPriceResultSet, context, rangeKey, startValue, endValue, increment, this, logCalculations);
         }
         catch (Exception e)
         {
@@ -142,93 +68,86 @@ public class MonteCarloOptionModel implements OptionModel
         }
     }
 
-    private double calculateMonteCarloPrice(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+    private OptionPriceResult simulate(PricingContext context, int numberOfSimulations)
     {
-        double sumPayoffs = 0.0;
-        double dt = timeToExpiryInYears;
-        
-        for (int i = 0; i < numberOfSimulations; i++)
+        // Paths are cut into fixed-size chunks, each with its own stream split in order from a seed derived from the inputs.
+        // The chunking and the reduction order never depend on the thread count, so the same request always gives the same numbers.
+        int numberOfChunks = (numberOfSimulations + PATHS_PER_CHUNK - 1) / PATHS_PER_CHUNK;
+        int chunksPerRound = context.hasTargetStandardError() ? CHUNKS_PER_ROUND : numberOfChunks;
+        SplittableRandom rootRandom = new SplittableRandom(deriveSeed(context, numberOfSimulations));
+        MonteCarloEstimator estimator = new MonteCarloEstimator(context);
+
+        for (int firstChunk = 0; firstChunk < numberOfChunks; firstChunk += chunksPerRound)
         {
-            // Generate random price path using geometric Brownian motion
-            double randomShock = random.nextGaussian();
-            double futurePrice = underlyingPrice * exp((interestRate - 0.5 * volatility * volatility) * dt + volatility * sqrt(dt) * randomShock);
-            
-            // Calculate payoff
-            double payoff = calculatePayoff(futurePrice, strike);
-            sumPayoffs += payoff;
+            int roundChunks = Math.min(chunksPerRound, numberOfChunks - firstChunk);
+            SplittableRandom[] chunkRandoms = new SplittableRandom[roundChunks];
+            for (int chunk = 0; chunk < roundChunks; chunk++)
+                chunkRandoms[chunk] = rootRandom.split();
+
+            // The chunks run on the execution backend with the rest of the service's pricing work, never on the common pool.
+            int roundStart = firstChunk;
+            MonteCarloEstimator[] partials = new MonteCarloEstimator[roundChunks];
+            rangeCalculationEngine.invokeAll(roundChunks, chunk ->
+                    partials[chunk] = simulateChunk(context, chunkRandoms[chunk], Math.min(PATHS_PER_CHUNK, numberOfSimulations - (roundStart + chunk) * PATHS_PER_CHUNK)));
+
+            for (MonteCarloEstimator partial : partials)
+                estimator.merge(partial);
+
+            if (context.hasTargetStandardError() && estimator.getStandardError(MonteCarloEstimator.PRICE) <= context.getTargetStandardError())
+                break;
         }
         
-        // Average payoff discounted to present value
-        double averagePayoff = sumPayoffs / numberOfSimulations;
-        return averagePayoff * exp(-interestRate * timeToExpiryInYears);
+        return estimator.toResult();
     }
-    
-    private double calculatePayoff(double futurePrice, double strike)
+
+    private MonteCarloEstimator simulateChunk(PricingContext context, SplittableRandom chunkRandom, int numberOfPaths)
     {
-        if (isCallOption)
-        {
-            return max(futurePrice - strike, 0.0);
-        }
-        else
+        MonteCarloEstimator estimator = new MonteCarloEstimator(context);
+        
+        for (int i = 0; i < (numberOfPaths + 1) / 2; i++)
         {
-            return max(strike - futurePrice, 0.0);
+            // Generate an antithetic pair of terminal prices using geometric Brownian motion
+            estimator.addAntitheticPair(chunkRandom.nextGaussian());
         }
+        
+        return estimator;
     }
-    
-    private double calculateDelta(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
-    {
-        double epsilon = underlyingPrice * 0.01; // 1% perturbation
-        double priceUp = calculateMonteCarloPrice(underlyingPrice + epsilon, strike, volatility, interestRate, timeToExpiryInYears);
-        double priceDown = calculateMonteCarloPrice(underlyingPrice - epsilon, strike, volatility, interestRate, timeToExpiryInYears);
-        return (priceUp - priceDown) / (2 * epsilon);
-    }
-    
-    private double calculateGamma(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
-    {
-        double epsilon = underlyingPrice * 0.01;
-        double priceUp = calculateMonteCarloPrice(underlyingPrice + epsilon, strike, volatility, interestRate, timeToExpiryInYears);
-        double priceDown = calculateMonteCarloPrice(underlyingPrice - epsilon, strike, volatility, interestRate, timeToExpiryInYears);
-        double priceCenter = calculateMonteCarloPrice(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears);
-        return (priceUp - 2 * priceCenter + priceDown) / (epsilon * epsilon);
-    }
-    
-    private double calculateVega(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+
+    private long deriveSeed(PricingContext context, int numberOfSimulations)
     {
-        double epsilon = volatility * 0.01;
-        double priceUp = calculateMonteCarloPrice(underlyingPrice, strike, volatility + epsilon, interestRate, timeToExpiryInYears);
-        double priceDown = calculateMonteCarloPrice(underlyingPrice, strike, volatility - epsilon, interestRate, timeToExpiryInYears);
-        return (priceUp - priceDown) / (2 * epsilon);
+        long seed = 0x9E3779B97F4A7C15L;
+        seed = 31 * seed + Double.doubleToLongBits(context.getUnderlyingPrice());
+        seed = 31 * seed + Double.doubleToLongBits(context.getStrike());
+        seed = 31 * seed + Double.doubleToLongBits(context.getVolatility());
+        seed = 31 * seed + Double.doubleToLongBits(context.getInterestRate());
+        seed = 31 * seed + Double.doubleToLongBits(context.getTimeToExpiryInYears());
+        seed = 31 * seed + (context.isCallOption() ? 1 : 0);
+        seed = 31 * seed + Double.doubleToLongBits(context.getTargetStandardError());
+        return 31 * seed + numberOfSimulations;
     }
-    
-    private double calculateRho(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+
+    // An adaptive simulation is charged the configured count up front; how far it really ran is only known from its path count.
+    @Override
+    public double estimateWork(PricingContext context)
     {
-        double epsilon = interestRate * 0.01;
-        double priceUp = calculateMonteCarloPrice(underlyingPrice, strike, volatility, interestRate + epsilon, timeToExpiryInYears);
-        double priceDown = calculateMonteCarloPrice(underlyingPrice, strike, volatility, interestRate - epsilon, timeToExpiryInYears);
-        return (priceUp - priceDown) / (2 * epsilon);
+        return numberOfSimulations;
     }
-    
-    private double calculateTheta(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears)
+
+    @Override
+    public double unestimatedWork(PricingContext context, long points, long pathCount)
     {
-        double epsilon = timeToExpiryInYears * 0.01;
-        double priceUp = calculateMonteCarloPrice(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears + epsilon);
-        double priceDown = calculateMonteCarloPrice(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears - epsilon);
-        return (priceUp - priceDown) / (2 * epsilon);
+        return context.hasTargetStandardError() ? pathCount - (points * estimateWork(context)) : 0.0;
     }
 
     @Override
     public String getModelDetails()
     {
-        return String.format("Monte Carlo Option Model: %s %s options with %d simulations", 
-                isEuropeanOption ? "European" : "American", 
-                isCallOption ? "Call" : "Put", 
-                numberOfSimulations);
+        return String.format("Monte Carlo Option Model: European calls and puts with %d simulations", numberOfSimulations);
     }
 
     @Override
     public String toString()
     {
-        return String.format("MonteCarloOptionModel{isCall=%b, isEuropean=%b, simulations=%d}", 
-                isCallOption, isEuropeanOption, numberOfSimulations);
+        return String.format("MonteCarloOptionModel{simulations=%d}", numberOfSimulations);
     }
 }
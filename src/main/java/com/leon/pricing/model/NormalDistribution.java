@@ -0,0 +1,68 @@
+package com.leon.pricing.model;
+
+public final class NormalDistribution
+{
+    // Coefficients for the Abramowitz and Stegun approximation
+    static final double COEFFICIENT_1 = 0.254829592;
+    static final double COEFFICIENT_2 = -0.284496736;
+    static final double COEFFICIENT_3 = 1.421413741;
+    static final double COEFFICIENT_4 = -1.453152027;
+    static final double COEFFICIENT_5 = 1.061405429;
+    static final double SCALE_FACTOR = 0.3275911;
+    static final double INVERSE_SQUARE_ROOT_OF_TWO = 1.0 / Math.sqrt(2.0);
+    static final double INVERSE_SQUARE_ROOT_OF_TWO_PI = 1.0 / Math.sqrt(2 * Math.PI);
+
+    // Coefficients for Acklam's rational approximation of the inverse normal CDF
+    private static final double[] INVERSE_A = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+    private static final double[] INVERSE_B = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+    private static final double[] INVERSE_C = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+    private static final double[] INVERSE_D = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
+    private static final double INVERSE_LOWER_BREAK = 0.02425;
+
+    private NormalDistribution() {}
+
+    public static double cumulativeNormalDistribution(double input)
+    {
+        // Determine the sign of the input
+        int inputSign = input < 0 ? -1 : 1;
+
+        // Normalize input for approximation
+        double normalizedInput = Math.abs(input) * INVERSE_SQUARE_ROOT_OF_TWO;
+
+        // Polynomial approximation term
+        double t = 1.0 / (1.0 + SCALE_FACTOR * normalizedInput);
+
+        // Approximate the error function
+        double errorFunctionApprox = 1.0 - ((((COEFFICIENT_5 * t + COEFFICIENT_4) * t + COEFFICIENT_3) * t + COEFFICIENT_2) * t + COEFFICIENT_1) * t * Math.exp(-normalizedInput * normalizedInput);
+
+        // Return the cumulative probability
+        return 0.5 * (1.0 + inputSign * errorFunctionApprox);
+    }
+
+    public static double standardNormalProbabilityDensityFunction(double x)
+    {
+        return INVERSE_SQUARE_ROOT_OF_TWO_PI * Math.exp(-0.5 * x * x);
+    }
+
+    // Acklam's approximation (relative error below 1.2e-9) for mapping uniform quasi-random points to normal shocks.
+    public static double inverseCumulativeNormalDistribution(double probability)
+    {
+        if (probability <= 0.0 || probability >= 1.0)
+            throw new IllegalArgumentException("Probability must be strictly between 0 and 1: " + probability);
+
+        if (probability < INVERSE_LOWER_BREAK)
+        {
+            double q = Math.sqrt(-2 * Math.log(probability));
+            return (((((INVERSE_C[0] * q + INVERSE_C[1]) * q + INVERSE_C[2]) * q + INVERSE_C[3]) * q + INVERSE_C[4]) * q + INVERSE_C[5]) /
+                    ((((INVERSE_D[0] * q + INVERSE_D[1]) * q + INVERSE_D[2]) * q + INVERSE_D[3]) * q + 1);
+        }
+
+        if (probability > 1 - INVERSE_LOWER_BREAK)
+            return -inverseCumulativeNormalDistribution(1 - probability);
+
+        double q = probability - 0.5;
+        double r = q * q;
+        return (((((INVERSE_A[0] * r + INVERSE_A[1]) * r + INVERSE_A[2]) * r + INVERSE_A[3]) * r + INVERSE_A[4]) * r + INVERSE_A[5]) * q /
+                (((((INVERSE_B[0] * r + INVERSE_B[1]) * r + INVERSE_B[2]) * r + INVERSE_B[3]) * r + INVERSE_B[4]) * r + 1);
+    }
+}
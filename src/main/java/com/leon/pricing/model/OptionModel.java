@@ -1,18 +1,57 @@
 package com.leon.pricing.model;
 
-import java.util.Map;
-
 public interface OptionModel
 {
-    String STRIKE = "STRIKE";
-    String VOLATILITY = "VOLATILITY";
-    String UNDERLYING_PRICE = "UNDERLYING_PRICE";
-    String TIME_TO_EXPIRY = "TIME_TO_EXPIRY";
-    String INTEREST_RATE = "INTEREST_RATE";
-
-    void setToCall(boolean isCallOption);
-    void setToEuropean(boolean isEuropeanOption);
-    OptionPriceResult calculate(Map<String, Double> input, boolean logCalculation);
-    void calculateRange(OptionPriceResultSet optionPriceResultSet, Map<String, Double> input, String rangeKey, double startValue, double endValue, double increment, boolean logCalculation);
+    OptionPriceResult calculate(PricingContext context, boolean logCalculation);
+
+    default OptionPriceResult[] calculateAll(PricingContext[] contexts, boolean logCalculation)
+    {
+        OptionPriceResult[] results = new OptionPriceResult[contexts.length];
+        for (int i = 0; i < contexts.length; i++)
+            results[i] = calculate(contexts[i], logCalculation);
+        return results;
+    }
+
+    // Prices whole rows [fromRow, toRow) of a grid. Models that can share work along a row or column override this.
+    default void calculateGridTile(OptionPriceGrid grid, PricingContext context, int fromRow, int toRow, boolean logCalculation)
+    {
+        int rowLength = grid.getRowLength();
+        RangeKey rowKey = grid.getRowKey();
+        PricingContext[] contexts = new PricingContext[(toRow - fromRow) * rowLength];
+        for (int row = fromRow; row < toRow; row++)
+        {
+            PricingContext rowContext = grid.rowContext(context, row);
+            for (int column = 0; column < rowLength; column++)
+                contexts[((row - fromRow) * rowLength) + column] = rowContext.withValue(rowKey, grid.getRowValue(column));
+        }
+
+        OptionPriceResult[] results = calculateAll(contexts, logCalculation);
+        for (int i = 0; i < results.length; i++)
+            grid.set((fromRow * rowLength) + i, results[i]);
+    }
+
+    // Relative work of pricing one point in the model's own units (lattice nodes, simulated paths, grid cells); admission
+    // control turns it into CPU time with a per-model calibration, so it only needs to scale with the model's settings.
+    default double estimateWork(PricingContext context)
+    {
+        return 1.0;
+    }
+
+    // Work of a whole range or grid row of points from startValue to endValue along one key. Models that share work along a
+    // key, as calculateRange or calculateGridTile do, override this so the range is not charged as if every point were priced on its own.
+    default double estimateRangeWork(PricingContext context, RangeKey rangeKey, double startValue, double endValue, long points)
+    {
+        return points * estimateWork(context);
+    }
+
+    // Work the points priced so far did beyond their estimate, given the paths their results report: negative when they did
+    // less. Only models whose work is decided while they run, such as a simulation stopping at a target standard error,
+    // override this, so admission control can refund or charge the difference once the request has finished.
+    default double unestimatedWork(PricingContext context, long points, long pathCount)
+    {
+        return 0.0;
+    }
+
+    void calculateRange(OptionPriceResultSet optionPriceResultSet, PricingContext context, RangeKey rangeKey, double startValue, double endValue, double increment, boolean logCalculation);
     String getModelDetails();
 }
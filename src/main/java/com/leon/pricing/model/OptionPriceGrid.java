@@ -0,0 +1,234 @@
+package com.leon.pricing.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dense results over the cartesian product of several axes. Each measure is one flat array in row-major order: the last axis
+ * varies fastest, so a row is every value of the last axis with the other axes held fixed. A point that could not be priced
+ * is left as NaN and counted in failedCount.
+ */
+public class OptionPriceGrid
+{
+    private final RangeKey[] keys;
+
+    @JsonProperty("axisValues")
+    private final double[][] axisValues;
+
+    @JsonProperty("shape")
+    private final int[] shape;
+
+    @JsonProperty("prices")
+    private final double[] prices;
+
+    @JsonProperty("deltas")
+    private final double[] deltas;
+
+    @JsonProperty("gammas")
+    private final double[] gammas;
+
+    @JsonProperty("vegas")
+    private final double[] vegas;
+
+    @JsonProperty("thetas")
+    private final double[] thetas;
+
+    @JsonProperty("rhos")
+    private final double[] rhos;
+
+    @JsonProperty("failedCount")
+    private int failedCount;
+
+    private final int rowLength;
+    private final int rowCount;
+    // Tiles are set concurrently; only simulation results add to it.
+    private final LongAdder pathCount = new LongAdder();
+
+    public OptionPriceGrid(RangeKey[] keys, double[][] axisValues)
+    {
+        if (keys.length == 0 || keys.length != axisValues.length)
+            throw new IllegalArgumentException("A grid needs one set of values for each of at least one axis");
+
+        this.keys = keys.clone();
+        this.axisValues = axisValues;
+        this.shape = new int[keys.length];
+
+        long size = 1;
+        for (int axis = 0; axis < keys.length; axis++)
+        {
+            shape[axis] = axisValues[axis].length;
+            size *= shape[axis];
+        }
+
+        if (size == 0 || size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid size must be between 1 and " + Integer.MAX_VALUE + " points");
+
+        this.rowLength = shape[keys.length - 1];
+        this.rowCount = (int) size / rowLength;
+        this.prices = new double[(int) size];
+        this.deltas = new double[(int) size];
+        this.gammas = new double[(int) size];
+        this.vegas = new double[(int) size];
+        this.thetas = new double[(int) size];
+        this.rhos = new double[(int) size];
+    }
+
+    @JsonProperty("axisKeys")
+    public List<String> getAxisKeys()
+    {
+        List<String> names = new ArrayList<>(keys.length);
+        for (RangeKey key : keys)
+            names.add(key.name());
+        return names;
+    }
+
+    @JsonProperty("totalCount")
+    public int size()
+    {
+        return prices.length;
+    }
+
+    @JsonIgnore
+    public int getRowLength()
+    {
+        return rowLength;
+    }
+
+    @JsonIgnore
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    // The key of the last axis, which varies along each row.
+    @JsonIgnore
+    public RangeKey getRowKey()
+    {
+        return keys[keys.length - 1];
+    }
+
+    public double getRowValue(int column)
+    {
+        return axisValues[keys.length - 1][column];
+    }
+
+    public boolean hasAxis(RangeKey key)
+    {
+        for (RangeKey axisKey : keys)
+        {
+            if (axisKey == key)
+                return true;
+        }
+        return false;
+    }
+
+    // The base context with every axis except the last set to this row's coordinates.
+    public PricingContext rowContext(PricingContext context, int row)
+    {
+        PricingContext rowContext = context;
+        int remainder = row;
+        for (int axis = keys.length - 2; axis >= 0; axis--)
+        {
+            rowContext = rowContext.withValue(keys[axis], axisValues[axis][remainder % shape[axis]]);
+            remainder /= shape[axis];
+        }
+        return rowContext;
+    }
+
+    public void set(int index, OptionPriceResult result)
+    {
+        prices[index] = result.getPrice();
+        deltas[index] = result.getDelta();
+        gammas[index] = result.getGamma();
+        vegas[index] = result.getVega();
+        thetas[index] = result.getTheta();
+        rhos[index] = result.getRho();
+        if (result.getPathCount() != null)
+            pathCount.add(result.getPathCount());
+    }
+
+    // Copies a whole batch of consecutive points without materialising a result object per point.
+    void set(int offset, BlackScholesBatch batch)
+    {
+        int length = batch.size();
+        System.arraycopy(batch.prices, 0, prices, offset, length);
+        System.arraycopy(batch.deltas, 0, deltas, offset, length);
+        System.arraycopy(batch.gammas, 0, gammas, offset, length);
+        System.arraycopy(batch.vegas, 0, vegas, offset, length);
+        System.arraycopy(batch.thetas, 0, thetas, offset, length);
+        System.arraycopy(batch.rhos, 0, rhos, offset, length);
+    }
+
+    public void setFailed(int index)
+    {
+        prices[index] = Double.NaN;
+        deltas[index] = Double.NaN;
+        gammas[index] = Double.NaN;
+        vegas[index] = Double.NaN;
+        thetas[index] = Double.NaN;
+        rhos[index] = Double.NaN;
+    }
+
+    public int getFailedCount()
+    {
+        return failedCount;
+    }
+
+    public void setFailedCount(int failedCount)
+    {
+        this.failedCount = failedCount;
+    }
+
+    @JsonIgnore
+    public int getPricedCount()
+    {
+        return prices.length - failedCount;
+    }
+
+    // Paths simulated across the grid, which admission control settles adaptive simulations against; not part of the response.
+    @JsonIgnore
+    public long getPathCount()
+    {
+        return pathCount.sum();
+    }
+
+    public double[] getPrices()
+    {
+        return prices;
+    }
+
+    public double[] getDeltas()
+    {
+        return deltas;
+    }
+
+    public double[] getGammas()
+    {
+        return gammas;
+    }
+
+    public double[] getVegas()
+    {
+        return vegas;
+    }
+
+    public double[] getThetas()
+    {
+        return thetas;
+    }
+
+    public double[] getRhos()
+    {
+        return rhos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OptionPriceGrid{axisKeys=" + getAxisKeys() + ", shape=" + Arrays.toString(shape) + ", failedCount=" + failedCount + "}";
+    }
+}
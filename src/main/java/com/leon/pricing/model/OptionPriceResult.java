@@ -1,5 +1,6 @@
 package com.leon.pricing.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.stereotype.Component;
 import java.util.Objects;
@@ -28,6 +29,20 @@ public class OptionPriceResult {
     @JsonProperty("rangeVariable")
     private double rangeVariable;
     
+    // Only populated by simulation models; omitted from the JSON for closed-form and lattice results.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("standardErrors")
+    private StandardErrors standardErrors;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("pathCount")
+    private Long pathCount;
+    
+    // Only populated by lattice models: the estimated discretisation error of the reported price.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("errorEstimate")
+    private Double errorEstimate;
+    
     public OptionPriceResult() {}
     
     public OptionPriceResult(double delta, double gamma, double rho, double theta, double vega, double price)
@@ -39,7 +54,16 @@ public class OptionPriceResult {
         this.vega = vega;
         this.price = price;
     }
-    
+
+    public OptionPriceResult(OptionPriceResult other)
+    {
+        this(other.delta, other.gamma, other.rho, other.theta, other.vega, other.price);
+        this.rangeVariable = other.rangeVariable;
+        this.standardErrors = other.standardErrors == null ? null : new StandardErrors(other.standardErrors);
+        this.pathCount = other.pathCount;
+        this.errorEstimate = other.errorEstimate;
+    }
+
     // Getters and Setters
     public double getDelta()
     {
@@ -104,6 +128,33 @@ public class OptionPriceResult {
         this.rangeVariable = rangeVariable;
     }
     
+    public StandardErrors getStandardErrors()
+    {
+        return standardErrors;
+    }
+    public void setStandardErrors(StandardErrors standardErrors)
+    {
+        this.standardErrors = standardErrors;
+    }
+    
+    public Long getPathCount()
+    {
+        return pathCount;
+    }
+    public void setPathCount(Long pathCount)
+    {
+        this.pathCount = pathCount;
+    }
+    
+    public Double getErrorEstimate()
+    {
+        return errorEstimate;
+    }
+    public void setErrorEstimate(Double errorEstimate)
+    {
+        this.errorEstimate = errorEstimate;
+    }
+    
     public void add(OptionPriceResult priceResult)
     {
         this.delta += priceResult.delta;
@@ -27,6 +27,12 @@ public class OptionPriceResultSet
         this.totalCount++;
     }
     
+    public void mergeAll(List<OptionPriceResult> optionPriceResults)
+    {
+        this.results.addAll(optionPriceResults);
+        this.totalCount = this.results.size();
+    }
+    
     public void addAll(OptionPriceResultSet otherSet)
     {
         this.results.addAll(otherSet.getResults());
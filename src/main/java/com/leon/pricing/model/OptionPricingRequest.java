@@ -48,6 +48,10 @@ public class OptionPricingRequest
     @JsonProperty("modelType")
     private String modelType;
     
+    @DecimalMin(value = "0.0", inclusive = false, message = "Target standard error must be greater than 0")
+    @JsonProperty("targetStandardError")
+    private Double targetStandardError;
+    
     public OptionPricingRequest() {}
     
     public OptionPricingRequest(Double strike, Double volatility, Double underlyingPrice, Double daysToExpiry, Double interestRate, Boolean isCall, Boolean isEuropean, Double dayCountConvention)
@@ -90,6 +94,9 @@ public class OptionPricingRequest
     public String getModelType() { return modelType; }
     public void setModelType(String modelType) { this.modelType = modelType; }
     
+    public Double getTargetStandardError() { return targetStandardError; }
+    public void setTargetStandardError(Double targetStandardError) { this.targetStandardError = targetStandardError; }
+    
     public double getTimeToExpiryInYears()
     {
         return daysToExpiry / dayCountConvention;
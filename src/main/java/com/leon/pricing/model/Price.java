@@ -3,7 +3,9 @@ package com.leon.pricing.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -29,10 +31,16 @@ public class Price
     @JsonProperty("lastUpdatedOn")
     private LocalDate lastUpdatedOn;
     
+    // Finer than lastUpdatedOn: lets other instances pick up changes with an incremental poll and ignore stale echoes.
+    // Kept to the millisecond, as stored in the database, so that instances compare the same values.
+    @JsonProperty("lastModified")
+    private Instant lastModified;
+    
     public Price()
     {
         this.id = UUID.randomUUID();
         this.lastUpdatedOn = LocalDate.now();
+        this.lastModified = Instant.now().truncatedTo(ChronoUnit.MILLIS);
     }
     
     public Price(String instrumentCode, Double closePrice, Double openPrice, String lastUpdatedBy)
@@ -44,6 +52,18 @@ public class Price
         this.lastUpdatedBy = lastUpdatedBy;
     }
     
+    // Copies every field, so an instance published in the market data store can be handed out without sharing it.
+    public Price(Price other)
+    {
+        this.id = other.id;
+        this.instrumentCode = other.instrumentCode;
+        this.closePrice = other.closePrice;
+        this.openPrice = other.openPrice;
+        this.lastUpdatedBy = other.lastUpdatedBy;
+        this.lastUpdatedOn = other.lastUpdatedOn;
+        this.lastModified = other.lastModified;
+    }
+    
     public UUID getId()
     {
         return id;
@@ -104,6 +124,16 @@ public class Price
         this.lastUpdatedOn = lastUpdatedOn;
     }
     
+    public Instant getLastModified()
+    {
+        return lastModified;
+    }
+    
+    public void setLastModified(Instant lastModified)
+    {
+        this.lastModified = lastModified;
+    }
+    
     @Override
     public boolean equals(Object o)
     {
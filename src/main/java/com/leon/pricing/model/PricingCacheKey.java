@@ -0,0 +1,81 @@
+package com.leon.pricing.model;
+
+// Canonical form of one pricing call: every input is rounded to a fixed number of significant bits so quotes that differ
+// only in floating-point noise share an entry.
+final class PricingCacheKey
+{
+    private final String modelSignature;
+    private final long underlyingPrice;
+    private final long strike;
+    private final long volatility;
+    private final long interestRate;
+    private final long timeToExpiryInYears;
+    private final long dayCountConvention;
+    private final long targetStandardError;
+    private final boolean isCallOption;
+    private final boolean isEuropeanOption;
+    private final int hash;
+
+    PricingCacheKey(String modelSignature, PricingContext context, int significantBits)
+    {
+        this.modelSignature = modelSignature;
+        this.underlyingPrice = quantize(context.getUnderlyingPrice(), significantBits);
+        this.strike = quantize(context.getStrike(), significantBits);
+        this.volatility = quantize(context.getVolatility(), significantBits);
+        this.interestRate = quantize(context.getInterestRate(), significantBits);
+        this.timeToExpiryInYears = quantize(context.getTimeToExpiryInYears(), significantBits);
+        this.dayCountConvention = quantize(context.getDayCountConvention(), significantBits);
+        this.targetStandardError = quantize(context.getTargetStandardError(), significantBits);
+        this.isCallOption = context.isCallOption();
+        this.isEuropeanOption = context.isEuropeanOption();
+
+        int result = modelSignature.hashCode();
+        result = 31 * result + Long.hashCode(underlyingPrice);
+        result = 31 * result + Long.hashCode(strike);
+        result = 31 * result + Long.hashCode(volatility);
+        result = 31 * result + Long.hashCode(interestRate);
+        result = 31 * result + Long.hashCode(timeToExpiryInYears);
+        result = 31 * result + Long.hashCode(dayCountConvention);
+        result = 31 * result + Long.hashCode(targetStandardError);
+        result = 31 * result + (isCallOption ? 1 : 0);
+        result = 31 * result + (isEuropeanOption ? 1 : 0);
+        this.hash = result;
+    }
+
+    // Rounds the mantissa to the nearest value with the given number of significant bits, i.e. a relative tolerance of
+    // about 2^-significantBits. A carry out of the mantissa correctly rolls into the exponent.
+    static long quantize(double value, int significantBits)
+    {
+        if (value == 0.0)
+            return 0L;
+
+        long bits = Double.doubleToLongBits(value);
+        int droppedBits = 52 - significantBits;
+        if (droppedBits <= 0)
+            return bits;
+
+        return (bits + (1L << (droppedBits - 1))) & -(1L << droppedBits);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (!(o instanceof PricingCacheKey))
+            return false;
+
+        PricingCacheKey other = (PricingCacheKey) o;
+        return hash == other.hash && underlyingPrice == other.underlyingPrice && strike == other.strike && volatility == other.volatility
+                && interestRate == other.interestRate && timeToExpiryInYears == other.timeToExpiryInYears
+                && dayCountConvention == other.dayCountConvention && targetStandardError == other.targetStandardError
+                && isCallOption == other.isCallOption && isEuropeanOption == other.isEuropeanOption
+                && modelSignature.equals(other.modelSignature);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+}
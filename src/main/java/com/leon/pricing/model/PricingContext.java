@@ -0,0 +1,119 @@
+package com.leon.pricing.model;
+
+public final class PricingContext
+{
+    public static final double DEFAULT_DAY_COUNT_CONVENTION = 250.0;
+
+    private final double underlyingPrice;
+    private final double strike;
+    private final double volatility;
+    private final double interestRate;
+    private final double timeToExpiryInYears;
+    private final double dayCountConvention;
+    private final boolean isCallOption;
+    private final boolean isEuropeanOption;
+    private final double targetStandardError;
+
+    public PricingContext(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears, double dayCountConvention, boolean isCallOption, boolean isEuropeanOption)
+    {
+        this(underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears, dayCountConvention, isCallOption, isEuropeanOption, 0.0);
+    }
+
+    // A target standard error of zero means "no target"; only simulation models read it.
+    public PricingContext(double underlyingPrice, double strike, double volatility, double interestRate, double timeToExpiryInYears, double dayCountConvention, boolean isCallOption, boolean isEuropeanOption, double targetStandardError)
+    {
+        this.underlyingPrice = underlyingPrice;
+        this.strike = strike;
+        this.volatility = volatility;
+        this.interestRate = interestRate;
+        this.timeToExpiryInYears = timeToExpiryInYears;
+        this.dayCountConvention = dayCountConvention;
+        this.isCallOption = isCallOption;
+        this.isEuropeanOption = isEuropeanOption;
+        this.targetStandardError = targetStandardError;
+    }
+
+    public double getUnderlyingPrice()
+    {
+        return underlyingPrice;
+    }
+
+    public double getStrike()
+    {
+        return strike;
+    }
+
+    public double getVolatility()
+    {
+        return volatility;
+    }
+
+    public double getInterestRate()
+    {
+        return interestRate;
+    }
+
+    public double getTimeToExpiryInYears()
+    {
+        return timeToExpiryInYears;
+    }
+
+    public double getDayCountConvention()
+    {
+        return dayCountConvention;
+    }
+
+    public boolean isCallOption()
+    {
+        return isCallOption;
+    }
+
+    public boolean isEuropeanOption()
+    {
+        return isEuropeanOption;
+    }
+
+    public double getTargetStandardError()
+    {
+        return targetStandardError;
+    }
+
+    public boolean hasTargetStandardError()
+    {
+        return targetStandardError > 0;
+    }
+
+    public double getValue(RangeKey key)
+    {
+        switch (key)
+        {
+            case UNDERLYING_PRICE: return underlyingPrice;
+            case STRIKE: return strike;
+            case VOLATILITY: return volatility;
+            case INTEREST_RATE: return interestRate;
+            case TIME_TO_EXPIRY: return timeToExpiryInYears;
+            default: throw new IllegalArgumentException("Unsupported range key: " + key);
+        }
+    }
+
+    // Returns a new context with a single input replaced, leaving this one untouched for other threads.
+    public PricingContext withValue(RangeKey key, double value)
+    {
+        switch (key)
+        {
+            case UNDERLYING_PRICE: return new PricingContext(value, strike, volatility, interestRate, timeToExpiryInYears, dayCountConvention, isCallOption, isEuropeanOption, targetStandardError);
+            case STRIKE: return new PricingContext(underlyingPrice, value, volatility, interestRate, timeToExpiryInYears, dayCountConvention, isCallOption, isEuropeanOption, targetStandardError);
+            case VOLATILITY: return new PricingContext(underlyingPrice, strike, value, interestRate, timeToExpiryInYears, dayCountConvention, isCallOption, isEuropeanOption, targetStandardError);
+            case INTEREST_RATE: return new PricingContext(underlyingPrice, strike, volatility, value, timeToExpiryInYears, dayCountConvention, isCallOption, isEuropeanOption, targetStandardError);
+            case TIME_TO_EXPIRY: return new PricingContext(underlyingPrice, strike, volatility, interestRate, value, dayCountConvention, isCallOption, isEuropeanOption, targetStandardError);
+            default: throw new IllegalArgumentException("Unsupported range key: " + key);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("PricingContext{underlyingPrice=%.4f, strike=%.4f, volatility=%.4f, interestRate=%.4f, timeToExpiryInYears=%.6f, dayCountConvention=%.2f, isCall=%b, isEuropean=%b}",
+                underlyingPrice, strike, volatility, interestRate, timeToExpiryInYears, dayCountConvention, isCallOption, isEuropeanOption);
+    }
+}
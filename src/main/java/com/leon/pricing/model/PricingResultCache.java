@@ -0,0 +1,95 @@
+package com.leon.pricing.model;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded memo of pricing results, keyed on the quantized inputs and the model and its settings. Every input that affects
+ * the price is in the key, including the spot, volatility and rate an instrument request resolved from market data, so a
+ * market data update needs no invalidation: requests priced off the new data simply key a different entry, and the old
+ * ones age out by size or TTL. Results are copied in and out because callers go on to set fields such as the range variable.
+ */
+@Component
+public class PricingResultCache
+{
+    private static final Logger logger = LoggerFactory.getLogger(PricingResultCache.class);
+
+    @Value("${pricing.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pricing.cache.maximum.size:100000}")
+    private long maximumSize;
+
+    @Value("${pricing.cache.expire.after.write.seconds:300}")
+    private long expireAfterWriteSeconds;
+
+    @Value("${pricing.cache.significant.bits:32}")
+    private int significantBits;
+
+    private Cache<PricingCacheKey, OptionPriceResult> cache;
+
+    public PricingResultCache() {}
+
+    @PostConstruct
+    private void initializeCache()
+    {
+        if (significantBits < 1 || significantBits > 52)
+            throw new IllegalArgumentException("pricing.cache.significant.bits must be between 1 and 52");
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        logger.info("Pricing result cache {} with at most {} entries, {}s TTL and {} significant bits per input",
+                enabled ? "enabled" : "disabled", maximumSize, expireAfterWriteSeconds, significantBits);
+    }
+
+    // Returns the cached result for these inputs or runs the calculation and remembers it. Failures are not cached.
+    public OptionPriceResult calculate(OptionModel model, PricingContext context, Supplier<OptionPriceResult> calculation)
+    {
+        if (!enabled)
+            return calculation.get();
+
+        // Built on every lookup: the models' settings have public setters, so a memoized signature could outlive them.
+        String signature = model.getClass().getSimpleName() + ": " + model.getModelDetails();
+        PricingCacheKey key = new PricingCacheKey(signature, context, significantBits);
+        OptionPriceResult cached = cache.getIfPresent(key);
+        if (cached != null)
+            return new OptionPriceResult(cached);
+
+        OptionPriceResult result = calculation.get();
+        cache.put(key, new OptionPriceResult(result));
+        return result;
+    }
+
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStatistics()
+    {
+        CacheStats stats = cache.stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("size", cache.estimatedSize());
+        statistics.put("maximumSize", maximumSize);
+        statistics.put("expireAfterWriteSeconds", expireAfterWriteSeconds);
+        statistics.put("hitCount", stats.hitCount());
+        statistics.put("missCount", stats.missCount());
+        statistics.put("hitRate", stats.hitRate());
+        statistics.put("evictionCount", stats.evictionCount());
+        return statistics;
+    }
+}
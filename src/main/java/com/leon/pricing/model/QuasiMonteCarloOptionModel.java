@@ -0,0 +1,183 @@
+package com.leon.pricing.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import java.util.SplittableRandom;
+import static com.leon.pricing.model.NormalDistribution.inverseCumulativeNormalDistribution;
+import static java.lang.Math.*;
+
+@Component
+public class QuasiMonteCarloOptionModel implements OptionModel
+{
+    private static final Logger logger = LoggerFactory.getLogger(QuasiMonteCarloOptionModel.class);
+    private static final int NUMBER_OF_REPLICATES = 16;
+    private static final int DEFAULT_LOG2_POINTS_PER_REPLICATE = 12;
+    private static final int INITIAL_ADAPTIVE_LOG2_POINTS_PER_REPLICATE = 10;
+    private static final int MAX_ADAPTIVE_LOG2_POINTS_PER_REPLICATE = 19;
+
+    // Sobol points are only balanced in blocks of 2^m, so the per-replicate count is configured as a power of two.
+    private volatile int log2PointsPerReplicate = DEFAULT_LOG2_POINTS_PER_REPLICATE;
+
+    @org.springframework.beans.factory.annotation.Autowired
+    private RangeCalculationEngine rangeCalculationEngine;
+
+    public QuasiMonteCarloOptionModel() {}
+
+    public void setLog2PointsPerReplicate(int log2PointsPerReplicate)
+    {
+        if (log2PointsPerReplicate < 1 || log2PointsPerReplicate > MAX_ADAPTIVE_LOG2_POINTS_PER_REPLICATE)
+            throw new IllegalArgumentException("Log2 of points per replicate must be between 1 and " + MAX_ADAPTIVE_LOG2_POINTS_PER_REPLICATE);
+
+        this.log2PointsPerReplicate = log2PointsPerReplicate;
+    }
+
+    @Override
+    public OptionPriceResult calculate(PricingContext context, boolean logCalculation)
+    {
+        try
+        {
+            if (logCalculation)
+                logger.info("Calculating option price using quasi-Monte Carlo with {} scrambled Sobol replicates of {} points and target standard error {} - Volatility: {}, Interest Rate: {}, Strike: {}, Underlying Price: {}, Time to Expiry (years): {}",
+                        NUMBER_OF_REPLICATES, 1 << log2PointsPerReplicate, context.getTargetStandardError(), context.getVolatility(), context.getInterestRate(),
+                        context.getStrike(), context.getUnderlyingPrice(), context.getTimeToExpiryInYears());
+
+            return simulate(context);
+        }
+        catch (Exception e)
+        {
+            logger.error("Quasi-Monte Carlo calculation error: {}", e.getMessage());
+            throw new RuntimeException("Quasi-Monte Carlo calculation error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void calculateRange(OptionPriceResultSet optionPriceResultSet, PricingContext context, RangeKey rangeKey, double startValue, double endValue, double increment, boolean logCalculations)
+    {
+        try
+        {
+            rangeCalculationEngine.calculateRange(optionPriceResultSet, context, rangeKey, startValue, endValue, increment, this, logCalculations);
+        }
+        catch (Exception e)
+        {
+            logger.error("Quasi-Monte Carlo range calculation error: {}", e.getMessage());
+            throw new RuntimeException("Quasi-Monte Carlo range calculation error: " + e.getMessage());
+        }
+    }
+
+    private OptionPriceResult simulate(PricingContext context)
+    {
+        // Randomised QMC: independent Owen scramblings of the same Sobol points give unbiased replicate estimates,
+        // and the spread between replicate means is an honest standard error, which a single QMC run cannot provide.
+        SplittableRandom seedRandom = new SplittableRandom(deriveSeed(context));
+        ScrambledSobolSequence[] sequences = new ScrambledSobolSequence[NUMBER_OF_REPLICATES];
+        MonteCarloEstimator[] replicates = new MonteCarloEstimator[NUMBER_OF_REPLICATES];
+        for (int replicate = 0; replicate < NUMBER_OF_REPLICATES; replicate++)
+        {
+            sequences[replicate] = new ScrambledSobolSequence(seedRandom.nextInt());
+            replicates[replicate] = new MonteCarloEstimator(context);
+        }
+
+        // With a target standard error each replicate starts small and doubles; the first 2^(m+1) Sobol points extend
+        // the first 2^m, so every round keeps the points already drawn and stays balanced.
+        int log2Points = context.hasTargetStandardError() ? min(INITIAL_ADAPTIVE_LOG2_POINTS_PER_REPLICATE, log2PointsPerReplicate) : log2PointsPerReplicate;
+        int maxLog2Points = context.hasTargetStandardError() ? MAX_ADAPTIVE_LOG2_POINTS_PER_REPLICATE : log2PointsPerReplicate;
+        int pointsDrawn = 0;
+
+        while (true)
+        {
+            // Replicates are independent, so each round runs them as tasks on the execution backend rather than the common pool.
+            int pointsInRound = (1 << log2Points) - pointsDrawn;
+            rangeCalculationEngine.invokeAll(NUMBER_OF_REPLICATES, replicate -> simulateReplicate(sequences[replicate], replicates[replicate], pointsInRound));
+            pointsDrawn += pointsInRound;
+
+            OptionPriceResult result = combineReplicates(replicates);
+            if (!context.hasTargetStandardError() || log2Points >= maxLog2Points || result.getStandardErrors().getPrice() <= context.getTargetStandardError())
+                return result;
+
+            log2Points++;
+        }
+    }
+
+    private void simulateReplicate(ScrambledSobolSequence sequence, MonteCarloEstimator estimator, int numberOfPoints)
+    {
+        // Each point drives an antithetic pair; reflecting the shock is the same as using the mirrored point 1 - u.
+        for (int i = 0; i < numberOfPoints; i++)
+            estimator.addAntitheticPair(inverseCumulativeNormalDistribution(sequence.next()));
+    }
+
+    private OptionPriceResult combineReplicates(MonteCarloEstimator[] replicates)
+    {
+        double[] means = new double[MonteCarloEstimator.ESTIMATOR_COUNT];
+        double[] standardErrors = new double[MonteCarloEstimator.ESTIMATOR_COUNT];
+        long pathCount = 0;
+
+        for (MonteCarloEstimator replicate : replicates)
+            pathCount += replicate.getPathCount();
+
+        for (int estimator = 0; estimator < MonteCarloEstimator.ESTIMATOR_COUNT; estimator++)
+        {
+            double sum = 0.0;
+            for (MonteCarloEstimator replicate : replicates)
+                sum += replicate.getMean(estimator);
+            double mean = sum / replicates.length;
+
+            double sumOfSquaredDeviations = 0.0;
+            for (MonteCarloEstimator replicate : replicates)
+            {
+                double deviation = replicate.getMean(estimator) - mean;
+                sumOfSquaredDeviations += deviation * deviation;
+            }
+
+            means[estimator] = mean;
+            standardErrors[estimator] = sqrt(sumOfSquaredDeviations / (replicates.length - 1) / replicates.length);
+        }
+
+        OptionPriceResult result = new OptionPriceResult(means[MonteCarloEstimator.DELTA], means[MonteCarloEstimator.GAMMA], means[MonteCarloEstimator.RHO],
+                means[MonteCarloEstimator.THETA], means[MonteCarloEstimator.VEGA], means[MonteCarloEstimator.PRICE]);
+        result.setStandardErrors(new StandardErrors(standardErrors[MonteCarloEstimator.PRICE], standardErrors[MonteCarloEstimator.DELTA],
+                standardErrors[MonteCarloEstimator.GAMMA], standardErrors[MonteCarloEstimator.VEGA], standardErrors[MonteCarloEstimator.RHO],
+                standardErrors[MonteCarloEstimator.THETA]));
+        result.setPathCount(pathCount);
+        return result;
+    }
+
+    private long deriveSeed(PricingContext context)
+    {
+        long seed = 0x632BE59BD9B4E019L;
+        seed = 31 * seed + Double.doubleToLongBits(context.getUnderlyingPrice());
+        seed = 31 * seed + Double.doubleToLongBits(context.getStrike());
+        seed = 31 * seed + Double.doubleToLongBits(context.getVolatility());
+        seed = 31 * seed + Double.doubleToLongBits(context.getInterestRate());
+        seed = 31 * seed + Double.doubleToLongBits(context.getTimeToExpiryInYears());
+        seed = 31 * seed + (context.isCallOption() ? 1 : 0);
+        return 31 * seed + Double.doubleToLongBits(context.getTargetStandardError());
+    }
+
+    // Work is counted in Sobol points, each of which drives an antithetic pair of paths. An adaptive run is charged the
+    // configured count up front and settled against its path count once it has stopped.
+    @Override
+    public double estimateWork(PricingContext context)
+    {
+        return (double) NUMBER_OF_REPLICATES * (1 << log2PointsPerReplicate);
+    }
+
+    @Override
+    public double unestimatedWork(PricingContext context, long points, long pathCount)
+    {
+        return context.hasTargetStandardError() ? (pathCount / 2.0) - (points * estimateWork(context)) : 0.0;
+    }
+
+    @Override
+    public String getModelDetails()
+    {
+        return String.format("Quasi-Monte Carlo Option Model: European calls and puts with %d scrambled Sobol replicates of %d points",
+                NUMBER_OF_REPLICATES, 1 << log2PointsPerReplicate);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("QuasiMonteCarloOptionModel{replicates=%d, pointsPerReplicate=%d}", NUMBER_OF_REPLICATES, 1 << log2PointsPerReplicate);
+    }
+}
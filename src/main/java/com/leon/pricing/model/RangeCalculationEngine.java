@@ -0,0 +1,213 @@
+package com.leon.pricing.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared range execution for the option models and batch pricing. A range is cut into chunks sized from the execution
+ * backend's parallelism, so workers share out the chunks instead of each point becoming a queued task, and every point
+ * writes straight into its own preallocated slot. Concurrent ranges are bounded by a fair semaphore: callers beyond the
+ * limit wait their turn rather than being rejected.
+ */
+@Component
+public class RangeCalculationEngine
+{
+    private static final Logger logger = LoggerFactory.getLogger(RangeCalculationEngine.class);
+    // More chunks than workers lets stealing even out points that cost different amounts to price.
+    private static final int CHUNKS_PER_WORKER = 4;
+    // Grid tiles are whole rows, at least this many points, so per-row work is shared and each tile writes one contiguous block.
+    private static final int MIN_GRID_TILE_POINTS = 256;
+
+    @Autowired
+    @Qualifier("executionBackend")
+    private ExecutionBackend executionBackend;
+
+    @Autowired
+    private PricingResultCache pricingResultCache;
+
+    @Value("${pricing.range.max.concurrent.ranges:8}")
+    private int maxConcurrentRanges;
+
+    private Semaphore rangePermits;
+
+    @FunctionalInterface
+    public interface ChunkTask
+    {
+        void calculate(int from, int to);
+    }
+
+    public RangeCalculationEngine() {}
+
+    @PostConstruct
+    private void initializePermits()
+    {
+        if (maxConcurrentRanges < 1)
+            throw new IllegalArgumentException("pricing.range.max.concurrent.ranges must be at least 1");
+
+        this.rangePermits = new Semaphore(maxConcurrentRanges, true);
+        logger.info("Range calculation engine using the {} backend with {} workers and at most {} concurrent ranges", executionBackend.getType().getName(),
+                executionBackend.getParallelism(), maxConcurrentRanges);
+    }
+
+    // Number of points from start to end inclusive, dropping any that overshoot the end value.
+    public static int pointCount(double startValue, double endValue, double increment)
+    {
+        int iterations = (int) Math.ceil((endValue - startValue) / increment) + 1;
+        while (iterations > 0 && startValue + ((iterations - 1) * increment) > endValue)
+            iterations--;
+
+        return Math.max(iterations, 0);
+    }
+
+    // Prices every point with its own repricing, through the result cache, and appends the results to the set in range order.
+    // A point that fails is logged and left out, as the per-point futures used to do.
+    public void calculateRange(OptionPriceResultSet optionPriceResultSet, PricingContext context, RangeKey rangeKey, double startValue, double endValue, double increment,
+                               OptionModel model, boolean logCalculations)
+    {
+        int iterations = pointCount(startValue, endValue, increment);
+        OptionPriceResult[] slots = new OptionPriceResult[iterations];
+
+        forEachChunk(iterations, (from, to) ->
+        {
+            for (int i = from; i < to; i++)
+            {
+                double value = startValue + (i * increment);
+                try
+                {
+                    PricingContext pointContext = context.withValue(rangeKey, value);
+                    OptionPriceResult result = pricingResultCache.calculate(model, pointContext, () -> model.calculate(pointContext, logCalculations));
+                    result.setRangeVariable(value);
+                    slots[i] = result;
+                }
+                catch (Exception e)
+                {
+                    logger.error("Error calculating range point {} = {}: {}", rangeKey, value, e.getMessage());
+                }
+            }
+        });
+
+        List<OptionPriceResult> results = new ArrayList<>(iterations);
+        for (OptionPriceResult result : slots)
+        {
+            if (result != null)
+                results.add(result);
+        }
+        optionPriceResultSet.mergeAll(results);
+    }
+
+    // Tiles the grid by rows and lets the model price each tile. If a tile fails its points are repriced one by one,
+    // so a single bad point only fails itself; those points are left as NaN and counted on the grid.
+    public void calculateGrid(OptionPriceGrid grid, PricingContext context, OptionModel model, boolean logCalculations)
+    {
+        int rowLength = grid.getRowLength();
+        int minimumRowsPerTile = Math.max(1, MIN_GRID_TILE_POINTS / rowLength);
+        AtomicInteger failedCount = new AtomicInteger();
+
+        forEachChunk(grid.getRowCount(), minimumRowsPerTile, (fromRow, toRow) ->
+        {
+            try
+            {
+                model.calculateGridTile(grid, context, fromRow, toRow, logCalculations);
+            }
+            catch (Exception tileException)
+            {
+                for (int row = fromRow; row < toRow; row++)
+                {
+                    PricingContext rowContext = grid.rowContext(context, row);
+                    for (int column = 0; column < rowLength; column++)
+                    {
+                        int index = (row * rowLength) + column;
+                        try
+                        {
+                            grid.set(index, model.calculate(rowContext.withValue(grid.getRowKey(), grid.getRowValue(column)), logCalculations));
+                        }
+                        catch (Exception e)
+                        {
+                            logger.error("Error calculating grid point {}: {}", index, e.getMessage());
+                            grid.setFailed(index);
+                            failedCount.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        });
+
+        grid.setFailedCount(failedCount.get());
+    }
+
+    public void forEachChunk(int size, ChunkTask task)
+    {
+        forEachChunk(size, 1, task);
+    }
+
+    // Runs the task over [0, size) in chunks of at least minimumChunkSize on the execution backend and returns once every chunk has completed.
+    public void forEachChunk(int size, int minimumChunkSize, ChunkTask task)
+    {
+        if (size == 0)
+            return;
+
+        int targetChunks = executionBackend.getParallelism() * CHUNKS_PER_WORKER;
+        int chunkSize = Math.max(minimumChunkSize, (size + targetChunks - 1) / targetChunks);
+
+        // A single chunk gains nothing from the pool, so it runs on the caller without taking a permit.
+        if (size <= chunkSize)
+        {
+            task.calculate(0, size);
+            return;
+        }
+
+        try
+        {
+            rangePermits.acquire();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to start a range calculation");
+        }
+
+        try
+        {
+            int chunkCount = (size + chunkSize - 1) / chunkSize;
+            executionBackend.invokeAll(chunkCount, chunk -> task.calculate(chunk * chunkSize, Math.min(size, (chunk + 1) * chunkSize)));
+        }
+        finally
+        {
+            rangePermits.release();
+        }
+    }
+
+    // Runs tasks 0 to taskCount - 1 of a single calculation, such as the path chunks of a simulation, on the execution backend.
+    // It takes no permit: the calculation is already running, possibly inside a range chunk, and both backends run nested work safely.
+    public void invokeAll(int taskCount, ExecutionBackend.ChunkRunner runner)
+    {
+        if (taskCount == 1)
+            runner.run(0);
+        else if (taskCount > 1)
+            executionBackend.invokeAll(taskCount, runner);
+    }
+
+    public Map<String, Object> getStatistics()
+    {
+        Map<String, Object> statistics = executionBackend.getStatistics();
+        statistics.put("maxConcurrentRanges", maxConcurrentRanges);
+        statistics.put("runningRanges", maxConcurrentRanges - rangePermits.availablePermits());
+        statistics.put("waitingRanges", rangePermits.getQueueLength());
+        return statistics;
+    }
+
+    public void resetStatistics()
+    {
+        executionBackend.resetStatistics();
+    }
+}
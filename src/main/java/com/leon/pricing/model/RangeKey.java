@@ -0,0 +1,25 @@
+package com.leon.pricing.model;
+
+public enum RangeKey
+{
+    UNDERLYING_PRICE,
+    STRIKE,
+    VOLATILITY,
+    INTEREST_RATE,
+    TIME_TO_EXPIRY;
+
+    public static RangeKey fromString(String rangeKey)
+    {
+        if (rangeKey == null || rangeKey.trim().isEmpty())
+            throw new IllegalArgumentException("Range key cannot be null or empty");
+
+        try
+        {
+            return RangeKey.valueOf(rangeKey.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Unknown range key: " + rangeKey);
+        }
+    }
+}
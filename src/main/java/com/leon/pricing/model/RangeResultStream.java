@@ -0,0 +1,64 @@
+package com.leon.pricing.model;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A validated range that is priced lazily in consecutive blocks. Each block goes through the model's own calculateRange,
+ * so chunked and single-solve range paths still apply, and is handed to the consumer as soon as it completes. Blocks start
+ * small to get the first results out quickly and double up to a cap, so memory stays bounded by the largest block.
+ */
+public class RangeResultStream
+{
+    private final OptionModel model;
+    private final PricingContext context;
+    private final RangeKey rangeKey;
+    private final double startValue;
+    private final double increment;
+    private final int pointCount;
+    private final int initialBlockSize;
+    private final int maximumBlockSize;
+    private final boolean logCalculations;
+    private final LongConsumer onCompletion;
+
+    public RangeResultStream(OptionModel model, PricingContext context, RangeKey rangeKey, double startValue, double endValue, double increment,
+                             int initialBlockSize, int maximumBlockSize, boolean logCalculations, LongConsumer onCompletion)
+    {
+        this.model = model;
+        this.context = context;
+        this.rangeKey = rangeKey;
+        this.startValue = startValue;
+        this.increment = increment;
+        this.pointCount = RangeCalculationEngine.pointCount(startValue, endValue, increment);
+        this.initialBlockSize = initialBlockSize;
+        this.maximumBlockSize = maximumBlockSize;
+        this.logCalculations = logCalculations;
+        this.onCompletion = onCompletion;
+    }
+
+    public int getPointCount()
+    {
+        return pointCount;
+    }
+
+    // Blocks arrive in range order; an exception from the consumer (e.g. the client went away) stops any further pricing.
+    public void forEachBlock(Consumer<List<OptionPriceResult>> blockConsumer)
+    {
+        long startTime = System.currentTimeMillis();
+        int blockSize = initialBlockSize;
+
+        for (int from = 0; from < pointCount; from += blockSize, blockSize = Math.min(blockSize * 2, maximumBlockSize))
+        {
+            int to = Math.min(from + blockSize, pointCount);
+            // Half an increment of slack on the end value keeps rounding from dropping the block's last point.
+            double blockStart = startValue + (from * increment);
+            double blockEnd = startValue + ((to - 1) * increment) + (increment / 2);
+            OptionPriceResultSet block = new OptionPriceResultSet();
+            model.calculateRange(block, context, rangeKey, blockStart, blockEnd, increment, logCalculations);
+            blockConsumer.accept(block.getResults());
+        }
+
+        onCompletion.accept(System.currentTimeMillis() - startTime);
+    }
+}
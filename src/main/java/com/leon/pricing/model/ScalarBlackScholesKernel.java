@@ -0,0 +1,64 @@
+package com.leon.pricing.model;
+
+import static com.leon.pricing.model.NormalDistribution.cumulativeNormalDistribution;
+import static com.leon.pricing.model.NormalDistribution.standardNormalProbabilityDensityFunction;
+import static java.lang.Math.*;
+
+public class ScalarBlackScholesKernel implements BlackScholesKernel
+{
+    @Override
+    public void calculate(BlackScholesBatch batch)
+    {
+        calculate(batch, 0, batch.size());
+    }
+
+    // Also used by the vector kernel to finish the tail that does not fill a whole lane.
+    static void calculate(BlackScholesBatch batch, int from, int to)
+    {
+        boolean hasTimeTerms = batch.hasTimeTerms();
+        for (int i = from; i < to; i++)
+        {
+            double underlyingPrice = batch.underlyingPrices[i];
+            double strike = batch.strikes[i];
+            double volatility = batch.volatilities[i];
+            double interestRate = batch.interestRates[i];
+            double timeToExpiryInYears = batch.timesToExpiryInYears[i];
+
+            double squareRootOfTimeToExpiryInYears = hasTimeTerms ? batch.squareRootsOfTimeToExpiry[i] : sqrt(timeToExpiryInYears);
+            double volatilityOverTime = volatility * squareRootOfTimeToExpiryInYears;
+            double adjustedNormalizedDrift = (log(underlyingPrice / strike) + ((interestRate + ((volatility * volatility) / 2)) * timeToExpiryInYears)) / volatilityOverTime;
+            double adjustedNormalizedDriftOffsetByVolatility = adjustedNormalizedDrift - volatilityOverTime;
+            double discountedStrike = strike * (hasTimeTerms ? batch.discountFactors[i] : exp(-interestRate * timeToExpiryInYears));
+            double density = standardNormalProbabilityDensityFunction(adjustedNormalizedDrift);
+
+            batch.gammas[i] = density / (underlyingPrice * volatilityOverTime);
+            batch.vegas[i] = underlyingPrice * density * squareRootOfTimeToExpiryInYears * 0.01;
+            double firstThetaTerm = -(underlyingPrice * density * volatility) / (2 * squareRootOfTimeToExpiryInYears);
+
+            if (batch.isCallOptions[i])
+            {
+                double probability = cumulativeNormalDistribution(adjustedNormalizedDrift);
+                double exerciseProbability = cumulativeNormalDistribution(adjustedNormalizedDriftOffsetByVolatility);
+                batch.prices[i] = (underlyingPrice * probability) - (discountedStrike * exerciseProbability);
+                batch.deltas[i] = probability;
+                batch.rhos[i] = discountedStrike * timeToExpiryInYears * exerciseProbability * 0.01;
+                batch.thetas[i] = (firstThetaTerm - interestRate * discountedStrike * exerciseProbability) / batch.dayCountConventions[i];
+            }
+            else
+            {
+                double probability = cumulativeNormalDistribution(-adjustedNormalizedDrift);
+                double exerciseProbability = cumulativeNormalDistribution(-adjustedNormalizedDriftOffsetByVolatility);
+                batch.prices[i] = (discountedStrike * exerciseProbability) - (underlyingPrice * probability);
+                batch.deltas[i] = cumulativeNormalDistribution(adjustedNormalizedDrift) - 1;
+                batch.rhos[i] = -discountedStrike * timeToExpiryInYears * exerciseProbability * 0.01;
+                batch.thetas[i] = (firstThetaTerm + interestRate * discountedStrike * exerciseProbability) / batch.dayCountConventions[i];
+            }
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return "scalar";
+    }
+}
@@ -0,0 +1,36 @@
+package com.leon.pricing.model;
+
+/**
+ * First dimension of the Sobol sequence (the base-2 van der Corput sequence) with hash-based Owen scrambling.
+ * The n-th point is the bit-reversal of n, so nested uniform scrambling reduces to a Laine-Karras permutation of n
+ * followed by a single reversal. Each seed gives an independent, still fully stratified randomisation.
+ */
+public final class ScrambledSobolSequence
+{
+    private static final double TWO_TO_MINUS_32 = 1.0 / 4294967296.0;
+
+    private final int seed;
+    private int index;
+
+    public ScrambledSobolSequence(int seed)
+    {
+        this.seed = seed;
+    }
+
+    public double next()
+    {
+        int scrambled = Integer.reverse(laineKarrasPermutation(index++, seed));
+        // Centre the point within its 2^-32 cell so the inverse normal never sees 0 or 1.
+        return ((scrambled & 0xFFFFFFFFL) + 0.5) * TWO_TO_MINUS_32;
+    }
+
+    private static int laineKarrasPermutation(int x, int seed)
+    {
+        x += seed;
+        x ^= x * 0x6c50b47c;
+        x ^= x * 0xb82f1e52;
+        x ^= x * 0xc7afe638;
+        x ^= x * 0x8d22f6e6;
+        return x;
+    }
+}
@@ -0,0 +1,106 @@
+package com.leon.pricing.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable string-keyed map split into a fixed number of hash shards. An update copies the shard array and only the shard
+ * it touches, so publishing a new version costs O(shards + size / shards) rather than a copy of the whole map, and every
+ * earlier version stays valid for whoever still holds it. Shards are never modified once the map is constructed.
+ */
+final class SnapshotMap<T>
+{
+    private static final int SHARD_COUNT = 256;
+    private static final SnapshotMap<?> EMPTY = new SnapshotMap<>(emptyShards(), 0);
+
+    private final Map<String, T>[] shards;
+    private final int size;
+
+    private SnapshotMap(Map<String, T>[] shards, int size)
+    {
+        this.shards = shards;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> SnapshotMap<T> empty()
+    {
+        return (SnapshotMap<T>) EMPTY;
+    }
+
+    private static <T> Map<String, T>[] emptyShards()
+    {
+        // Java cannot create an array of a generic type, so the shard array is created raw.
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Map<String, T>[] shards = new Map[SHARD_COUNT];
+        for (int i = 0; i < SHARD_COUNT; i++)
+            shards[i] = Collections.emptyMap();
+        return shards;
+    }
+
+    private static int shardOf(String key)
+    {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (SHARD_COUNT - 1);
+    }
+
+    T get(String key)
+    {
+        return shards[shardOf(key)].get(key);
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    List<T> values()
+    {
+        List<T> values = new ArrayList<>(size);
+        for (Map<String, T> shard : shards)
+            values.addAll(shard.values());
+        return values;
+    }
+
+    SnapshotMap<T> with(String key, T value)
+    {
+        int index = shardOf(key);
+        Map<String, T> shard = new HashMap<>(shards[index]);
+        boolean added = shard.put(key, value) == null;
+
+        Map<String, T>[] updatedShards = shards.clone();
+        updatedShards[index] = shard;
+        return new SnapshotMap<>(updatedShards, added ? size + 1 : size);
+    }
+
+    // Applies many entries at once, copying each touched shard only once.
+    SnapshotMap<T> withAll(Collection<T> values, Function<T, String> keyOf)
+    {
+        if (values.isEmpty())
+            return this;
+
+        Map<String, T>[] updatedShards = shards.clone();
+        boolean[] copied = new boolean[SHARD_COUNT];
+        int updatedSize = size;
+
+        for (T value : values)
+        {
+            String key = keyOf.apply(value);
+            int index = shardOf(key);
+            if (!copied[index])
+            {
+                updatedShards[index] = new HashMap<>(shards[index]);
+                copied[index] = true;
+            }
+            if (updatedShards[index].put(key, value) == null)
+                updatedSize++;
+        }
+
+        return new SnapshotMap<>(updatedShards, updatedSize);
+    }
+}
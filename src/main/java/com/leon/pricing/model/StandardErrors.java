@@ -0,0 +1,108 @@
+package com.leon.pricing.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class StandardErrors
+{
+    @JsonProperty("price")
+    private double price;
+
+    @JsonProperty("delta")
+    private double delta;
+
+    @JsonProperty("gamma")
+    private double gamma;
+
+    @JsonProperty("vega")
+    private double vega;
+
+    @JsonProperty("rho")
+    private double rho;
+
+    @JsonProperty("theta")
+    private double theta;
+
+    public StandardErrors() {}
+
+    public StandardErrors(double price, double delta, double gamma, double vega, double rho, double theta)
+    {
+        this.price = price;
+        this.delta = delta;
+        this.gamma = gamma;
+        this.vega = vega;
+        this.rho = rho;
+        this.theta = theta;
+    }
+
+    public StandardErrors(StandardErrors other)
+    {
+        this(other.price, other.delta, other.gamma, other.vega, other.rho, other.theta);
+    }
+
+    public double getPrice()
+    {
+        return price;
+    }
+
+    public void setPrice(double price)
+    {
+        this.price = price;
+    }
+
+    public double getDelta()
+    {
+        return delta;
+    }
+
+    public void setDelta(double delta)
+    {
+        this.delta = delta;
+    }
+
+    public double getGamma()
+    {
+        return gamma;
+    }
+
+    public void setGamma(double gamma)
+    {
+        this.gamma = gamma;
+    }
+
+    public double getVega()
+    {
+        return vega;
+    }
+
+    public void setVega(double vega)
+    {
+        this.vega = vega;
+    }
+
+    public double getRho()
+    {
+        return rho;
+    }
+
+    public void setRho(double rho)
+    {
+        this.rho = rho;
+    }
+
+    public double getTheta()
+    {
+        return theta;
+    }
+
+    public void setTheta(double theta)
+    {
+        this.theta = theta;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("StandardErrors{price=%.6f, delta=%.6f, gamma=%.6f, vega=%.6f, rho=%.6f, theta=%.6f}",
+                price, delta, gamma, vega, rho, theta);
+    }
+}
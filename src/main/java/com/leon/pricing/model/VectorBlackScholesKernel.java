@@ -0,0 +1,102 @@
+package com.leon.pricing.model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import static com.leon.pricing.model.NormalDistribution.*;
+import static jdk.incubator.vector.VectorOperators.EXP;
+import static jdk.incubator.vector.VectorOperators.LOG;
+import static jdk.incubator.vector.VectorOperators.SQRT;
+
+// Only loaded reflectively by BlackScholesKernels once jdk.incubator.vector is known to be in the boot layer.
+public class VectorBlackScholesKernel implements BlackScholesKernel
+{
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void calculate(BlackScholesBatch batch)
+    {
+        int size = batch.size();
+        int upperBound = SPECIES.loopBound(size);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        boolean hasTimeTerms = batch.hasTimeTerms();
+
+        int i = 0;
+        for (; i < upperBound; i += SPECIES.length())
+        {
+            DoubleVector underlyingPrice = DoubleVector.fromArray(SPECIES, batch.underlyingPrices, i);
+            DoubleVector strike = DoubleVector.fromArray(SPECIES, batch.strikes, i);
+            DoubleVector volatility = DoubleVector.fromArray(SPECIES, batch.volatilities, i);
+            DoubleVector interestRate = DoubleVector.fromArray(SPECIES, batch.interestRates, i);
+            DoubleVector timeToExpiryInYears = DoubleVector.fromArray(SPECIES, batch.timesToExpiryInYears, i);
+            DoubleVector dayCountConvention = DoubleVector.fromArray(SPECIES, batch.dayCountConventions, i);
+            VectorMask<Double> isCallOption = VectorMask.fromArray(SPECIES, batch.isCallOptions, i);
+
+            DoubleVector squareRootOfTimeToExpiryInYears = hasTimeTerms
+                    ? DoubleVector.fromArray(SPECIES, batch.squareRootsOfTimeToExpiry, i)
+                    : timeToExpiryInYears.lanewise(SQRT);
+            DoubleVector volatilityOverTime = volatility.mul(squareRootOfTimeToExpiryInYears);
+            DoubleVector adjustedNormalizedDrift = underlyingPrice.div(strike).lanewise(LOG)
+                    .add(interestRate.add(volatility.mul(volatility).mul(0.5)).mul(timeToExpiryInYears))
+                    .div(volatilityOverTime);
+            DoubleVector adjustedNormalizedDriftOffsetByVolatility = adjustedNormalizedDrift.sub(volatilityOverTime);
+            DoubleVector discountFactor = hasTimeTerms
+                    ? DoubleVector.fromArray(SPECIES, batch.discountFactors, i)
+                    : interestRate.neg().mul(timeToExpiryInYears).lanewise(EXP);
+            DoubleVector discountedStrike = strike.mul(discountFactor);
+            DoubleVector density = standardNormalProbabilityDensityFunction(adjustedNormalizedDrift);
+
+            // Call-side probabilities; the put side follows from N(-x) = 1 - N(x).
+            DoubleVector probability = cumulativeNormalDistribution(adjustedNormalizedDrift, one);
+            DoubleVector exerciseProbability = cumulativeNormalDistribution(adjustedNormalizedDriftOffsetByVolatility, one);
+            DoubleVector putProbability = one.sub(probability);
+            DoubleVector putExerciseProbability = one.sub(exerciseProbability);
+
+            DoubleVector callPrice = underlyingPrice.mul(probability).sub(discountedStrike.mul(exerciseProbability));
+            DoubleVector putPrice = discountedStrike.mul(putExerciseProbability).sub(underlyingPrice.mul(putProbability));
+            putPrice.blend(callPrice, isCallOption).intoArray(batch.prices, i);
+
+            probability.sub(one).blend(probability, isCallOption).intoArray(batch.deltas, i);
+            density.div(underlyingPrice.mul(volatilityOverTime)).intoArray(batch.gammas, i);
+            underlyingPrice.mul(density).mul(squareRootOfTimeToExpiryInYears).mul(0.01).intoArray(batch.vegas, i);
+
+            DoubleVector discountedStrikeOverTime = discountedStrike.mul(timeToExpiryInYears).mul(0.01);
+            discountedStrikeOverTime.mul(putExerciseProbability).neg()
+                    .blend(discountedStrikeOverTime.mul(exerciseProbability), isCallOption)
+                    .intoArray(batch.rhos, i);
+
+            DoubleVector firstThetaTerm = underlyingPrice.mul(density).mul(volatility).div(squareRootOfTimeToExpiryInYears.mul(2.0)).neg();
+            DoubleVector discountedStrikeCarry = interestRate.mul(discountedStrike);
+            DoubleVector secondThetaTerm = discountedStrikeCarry.mul(putExerciseProbability)
+                    .blend(discountedStrikeCarry.mul(exerciseProbability).neg(), isCallOption);
+            firstThetaTerm.add(secondThetaTerm).div(dayCountConvention).intoArray(batch.thetas, i);
+        }
+
+        ScalarBlackScholesKernel.calculate(batch, i, size);
+    }
+
+    private static DoubleVector cumulativeNormalDistribution(DoubleVector input, DoubleVector one)
+    {
+        VectorMask<Double> isNegative = input.lt(0.0);
+        DoubleVector normalizedInput = input.abs().mul(INVERSE_SQUARE_ROOT_OF_TWO);
+        DoubleVector t = one.div(one.add(normalizedInput.mul(SCALE_FACTOR)));
+        DoubleVector polynomial = t.mul(COEFFICIENT_5).add(COEFFICIENT_4)
+                .mul(t).add(COEFFICIENT_3)
+                .mul(t).add(COEFFICIENT_2)
+                .mul(t).add(COEFFICIENT_1)
+                .mul(t);
+        DoubleVector errorFunctionApprox = one.sub(polynomial.mul(normalizedInput.mul(normalizedInput).neg().lanewise(EXP)));
+        return one.add(errorFunctionApprox.blend(errorFunctionApprox.neg(), isNegative)).mul(0.5);
+    }
+
+    private static DoubleVector standardNormalProbabilityDensityFunction(DoubleVector x)
+    {
+        return x.mul(x).mul(-0.5).lanewise(EXP).mul(INVERSE_SQUARE_ROOT_OF_TWO_PI);
+    }
+
+    @Override
+    public String getName()
+    {
+        return "vector-" + SPECIES.length() + "x" + SPECIES.elementSize();
+    }
+}
@@ -4,8 +4,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -23,11 +25,14 @@ public class Volatility {
     private String lastUpdatedBy;
     @JsonProperty("lastUpdatedOn")
     private LocalDate lastUpdatedOn;
+    @JsonProperty("lastModified")
+    private Instant lastModified;
 
     public Volatility()
     {
         this.id = UUID.randomUUID();
         this.lastUpdatedOn = LocalDate.now();
+        this.lastModified = Instant.now().truncatedTo(ChronoUnit.MILLIS);
     }
 
     public Volatility(String instrumentCode, Double volatilityPercentage, String lastUpdatedBy)
@@ -38,6 +43,17 @@ public class Volatility {
         this.lastUpdatedBy = lastUpdatedBy;
     }
 
+    // Copies every field, so an instance published in the market data store can be handed out without sharing it.
+    public Volatility(Volatility other)
+    {
+        this.id = other.id;
+        this.instrumentCode = other.instrumentCode;
+        this.volatilityPercentage = other.volatilityPercentage;
+        this.lastUpdatedBy = other.lastUpdatedBy;
+        this.lastUpdatedOn = other.lastUpdatedOn;
+        this.lastModified = other.lastModified;
+    }
+
     public UUID getId() {
         return id;
     }
@@ -78,6 +94,14 @@ public class Volatility {
         this.lastUpdatedOn = lastUpdatedOn;
     }
     
+    public Instant getLastModified() {
+        return lastModified;
+    }
+    
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+    
     @Override
     public boolean equals(Object o)
     {
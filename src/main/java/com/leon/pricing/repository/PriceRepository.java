@@ -3,6 +3,8 @@ package com.leon.pricing.repository;
 import com.leon.pricing.model.Price;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -10,4 +12,6 @@ import java.util.UUID;
 public interface PriceRepository extends MongoRepository<Price, UUID>
 {
     Optional<Price> findByInstrumentCode(String instrumentCode);
+
+    List<Price> findByInstrumentCodeIn(Collection<String> instrumentCodes);
 }
@@ -3,6 +3,8 @@ package com.leon.pricing.repository;
 import com.leon.pricing.model.Volatility;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 @Repository
@@ -10,5 +12,7 @@ public interface VolatilityRepository extends MongoRepository<Volatility, UUID>
 
     Optional<Volatility> findByInstrumentCode(String instrumentCode);
 
+    List<Volatility> findByInstrumentCodeIn(Collection<String> instrumentCodes);
+
     boolean existsByInstrumentCode(String instrumentCode);
 }
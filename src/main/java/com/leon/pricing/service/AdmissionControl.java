@@ -0,0 +1,235 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.ExecutionBackend;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides whether a range, grid or batch request may start, using its estimated CPU time. Each client, identified by
+ * its authenticated principal, its address, or an X-Client-Id header set by a trusted proxy, may run a limited number
+ * of requests at once and has a CPU budget that refills at a fixed rate up to a burst allowance. Across all clients,
+ * work is only admitted while everything already admitted could finish within the backlog limit on the available cores.
+ * A request refused on any of these grounds gets a rejection with the number of seconds after which a retry could
+ * succeed, instead of queueing behind work that would make it miss any reasonable deadline. A request too large ever to
+ * be admitted is refused as invalid. Work whose size is only known once it has run, such as an adaptive simulation, is
+ * admitted on its estimate and settled against the client's budget when it finishes.
+ */
+@Service
+public class AdmissionControl
+{
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+    // Beyond this many clients the least recently seen idle one is dropped to make room for a new one.
+    private static final int MAX_TRACKED_CLIENTS = 10_000;
+
+    @Autowired
+    private ExecutionBackend executionBackend;
+
+    @Value("${pricing.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pricing.admission.client.max.concurrent:2}")
+    private int maxConcurrentPerClient;
+
+    @Value("${pricing.admission.client.cpu.ms.per.second:1000}")
+    private double cpuMsPerSecondPerClient;
+
+    @Value("${pricing.admission.client.cpu.burst.ms:30000}")
+    private double cpuBurstMsPerClient;
+
+    @Value("${pricing.admission.max.backlog.ms:10000}")
+    private double maxBacklogMs;
+
+    // Access order, so the eldest entries are the clients seen least recently.
+    private final LinkedHashMap<String, ClientQuota> clients = new LinkedHashMap<>(16, 0.75f, true);
+    private double backlogCpuMs;
+    private long admitted;
+    private long rejectedConcurrency;
+    private long rejectedBudget;
+    private long rejectedBacklog;
+    private long rejectedTooLarge;
+    private double admittedCpuMs;
+    private double settledCpuMs;
+    private double completedElapsedMs;
+
+    public AdmissionControl() {}
+
+    @PostConstruct
+    private void validateLimits()
+    {
+        if (maxConcurrentPerClient < 1)
+            throw new IllegalArgumentException("pricing.admission.client.max.concurrent must be at least 1");
+        if (cpuMsPerSecondPerClient <= 0 || cpuBurstMsPerClient <= 0 || maxBacklogMs <= 0)
+            throw new IllegalArgumentException("pricing.admission CPU budgets and the backlog limit must be greater than 0");
+
+        logger.info("Admission control {}: {} concurrent requests and {}ms CPU per second (burst {}ms) per client, backlog limit {}ms",
+                enabled ? "enabled" : "disabled", maxConcurrentPerClient, cpuMsPerSecondPerClient, cpuBurstMsPerClient, maxBacklogMs);
+    }
+
+    // Close the returned admission, with try-with-resources or when a stream finishes, to release its slot and backlog.
+    public synchronized Admission admit(String clientId, double estimatedCpuMs)
+    {
+        if (!enabled)
+            return new Admission(null, 0.0);
+
+        long now = System.nanoTime();
+        double requestLimitMs = Math.min(cpuBurstMsPerClient, maxBacklogMs * executionBackend.getParallelism());
+        if (estimatedCpuMs > requestLimitMs)
+        {
+            rejectedTooLarge++;
+            throw new IllegalArgumentException(String.format("Estimated cost of %.0fms CPU exceeds the limit of %.0fms per request", estimatedCpuMs, requestLimitMs));
+        }
+
+        ClientQuota quota = clients.get(clientId);
+        if (quota == null)
+        {
+            evictIdleClient();
+            quota = new ClientQuota(cpuBurstMsPerClient, now);
+            clients.put(clientId, quota);
+        }
+        quota.refill(now, cpuMsPerSecondPerClient, cpuBurstMsPerClient);
+
+        if (quota.inFlight >= maxConcurrentPerClient)
+        {
+            rejectedConcurrency++;
+            throw reject(clientId, "already has " + quota.inFlight + " requests running", quota.inFlightCpuMs / executionBackend.getParallelism());
+        }
+
+        if (quota.availableCpuMs < estimatedCpuMs)
+        {
+            rejectedBudget++;
+            throw reject(clientId, String.format("has %.0fms of its CPU budget left for a request estimated at %.0fms", quota.availableCpuMs, estimatedCpuMs),
+                    (estimatedCpuMs - quota.availableCpuMs) * 1000.0 / cpuMsPerSecondPerClient);
+        }
+
+        double drainMs = (backlogCpuMs + estimatedCpuMs) / executionBackend.getParallelism();
+        if (drainMs > maxBacklogMs)
+        {
+            rejectedBacklog++;
+            throw reject(clientId, String.format("would wait behind %.0fms of admitted work", backlogCpuMs / executionBackend.getParallelism()), drainMs - maxBacklogMs);
+        }
+
+        quota.availableCpuMs -= estimatedCpuMs;
+        quota.inFlight++;
+        quota.inFlightCpuMs += estimatedCpuMs;
+        backlogCpuMs += estimatedCpuMs;
+        admitted++;
+        admittedCpuMs += estimatedCpuMs;
+        return new Admission(clientId, estimatedCpuMs);
+    }
+
+    public synchronized Map<String, Object> getStatistics()
+    {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("admitted", admitted);
+        statistics.put("rejectedConcurrency", rejectedConcurrency);
+        statistics.put("rejectedBudget", rejectedBudget);
+        statistics.put("rejectedBacklog", rejectedBacklog);
+        statistics.put("rejectedTooLarge", rejectedTooLarge);
+        statistics.put("backlogCpuMs", backlogCpuMs);
+        statistics.put("admittedCpuMs", admittedCpuMs);
+        statistics.put("settledCpuMs", settledCpuMs);
+        statistics.put("completedElapsedMs", completedElapsedMs);
+        statistics.put("trackedClients", clients.size());
+        return statistics;
+    }
+
+    private AdmissionRejectedException reject(String clientId, String reason, double retryAfterMs)
+    {
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(retryAfterMs / 1000.0));
+        logger.warn("Rejected request from client {}: it {}; retry after {}s", clientId, reason, retryAfterSeconds);
+        return new AdmissionRejectedException("Client " + clientId + " " + reason, retryAfterSeconds);
+    }
+
+    // Work that turned out larger than its estimate leaves the client in debt until its budget refills; smaller work is refunded.
+    private synchronized void release(String clientId, double estimatedCpuMs, double unestimatedCpuMs, long elapsedNanos)
+    {
+        backlogCpuMs = Math.max(0.0, backlogCpuMs - estimatedCpuMs);
+        completedElapsedMs += elapsedNanos / 1_000_000.0;
+        settledCpuMs += unestimatedCpuMs;
+        ClientQuota quota = clients.get(clientId);
+        if (quota != null)
+        {
+            quota.inFlight--;
+            quota.inFlightCpuMs = Math.max(0.0, quota.inFlightCpuMs - estimatedCpuMs);
+            quota.availableCpuMs = Math.min(cpuBurstMsPerClient, quota.availableCpuMs - unestimatedCpuMs);
+        }
+    }
+
+    // Clients with requests in flight are kept, so only those at the head of the access order are ever passed over.
+    private void evictIdleClient()
+    {
+        if (clients.size() < MAX_TRACKED_CLIENTS)
+            return;
+
+        Iterator<ClientQuota> eldest = clients.values().iterator();
+        while (eldest.hasNext())
+        {
+            if (eldest.next().inFlight == 0)
+            {
+                eldest.remove();
+                return;
+            }
+        }
+    }
+
+    public final class Admission implements AutoCloseable
+    {
+        private final String clientId;
+        private final double estimatedCpuMs;
+        private final long startTime = System.nanoTime();
+        private double unestimatedCpuMs;
+        private boolean closed;
+
+        private Admission(String clientId, double estimatedCpuMs)
+        {
+            this.clientId = clientId;
+            this.estimatedCpuMs = estimatedCpuMs;
+        }
+
+        // CPU time the request used beyond its estimate, negative for less, charged or refunded to the client on close.
+        public synchronized void settle(double unestimatedCpuMs)
+        {
+            this.unestimatedCpuMs = unestimatedCpuMs;
+        }
+
+        // Streams close it from the thread that finished writing, not the one that admitted them.
+        @Override
+        public synchronized void close()
+        {
+            if (closed || clientId == null)
+                return;
+
+            closed = true;
+            release(clientId, estimatedCpuMs, unestimatedCpuMs, System.nanoTime() - startTime);
+        }
+    }
+
+    // Guarded by the enclosing AdmissionControl.
+    private static final class ClientQuota
+    {
+        private double availableCpuMs;
+        private long refilledAt;
+        private int inFlight;
+        private double inFlightCpuMs;
+
+        private ClientQuota(double availableCpuMs, long refilledAt)
+        {
+            this.availableCpuMs = availableCpuMs;
+            this.refilledAt = refilledAt;
+        }
+
+        private void refill(long now, double cpuMsPerSecond, double burstMs)
+        {
+            availableCpuMs = Math.min(burstMs, availableCpuMs + (now - refilledAt) / 1_000_000_000.0 * cpuMsPerSecond);
+            refilledAt = now;
+        }
+    }
+}
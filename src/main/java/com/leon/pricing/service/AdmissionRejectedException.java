@@ -0,0 +1,20 @@
+package com.leon.pricing.service;
+
+// Thrown when a request is turned away by admission control; the controllers answer 429 with the Retry-After given here.
+public class AdmissionRejectedException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds)
+    {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds()
+    {
+        return retryAfterSeconds;
+    }
+}
@@ -1,6 +1,7 @@
 package com.leon.pricing.service;
 
 import com.leon.pricing.model.InterestRate;
+import java.util.Collection;
 import java.util.List;
 
 public interface InterestRateService
@@ -8,5 +9,7 @@ public interface InterestRateService
     List<InterestRate> loadRates();
     InterestRate updateRate(String currencyCode, Double interestRatePercentage, String lastUpdatedBy);
     InterestRate getRate(String currencyCode);
+    List<InterestRate> updateRates(List<InterestRate> rates);
+    List<InterestRate> getRates(Collection<String> currencyCodes);
 
 }
@@ -1,92 +1,97 @@
 package com.leon.pricing.service;
 
 import com.leon.pricing.model.InterestRate;
+import com.leon.pricing.model.MarketDataSnapshot;
+import com.leon.pricing.model.MarketDataStore;
 import com.leon.pricing.repository.InterestRateRepository;
-import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class InterestRateServiceImpl implements InterestRateService
 {
     private static final Logger logger = LoggerFactory.getLogger(InterestRateServiceImpl.class);
-    private final Map<String, InterestRate> rateCache = new HashMap<>();
+    @Autowired
+    private MarketDataStore marketDataStore;
+    @Autowired
+    private MarketDataWriteBehind marketDataWriteBehind;
     @Autowired
     private InterestRateRepository interestRateRepository;
 
-    @PostConstruct
-    private void initializeCache()
-    {
-        try
-        {
-            List<InterestRate> rates = interestRateRepository.findAll();
-            rates.forEach(r -> rateCache.put(r.getCurrencyCode(), r));
-            logger.info("Initialized interest rate cache with {} records", rates.size());
-        }
-        catch (Exception e)
-        {
-            logger.warn("Failed to initialize cache from database: {}", e.getMessage());
-        }
-    }
-    
+    // Filled at startup by MarketDataBootstrap and kept current by MarketDataChangeFollower.
     @Override
     public List<InterestRate> loadRates()
     {
-        if (rateCache.isEmpty())
-            initializeCache();
-        
-        List<InterestRate> result = List.copyOf(rateCache.values());
+        List<InterestRate> result = copiesOf(marketDataStore.snapshot().getInterestRates());
         logger.debug("Loaded {} interest rate records from cache", result.size());
         return result;
     }
     
+    // Published rates are never modified: an update publishes a new instance under the same id and persists that.
     @Override
     public InterestRate updateRate(String currencyCode, Double interestRatePercentage, String lastUpdatedBy)
     {
-        InterestRate existingRate = rateCache.get(currencyCode);
+        InterestRate existingRate = marketDataStore.snapshot().getInterestRate(currencyCode);
+        InterestRate newRate = new InterestRate(currencyCode, interestRatePercentage, lastUpdatedBy);
+        if (existingRate != null)
+            newRate.setId(existingRate.getId());
+
+        // Visible to pricing at once; the database write is coalesced with other updates and flushed behind.
+        marketDataStore.publishInterestRate(newRate);
+        marketDataWriteBehind.writeInterestRate(newRate);
+
         if (existingRate != null)
-        {
-            existingRate.setInterestRatePercentage(interestRatePercentage);
-            existingRate.setLastUpdatedBy(lastUpdatedBy);
-            existingRate.setLastUpdatedOn(LocalDate.now());
-            InterestRate savedRate = interestRateRepository.save(existingRate);
-            rateCache.put(currencyCode, savedRate);
             logger.info("Updated interest rate for currency {}: {}% by user {}", currencyCode, interestRatePercentage, lastUpdatedBy);
-            return savedRate;
-        }
         else
-        {
-            InterestRate newRate = new InterestRate(currencyCode, interestRatePercentage, lastUpdatedBy);
-            InterestRate savedRate = interestRateRepository.save(newRate);
-            rateCache.put(currencyCode, savedRate);
             logger.info("Created new interest rate for currency {}: {}% by user {}", currencyCode, interestRatePercentage, lastUpdatedBy);
-            return savedRate;
+
+        return new InterestRate(newRate);
+    }
+
+    // Applied as one market data version and handed to the write-behind together, so they are persisted in one bulk write.
+    // Where the same interest rate appears more than once, the last entry wins.
+    @Override
+    public List<InterestRate> updateRates(List<InterestRate> rates)
+    {
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        Map<String, InterestRate> newRates = new LinkedHashMap<>();
+        for (InterestRate rate : rates)
+        {
+            InterestRate existingRate = snapshot.getInterestRate(rate.getCurrencyCode());
+            InterestRate newRate = new InterestRate(rate.getCurrencyCode(), rate.getInterestRatePercentage(), rate.getLastUpdatedBy());
+            if (existingRate != null)
+                newRate.setId(existingRate.getId());
+            newRates.put(rate.getCurrencyCode(), newRate);
         }
+
+        marketDataStore.publishInterestRates(newRates.values());
+        marketDataWriteBehind.writeInterestRates(newRates.values());
+        logger.info("Updated {} interest rates in bulk", newRates.size());
+        return copiesOf(newRates.values());
     }
     
     @Override
     public InterestRate getRate(String currencyCode)
     {
-        InterestRate cachedRate = rateCache.get(currencyCode);
+        InterestRate cachedRate = marketDataStore.snapshot().getInterestRate(currencyCode);
         if (cachedRate != null)
-            return cachedRate;
+            return new InterestRate(cachedRate);
         
         try
         {
             Optional<InterestRate> dbRate = interestRateRepository.findByCurrencyCode(currencyCode);
             if (dbRate.isPresent())
-            {
-                InterestRate rate = dbRate.get();
-                rateCache.put(currencyCode, rate);
-                return rate;
-            }
+                return new InterestRate(marketDataStore.publishInterestRateIfAbsent(dbRate.get()));
         }
         catch (Exception e)
         {
@@ -95,4 +100,50 @@ public class InterestRateServiceImpl implements InterestRateService
         
         return null;
     }
+
+    // Codes missing from the store are fetched with a single query and published for later lookups; unknown codes are
+    // left out of the result.
+    @Override
+    public List<InterestRate> getRates(Collection<String> currencyCodes)
+    {
+        Set<String> requestedCodes = new LinkedHashSet<>(currencyCodes);
+        List<String> missingCodes = new ArrayList<>();
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        for (String currencyCode : requestedCodes)
+        {
+            if (snapshot.getInterestRate(currencyCode) == null)
+                missingCodes.add(currencyCode);
+        }
+
+        if (!missingCodes.isEmpty())
+        {
+            try
+            {
+                marketDataStore.publishInterestRatesIfAbsent(interestRateRepository.findByCurrencyCodeIn(missingCodes));
+                snapshot = marketDataStore.snapshot();
+            }
+            catch (Exception e)
+            {
+                logger.warn("Failed to retrieve {} interest rates from database: {}", missingCodes.size(), e.getMessage());
+            }
+        }
+
+        List<InterestRate> result = new ArrayList<>(requestedCodes.size());
+        for (String currencyCode : requestedCodes)
+        {
+            InterestRate rate = snapshot.getInterestRate(currencyCode);
+            if (rate != null)
+                result.add(new InterestRate(rate));
+        }
+        return result;
+    }
+
+    // The store shares its published instances with every reader, so callers outside it only ever get copies.
+    private static List<InterestRate> copiesOf(Collection<InterestRate> rates)
+    {
+        List<InterestRate> copies = new ArrayList<>(rates.size());
+        for (InterestRate rate : rates)
+            copies.add(new InterestRate(rate));
+        return copies;
+    }
 }
@@ -0,0 +1,197 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.InterestRate;
+import com.leon.pricing.model.MarketDataReadiness;
+import com.leon.pricing.model.MarketDataSnapshot;
+import com.leon.pricing.model.MarketDataStore;
+import com.leon.pricing.model.Price;
+import com.leon.pricing.model.Volatility;
+import com.leon.pricing.repository.InterestRateRepository;
+import com.leon.pricing.repository.PriceRepository;
+import com.leon.pricing.repository.VolatilityRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the market data store at startup without waiting on the database. The local snapshot file written on the previous
+ * run is loaded first, so prices, volatilities and rates are available within milliseconds, and the store is then
+ * reconciled with the database on a background thread, retrying until it answers. Entries modified locally in the
+ * meantime are kept over older database copies, including copies with no timestamp at all. The store is written back to
+ * the snapshot file periodically, whenever it has changed, and on shutdown.
+ */
+@Service
+public class MarketDataBootstrap
+{
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataBootstrap.class);
+
+    @Autowired
+    private MarketDataStore marketDataStore;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private VolatilityRepository volatilityRepository;
+
+    @Autowired
+    private InterestRateRepository interestRateRepository;
+
+    @Value("${pricing.marketdata.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${pricing.marketdata.snapshot.path:market-data.snapshot}")
+    private String snapshotPath;
+
+    @Value("${pricing.marketdata.snapshot.save.interval.ms:60000}")
+    private long snapshotSaveIntervalMs;
+
+    @Value("${pricing.marketdata.reconcile.retry.ms:30000}")
+    private long reconcileRetryMs;
+
+    private volatile MarketDataReadiness readiness = MarketDataReadiness.COLD;
+    private volatile Instant lastReconciled;
+    private volatile Instant lastSnapshotSaved;
+    private long savedVersion = -1;
+    private ScheduledExecutorService scheduler;
+
+    public MarketDataBootstrap() {}
+
+    @PostConstruct
+    private void start()
+    {
+        if (snapshotEnabled)
+            loadSnapshot();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "MarketDataBootstrap");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::reconcile);
+        if (snapshotEnabled)
+            scheduler.scheduleWithFixedDelay(this::saveSnapshotQuietly, snapshotSaveIntervalMs, snapshotSaveIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void stop()
+    {
+        scheduler.shutdownNow();
+        if (snapshotEnabled)
+            saveSnapshotQuietly();
+    }
+
+    public MarketDataReadiness getReadiness()
+    {
+        return readiness;
+    }
+
+    public Map<String, Object> getStatus()
+    {
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("readiness", readiness);
+        status.put("prices", snapshot.getPriceCount());
+        status.put("volatilities", snapshot.getVolatilityCount());
+        status.put("interestRates", snapshot.getInterestRateCount());
+        status.put("lastReconciled", lastReconciled);
+        status.put("snapshotFile", snapshotEnabled ? Path.of(snapshotPath).toAbsolutePath().toString() : null);
+        status.put("lastSnapshotSaved", lastSnapshotSaved);
+        return status;
+    }
+
+    private void loadSnapshot()
+    {
+        Path path = Path.of(snapshotPath);
+        if (!Files.exists(path))
+        {
+            logger.info("No local market data snapshot at {}; market data will be available once the database answers", path.toAbsolutePath());
+            return;
+        }
+
+        try
+        {
+            long startTime = System.nanoTime();
+            MarketDataSnapshotFile.Contents contents = MarketDataSnapshotFile.read(path);
+            marketDataStore.publishPrices(contents.prices());
+            marketDataStore.publishVolatilities(contents.volatilities());
+            marketDataStore.publishInterestRates(contents.interestRates());
+            savedVersion = marketDataStore.getVersion();
+            readiness = MarketDataReadiness.WARM_STALE;
+            logger.info("Loaded {} prices, {} volatilities and {} interest rates from the local snapshot {} in {}ms", contents.prices().size(),
+                    contents.volatilities().size(), contents.interestRates().size(), path.toAbsolutePath(), (System.nanoTime() - startTime) / 1_000_000);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Ignoring unreadable market data snapshot {}: {}", path.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    // Runs on the scheduler thread and reschedules itself until the database answers.
+    private void reconcile()
+    {
+        try
+        {
+            List<Price> prices = priceRepository.findAll();
+            List<Volatility> volatilities = volatilityRepository.findAll();
+            List<InterestRate> interestRates = interestRateRepository.findAll();
+            marketDataStore.reconcilePrices(prices);
+            marketDataStore.reconcileVolatilities(volatilities);
+            marketDataStore.reconcileInterestRates(interestRates);
+
+            lastReconciled = Instant.now();
+            readiness = MarketDataReadiness.READY;
+            logger.info("Reconciled market data with the database: {} prices, {} volatilities and {} interest rates", prices.size(), volatilities.size(), interestRates.size());
+        }
+        catch (Exception e)
+        {
+            if (scheduler.isShutdown())
+                return;
+
+            logger.warn("Failed to load market data from the database, serving {} data and retrying in {}ms: {}",
+                    readiness == MarketDataReadiness.WARM_STALE ? "snapshot" : "no", reconcileRetryMs, e.getMessage());
+            scheduler.schedule(this::reconcile, reconcileRetryMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void saveSnapshotQuietly()
+    {
+        try
+        {
+            saveSnapshot();
+        }
+        catch (Exception e)
+        {
+            logger.warn("Failed to save the local market data snapshot to {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    // Skipped while nothing has been published since the last save, and while the store is empty so that a cold start
+    // against an unreachable database never replaces a good snapshot with an empty one.
+    private synchronized void saveSnapshot() throws Exception
+    {
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        if (snapshot.getVersion() == savedVersion || snapshot.getPriceCount() + snapshot.getVolatilityCount() + snapshot.getInterestRateCount() == 0)
+            return;
+
+        long startTime = System.nanoTime();
+        MarketDataSnapshotFile.write(Path.of(snapshotPath), snapshot);
+        savedVersion = snapshot.getVersion();
+        lastSnapshotSaved = Instant.now();
+        logger.debug("Saved {} to {} in {}ms", snapshot, snapshotPath, (System.nanoTime() - startTime) / 1_000_000);
+    }
+}
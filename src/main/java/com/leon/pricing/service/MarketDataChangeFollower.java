@@ -0,0 +1,271 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.InterestRate;
+import com.leon.pricing.model.MarketDataStore;
+import com.leon.pricing.model.Price;
+import com.leon.pricing.model.Volatility;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keeps this instance's market data in step with writes made by other instances. It follows the MongoDB change stream on
+ * the prices, volatilities and interestRates collections and publishes each change into the market data store. Where
+ * change streams are unavailable (a standalone mongod, or pricing.marketdata.change.stream.enabled=false) it polls each
+ * collection for documents modified since the last one it saw, and retries the change stream periodically. Writers stamp
+ * lastModified when they build a document, not when it lands, so with concurrent writers, the write-behind delay or clock
+ * skew a document can arrive after a later-stamped one has been read; each poll therefore reaches back an overlap window
+ * behind the latest stamp seen. Every time the stream is (re)opened a catch-up poll covers whatever was written while it
+ * was down. Re-reading a document is harmless because the store only ever keeps the most recently modified entry.
+ */
+@Service
+public class MarketDataChangeFollower
+{
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataChangeFollower.class);
+    private static final String LAST_MODIFIED_FIELD = "lastModified";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MarketDataStore marketDataStore;
+
+    @Value("${pricing.marketdata.follow.enabled:true}")
+    private boolean followEnabled;
+
+    @Value("${pricing.marketdata.change.stream.enabled:true}")
+    private boolean changeStreamEnabled;
+
+    @Value("${pricing.marketdata.poll.interval.ms:5000}")
+    private long pollIntervalMs;
+
+    @Value("${pricing.marketdata.poll.overlap.ms:5000}")
+    private long pollOverlapMs;
+
+    @Value("${pricing.marketdata.change.stream.retry.ms:60000}")
+    private long changeStreamRetryMs;
+
+    private volatile boolean running;
+    private volatile Thread followerThread;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+    // High-water marks for the incremental poll; only touched by the follower thread.
+    private Instant pricesModifiedUpTo = Instant.EPOCH;
+    private Instant volatilitiesModifiedUpTo = Instant.EPOCH;
+    private Instant interestRatesModifiedUpTo = Instant.EPOCH;
+    private boolean indexesEnsured;
+
+    public MarketDataChangeFollower() {}
+
+    // Starts once the services have loaded their initial market data, so the first poll only fetches what changed since.
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFollowing()
+    {
+        if (!followEnabled)
+        {
+            logger.info("Market data change following is disabled; this instance will not see updates made by other instances");
+            return;
+        }
+
+        running = true;
+        followerThread = new Thread(this::follow, "MarketDataFollower");
+        followerThread.setDaemon(true);
+        followerThread.start();
+    }
+
+    @PreDestroy
+    private void stopFollowing()
+    {
+        running = false;
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor = cursor;
+        if (openCursor != null)
+            openCursor.close();
+
+        Thread thread = followerThread;
+        if (thread != null)
+            thread.interrupt();
+    }
+
+    private void follow()
+    {
+        pricesModifiedUpTo = latest(marketDataStore.snapshot().getPrices(), Price::getLastModified, Instant.EPOCH);
+        volatilitiesModifiedUpTo = latest(marketDataStore.snapshot().getVolatilities(), Volatility::getLastModified, Instant.EPOCH);
+        interestRatesModifiedUpTo = latest(marketDataStore.snapshot().getInterestRates(), InterestRate::getLastModified, Instant.EPOCH);
+
+        while (running)
+        {
+            if (changeStreamEnabled)
+            {
+                try
+                {
+                    followChangeStream();
+                }
+                catch (Exception e)
+                {
+                    if (!running)
+                        break;
+
+                    logger.warn("Market data change stream unavailable, polling every {}ms and retrying the stream in {}ms: {}", pollIntervalMs, changeStreamRetryMs, e.getMessage());
+                }
+            }
+
+            pollUntil(changeStreamEnabled ? System.currentTimeMillis() + changeStreamRetryMs : Long.MAX_VALUE);
+        }
+    }
+
+    private void followChangeStream()
+    {
+        List<String> collections = List.of(mongoTemplate.getCollectionName(Price.class), mongoTemplate.getCollectionName(Volatility.class), mongoTemplate.getCollectionName(InterestRate.class));
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", collections))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .cursor())
+        {
+            cursor = openCursor;
+            // The stream only reports changes from the moment it opened; anything before that is fetched by one poll.
+            pollOnce();
+            logger.info("Following the market data change stream on {}", collections);
+
+            while (running)
+            {
+                ChangeStreamDocument<Document> change = openCursor.tryNext();
+                if (change != null)
+                    apply(change);
+            }
+        }
+        finally
+        {
+            cursor = null;
+        }
+    }
+
+    void apply(ChangeStreamDocument<Document> change)
+    {
+        OperationType operation = change.getOperationType();
+        Document document = change.getFullDocument();
+        if (document == null || (operation != OperationType.INSERT && operation != OperationType.UPDATE && operation != OperationType.REPLACE))
+        {
+            // The service never deletes market data, so deletes and collection-level events are not mirrored.
+            logger.debug("Ignoring market data change {} on {}", operation, change.getNamespace());
+            return;
+        }
+
+        String collection = change.getNamespace().getCollectionName();
+        if (collection.equals(mongoTemplate.getCollectionName(Price.class)))
+        {
+            Price price = mongoTemplate.getConverter().read(Price.class, document);
+            marketDataStore.publishPricesIfNewer(List.of(price));
+            pricesModifiedUpTo = latest(List.of(price), Price::getLastModified, pricesModifiedUpTo);
+        }
+        else if (collection.equals(mongoTemplate.getCollectionName(Volatility.class)))
+        {
+            Volatility volatility = mongoTemplate.getConverter().read(Volatility.class, document);
+            marketDataStore.publishVolatilitiesIfNewer(List.of(volatility));
+            volatilitiesModifiedUpTo = latest(List.of(volatility), Volatility::getLastModified, volatilitiesModifiedUpTo);
+        }
+        else if (collection.equals(mongoTemplate.getCollectionName(InterestRate.class)))
+        {
+            InterestRate interestRate = mongoTemplate.getConverter().read(InterestRate.class, document);
+            marketDataStore.publishInterestRatesIfNewer(List.of(interestRate));
+            interestRatesModifiedUpTo = latest(List.of(interestRate), InterestRate::getLastModified, interestRatesModifiedUpTo);
+        }
+    }
+
+    private void pollUntil(long deadline)
+    {
+        while (running && System.currentTimeMillis() < deadline)
+        {
+            try
+            {
+                pollOnce();
+            }
+            catch (Exception e)
+            {
+                logger.warn("Market data poll failed: {}", e.getMessage());
+            }
+
+            try
+            {
+                Thread.sleep(pollIntervalMs);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    void pollOnce()
+    {
+        if (!indexesEnsured)
+        {
+            // Created here rather than through auto index creation so that startup never waits on the database. The code
+            // indexes serve single and bulk lookups; they are not unique because older data may hold duplicates.
+            for (Class<?> entityClass : List.of(Price.class, Volatility.class, InterestRate.class))
+                mongoTemplate.indexOps(entityClass).ensureIndex(new Index(LAST_MODIFIED_FIELD, Sort.Direction.ASC));
+            mongoTemplate.indexOps(Price.class).ensureIndex(new Index("instrumentCode", Sort.Direction.ASC));
+            mongoTemplate.indexOps(Volatility.class).ensureIndex(new Index("instrumentCode", Sort.Direction.ASC));
+            mongoTemplate.indexOps(InterestRate.class).ensureIndex(new Index("currencyCode", Sort.Direction.ASC));
+            indexesEnsured = true;
+        }
+
+        long version = marketDataStore.getVersion();
+        List<Price> prices = mongoTemplate.find(modifiedSince(pricesModifiedUpTo), Price.class);
+        marketDataStore.publishPricesIfNewer(prices);
+        pricesModifiedUpTo = latest(prices, Price::getLastModified, pricesModifiedUpTo);
+
+        List<Volatility> volatilities = mongoTemplate.find(modifiedSince(volatilitiesModifiedUpTo), Volatility.class);
+        marketDataStore.publishVolatilitiesIfNewer(volatilities);
+        volatilitiesModifiedUpTo = latest(volatilities, Volatility::getLastModified, volatilitiesModifiedUpTo);
+
+        List<InterestRate> interestRates = mongoTemplate.find(modifiedSince(interestRatesModifiedUpTo), InterestRate.class);
+        marketDataStore.publishInterestRatesIfNewer(interestRates);
+        interestRatesModifiedUpTo = latest(interestRates, InterestRate::getLastModified, interestRatesModifiedUpTo);
+
+        // Most polls only re-read the overlap window, so only those that changed something are worth reporting.
+        if (marketDataStore.getVersion() != version)
+            logger.info("Applied changes from the database after reading {} prices, {} volatilities and {} interest rates", prices.size(), volatilities.size(), interestRates.size());
+    }
+
+    // Inclusive, because several documents can share a millisecond, and reaching back by the overlap for documents that
+    // landed after a later-stamped one was read.
+    private Query modifiedSince(Instant since)
+    {
+        Instant from = since.equals(Instant.EPOCH) ? since : since.minusMillis(pollOverlapMs);
+        return new Query(Criteria.where(LAST_MODIFIED_FIELD).gte(from)).with(Sort.by(LAST_MODIFIED_FIELD));
+    }
+
+    private static <T> Instant latest(List<T> entries, Function<T, Instant> lastModified, Instant current)
+    {
+        Instant latest = current;
+        for (T entry : entries)
+        {
+            Instant modified = lastModified.apply(entry);
+            if (modified != null && modified.isAfter(latest))
+                latest = modified;
+        }
+        return latest;
+    }
+}
@@ -0,0 +1,247 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.InterestRate;
+import com.leon.pricing.model.MarketDataSnapshot;
+import com.leon.pricing.model.Price;
+import com.leon.pricing.model.Volatility;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary copy of the market data held in memory, so a restart can serve from it before the database answers.
+ * The file is a header, the prices, volatilities and interest rates as fixed field sequences, and a CRC32 of everything
+ * before it. It is written to a temporary file and moved into place, so a crash mid-write leaves the previous copy intact,
+ * and read through a memory mapping.
+ */
+final class MarketDataSnapshotFile
+{
+    private static final int MAGIC = 0x4D4B5444; // "MKTD"
+    private static final int FORMAT_VERSION = 1;
+
+    record Contents(List<Price> prices, List<Volatility> volatilities, List<InterestRate> interestRates) {}
+
+    private MarketDataSnapshotFile() {}
+
+    static void write(Path path, MarketDataSnapshot snapshot) throws IOException
+    {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try
+        {
+            CRC32 checksum = new CRC32();
+            try (OutputStream file = Files.newOutputStream(temporary);
+                 DataOutputStream output = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), checksum)))
+            {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+
+                List<Price> prices = snapshot.getPrices();
+                output.writeInt(prices.size());
+                for (Price price : prices)
+                {
+                    writeId(output, price.getId());
+                    writeString(output, price.getInstrumentCode());
+                    writeDouble(output, price.getClosePrice());
+                    writeDouble(output, price.getOpenPrice());
+                    writeString(output, price.getLastUpdatedBy());
+                    writeDate(output, price.getLastUpdatedOn());
+                    writeInstant(output, price.getLastModified());
+                }
+
+                List<Volatility> volatilities = snapshot.getVolatilities();
+                output.writeInt(volatilities.size());
+                for (Volatility volatility : volatilities)
+                {
+                    writeId(output, volatility.getId());
+                    writeString(output, volatility.getInstrumentCode());
+                    writeDouble(output, volatility.getVolatilityPercentage());
+                    writeString(output, volatility.getLastUpdatedBy());
+                    writeDate(output, volatility.getLastUpdatedOn());
+                    writeInstant(output, volatility.getLastModified());
+                }
+
+                List<InterestRate> interestRates = snapshot.getInterestRates();
+                output.writeInt(interestRates.size());
+                for (InterestRate interestRate : interestRates)
+                {
+                    writeId(output, interestRate.getId());
+                    writeString(output, interestRate.getCurrencyCode());
+                    writeDouble(output, interestRate.getInterestRatePercentage());
+                    writeString(output, interestRate.getLastUpdatedBy());
+                    writeDate(output, interestRate.getLastUpdatedOn());
+                    writeInstant(output, interestRate.getLastModified());
+                }
+
+                output.flush();
+                // Appended to the file directly so that it is not part of what it checks.
+                long crc = checksum.getValue();
+                file.write(ByteBuffer.allocate(Long.BYTES).putLong(crc).array());
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    static Contents read(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size < 2 * Integer.BYTES + Long.BYTES || size > Integer.MAX_VALUE)
+                throw new IOException("Market data snapshot " + path + " has an invalid size of " + size + " bytes");
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodyLength = (int) size - Long.BYTES;
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.slice(0, bodyLength));
+            if (checksum.getValue() != buffer.getLong(bodyLength))
+                throw new IOException("Market data snapshot " + path + " is corrupt: checksum mismatch");
+
+            ByteBuffer body = buffer.slice(0, bodyLength);
+            if (body.getInt() != MAGIC)
+                throw new IOException(path + " is not a market data snapshot");
+            int formatVersion = body.getInt();
+            if (formatVersion != FORMAT_VERSION)
+                throw new IOException("Market data snapshot " + path + " has unsupported format version " + formatVersion);
+
+            int priceCount = body.getInt();
+            List<Price> prices = new ArrayList<>(priceCount);
+            for (int i = 0; i < priceCount; i++)
+            {
+                Price price = new Price();
+                price.setId(readId(body));
+                price.setInstrumentCode(readString(body));
+                price.setClosePrice(readDouble(body));
+                price.setOpenPrice(readDouble(body));
+                price.setLastUpdatedBy(readString(body));
+                price.setLastUpdatedOn(readDate(body));
+                price.setLastModified(readInstant(body));
+                prices.add(price);
+            }
+
+            int volatilityCount = body.getInt();
+            List<Volatility> volatilities = new ArrayList<>(volatilityCount);
+            for (int i = 0; i < volatilityCount; i++)
+            {
+                Volatility volatility = new Volatility();
+                volatility.setId(readId(body));
+                volatility.setInstrumentCode(readString(body));
+                volatility.setVolatilityPercentage(readDouble(body));
+                volatility.setLastUpdatedBy(readString(body));
+                volatility.setLastUpdatedOn(readDate(body));
+                volatility.setLastModified(readInstant(body));
+                volatilities.add(volatility);
+            }
+
+            int interestRateCount = body.getInt();
+            List<InterestRate> interestRates = new ArrayList<>(interestRateCount);
+            for (int i = 0; i < interestRateCount; i++)
+            {
+                InterestRate interestRate = new InterestRate();
+                interestRate.setId(readId(body));
+                interestRate.setCurrencyCode(readString(body));
+                interestRate.setInterestRatePercentage(readDouble(body));
+                interestRate.setLastUpdatedBy(readString(body));
+                interestRate.setLastUpdatedOn(readDate(body));
+                interestRate.setLastModified(readInstant(body));
+                interestRates.add(interestRate);
+            }
+
+            return new Contents(prices, volatilities, interestRates);
+        }
+    }
+
+    private static void writeId(DataOutputStream output, UUID id) throws IOException
+    {
+        output.writeBoolean(id != null);
+        if (id != null)
+        {
+            output.writeLong(id.getMostSignificantBits());
+            output.writeLong(id.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readId(ByteBuffer input)
+    {
+        return input.get() != 0 ? new UUID(input.getLong(), input.getLong()) : null;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException
+    {
+        if (value == null)
+        {
+            output.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer input)
+    {
+        int length = input.getInt();
+        if (length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Market data values are never NaN, so it stands in for a missing one.
+    private static void writeDouble(DataOutputStream output, Double value) throws IOException
+    {
+        output.writeDouble(value != null ? value : Double.NaN);
+    }
+
+    private static Double readDouble(ByteBuffer input)
+    {
+        double value = input.getDouble();
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static void writeDate(DataOutputStream output, LocalDate value) throws IOException
+    {
+        output.writeLong(value != null ? value.toEpochDay() : Long.MIN_VALUE);
+    }
+
+    private static LocalDate readDate(ByteBuffer input)
+    {
+        long epochDay = input.getLong();
+        return epochDay != Long.MIN_VALUE ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+
+    private static void writeInstant(DataOutputStream output, Instant value) throws IOException
+    {
+        output.writeLong(value != null ? value.toEpochMilli() : Long.MIN_VALUE);
+    }
+
+    private static Instant readInstant(ByteBuffer input)
+    {
+        long epochMilli = input.getLong();
+        return epochMilli != Long.MIN_VALUE ? Instant.ofEpochMilli(epochMilli) : null;
+    }
+}
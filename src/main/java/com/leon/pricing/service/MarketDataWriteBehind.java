@@ -0,0 +1,347 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.InterestRate;
+import com.leon.pricing.model.Price;
+import com.leon.pricing.model.Volatility;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Write-behind persistence for price, volatility and interest rate updates. Callers publish the new version to the
+ * market data store first, so it is visible immediately, and hand it here. Pending writes are held per instrument or
+ * currency, so a burst of updates to the same one between flushes is written once, as its latest version. A single
+ * flusher thread writes everything pending as one unordered bulk upsert per collection every flush interval. In
+ * durable mode flushes wait for a journaled majority acknowledgement and the caller waits for the flush that carries
+ * its update; otherwise the caller returns at once. Failed flushes are retried on the next interval unless a newer
+ * version of the instrument has arrived meanwhile.
+ */
+@Service
+public class MarketDataWriteBehind
+{
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataWriteBehind.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${pricing.marketdata.write.behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pricing.marketdata.write.behind.flush.interval.ms:100}")
+    private long flushIntervalMs;
+
+    @Value("${pricing.marketdata.write.behind.durable:false}")
+    private boolean durable;
+
+    @Value("${pricing.marketdata.write.behind.durable.timeout.ms:10000}")
+    private long durableTimeoutMs;
+
+    private final PendingWrites<Price> pendingPrices = new PendingWrites<>(Price.class, "instrumentCode", Price::getInstrumentCode);
+    private final PendingWrites<Volatility> pendingVolatilities = new PendingWrites<>(Volatility.class, "instrumentCode", Volatility::getInstrumentCode);
+    private final PendingWrites<InterestRate> pendingInterestRates = new PendingWrites<>(InterestRate.class, "currencyCode", InterestRate::getCurrencyCode);
+    private ScheduledExecutorService flusher;
+
+    private final AtomicLong writesRequested = new AtomicLong();
+    private final AtomicLong writesCoalesced = new AtomicLong();
+    private final AtomicLong documentsWritten = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong totalFlushTimeMs = new AtomicLong();
+    private final AtomicLong maxFlushTimeMs = new AtomicLong();
+    private final AtomicLong maxFlushSize = new AtomicLong();
+    private volatile long lastFlushTimeMs;
+    private volatile int lastFlushSize;
+
+    public MarketDataWriteBehind() {}
+
+    @PostConstruct
+    private void startFlusher()
+    {
+        if (!enabled)
+        {
+            logger.info("Market data write-behind disabled; market data updates are saved on the request thread");
+            return;
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "MarketDataWriteBehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Market data write-behind flushing every {}ms with {} acknowledgement", flushIntervalMs, durable ? "journaled majority" : "primary");
+    }
+
+    // Writes whatever is still pending before the application stops.
+    @PreDestroy
+    private void stopFlusher() throws InterruptedException
+    {
+        if (flusher == null)
+            return;
+
+        flusher.shutdown();
+        flusher.awaitTermination(durableTimeoutMs, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    public void writePrice(Price price)
+    {
+        write(pendingPrices, List.of(price));
+    }
+
+    public void writePrices(Collection<Price> prices)
+    {
+        write(pendingPrices, prices);
+    }
+
+    public void writeVolatility(Volatility volatility)
+    {
+        write(pendingVolatilities, List.of(volatility));
+    }
+
+    public void writeVolatilities(Collection<Volatility> volatilities)
+    {
+        write(pendingVolatilities, volatilities);
+    }
+
+    public void writeInterestRate(InterestRate interestRate)
+    {
+        write(pendingInterestRates, List.of(interestRate));
+    }
+
+    public void writeInterestRates(Collection<InterestRate> interestRates)
+    {
+        write(pendingInterestRates, interestRates);
+    }
+
+    private <T> void write(PendingWrites<T> pending, Collection<T> entities)
+    {
+        writesRequested.addAndGet(entities.size());
+        if (!enabled)
+        {
+            bulkUpsert(pending, entities);
+            documentsWritten.addAndGet(entities.size());
+            return;
+        }
+
+        CompletableFuture<?>[] flushed = new CompletableFuture<?>[entities.size()];
+        int index = 0;
+        for (T entity : entities)
+            flushed[index++] = pending.add(entity);
+        if (!durable)
+            return;
+
+        String description = entities.size() + " " + pending.entityClass.getSimpleName() + " update(s)";
+        try
+        {
+            CompletableFuture.allOf(flushed).get(durableTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException("Failed to persist " + description + "; they are still queued for retry", e.getCause());
+        }
+        catch (TimeoutException e)
+        {
+            throw new RuntimeException("Timed out after " + durableTimeoutMs + "ms waiting to persist " + description + "; they are still queued", e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting to persist " + description, e);
+        }
+    }
+
+    // Only ever runs on the flusher thread, or after it has stopped, so flushes never overlap.
+    private void flush()
+    {
+        long startTime = System.currentTimeMillis();
+        int written = flush(pendingPrices) + flush(pendingVolatilities) + flush(pendingInterestRates);
+        if (written == 0)
+            return;
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        flushCount.incrementAndGet();
+        documentsWritten.addAndGet(written);
+        totalFlushTimeMs.addAndGet(elapsed);
+        maxFlushTimeMs.accumulateAndGet(elapsed, Math::max);
+        maxFlushSize.accumulateAndGet(written, Math::max);
+        lastFlushTimeMs = elapsed;
+        lastFlushSize = written;
+        logger.debug("Flushed {} market data writes in {}ms", written, elapsed);
+    }
+
+    private <T> int flush(PendingWrites<T> pending)
+    {
+        List<PendingWrite<T>> batch = pending.drain();
+        if (batch.isEmpty())
+            return 0;
+
+        try
+        {
+            List<T> entities = new ArrayList<>(batch.size());
+            for (PendingWrite<T> write : batch)
+                entities.add(write.entity);
+            bulkUpsert(pending, entities);
+            for (PendingWrite<T> write : batch)
+                write.flushed.complete(null);
+            return batch.size();
+        }
+        catch (Exception e)
+        {
+            failedFlushCount.incrementAndGet();
+            logger.warn("Failed to flush {} {} writes, will retry: {}", batch.size(), pending.entityClass.getSimpleName(), e.getMessage());
+            for (PendingWrite<T> write : batch)
+            {
+                pending.retry(write.entity);
+                write.flushed.completeExceptionally(e);
+            }
+            return 0;
+        }
+    }
+
+    // One unordered bulk write of upserts keyed on the instrument or currency code, however many entities there are. An
+    // update made before this instance had seen the existing document carries a freshly minted id, so the id is only set
+    // when the upsert inserts; otherwise the existing document keeps its own and no duplicate is created for the code.
+    // Mapped fields that are now null are unset, so the document ends up as a replace by id would have left it.
+    private <T> void bulkUpsert(PendingWrites<T> pending, Collection<T> entities)
+    {
+        if (entities.isEmpty())
+            return;
+
+        List<String> fieldNames = new ArrayList<>();
+        for (MongoPersistentProperty property : mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(pending.entityClass))
+        {
+            if (!property.isIdProperty())
+                fieldNames.add(property.getFieldName());
+        }
+
+        List<UpdateOneModel<Document>> upserts = new ArrayList<>(entities.size());
+        for (T entity : entities)
+        {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(entity, document);
+            Object id = document.remove("_id");
+
+            Document unset = new Document();
+            for (String fieldName : fieldNames)
+            {
+                if (!document.containsKey(fieldName))
+                    unset.append(fieldName, "");
+            }
+
+            Document update = new Document("$set", document).append("$setOnInsert", new Document("_id", id));
+            if (!unset.isEmpty())
+                update.append("$unset", unset);
+            upserts.add(new UpdateOneModel<>(Filters.eq(pending.keyField, document.get(pending.keyField)), update, new UpdateOptions().upsert(true)));
+        }
+
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(pending.entityClass))
+                .withWriteConcern(durable ? WriteConcern.MAJORITY.withJournal(true) : WriteConcern.ACKNOWLEDGED)
+                .bulkWrite(upserts, new BulkWriteOptions().ordered(false));
+    }
+
+    public Map<String, Object> getStatistics()
+    {
+        long flushes = flushCount.get();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("durable", durable);
+        statistics.put("flushIntervalMs", flushIntervalMs);
+        statistics.put("pendingPrices", pendingPrices.size());
+        statistics.put("pendingVolatilities", pendingVolatilities.size());
+        statistics.put("pendingInterestRates", pendingInterestRates.size());
+        statistics.put("writesRequested", writesRequested.get());
+        statistics.put("writesCoalesced", writesCoalesced.get());
+        statistics.put("documentsWritten", documentsWritten.get());
+        statistics.put("flushCount", flushes);
+        statistics.put("failedFlushCount", failedFlushCount.get());
+        statistics.put("averageFlushTimeMs", flushes > 0 ? (double) totalFlushTimeMs.get() / flushes : 0.0);
+        statistics.put("maxFlushTimeMs", maxFlushTimeMs.get());
+        statistics.put("lastFlushTimeMs", lastFlushTimeMs);
+        statistics.put("averageFlushSize", flushes > 0 ? (double) documentsWritten.get() / flushes : 0.0);
+        statistics.put("maxFlushSize", maxFlushSize.get());
+        statistics.put("lastFlushSize", lastFlushSize);
+        return statistics;
+    }
+
+    private record PendingWrite<T>(T entity, CompletableFuture<Void> flushed) {}
+
+    private final class PendingWrites<T>
+    {
+        private final Class<T> entityClass;
+        private final String keyField;
+        private final Function<T, String> keyOf;
+        private final ConcurrentHashMap<String, PendingWrite<T>> writes = new ConcurrentHashMap<>();
+
+        private PendingWrites(Class<T> entityClass, String keyField, Function<T, String> keyOf)
+        {
+            this.entityClass = entityClass;
+            this.keyField = keyField;
+            this.keyOf = keyOf;
+        }
+
+        // A newer version replaces the pending one but keeps its future, so earlier callers are released by the same flush.
+        CompletableFuture<Void> add(T entity)
+        {
+            return writes.compute(keyOf.apply(entity), (key, pendingWrite) ->
+            {
+                if (pendingWrite == null)
+                    return new PendingWrite<>(entity, new CompletableFuture<>());
+
+                writesCoalesced.incrementAndGet();
+                return new PendingWrite<>(entity, pendingWrite.flushed);
+            }).flushed;
+        }
+
+        // A failed version goes back only if nothing newer for the instrument has been queued since it was drained.
+        void retry(T entity)
+        {
+            writes.putIfAbsent(keyOf.apply(entity), new PendingWrite<>(entity, new CompletableFuture<>()));
+        }
+
+        // Removing key by key hands each instrument's latest version to this flush; anything added after goes in the next.
+        List<PendingWrite<T>> drain()
+        {
+            List<PendingWrite<T>> batch = new ArrayList<>(writes.size());
+            for (String key : writes.keySet())
+            {
+                PendingWrite<T> pendingWrite = writes.remove(key);
+                if (pendingWrite != null)
+                    batch.add(pendingWrite);
+            }
+            return batch;
+        }
+
+        int size()
+        {
+            return writes.size();
+        }
+    }
+}
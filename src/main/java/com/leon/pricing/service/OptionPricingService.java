@@ -1,14 +1,30 @@
 package com.leon.pricing.service;
 
+import com.leon.pricing.model.BatchPricingResultSet;
+import com.leon.pricing.model.GridCalculationRequest;
+import com.leon.pricing.model.InstrumentPriceResult;
+import com.leon.pricing.model.InstrumentPricingRequest;
+import com.leon.pricing.model.OptionPriceGrid;
 import com.leon.pricing.model.OptionPriceResult;
 import com.leon.pricing.model.OptionPriceResultSet;
 import com.leon.pricing.model.OptionPricingRequest;
 import com.leon.pricing.model.RangeCalculationRequest;
+import com.leon.pricing.model.RangeResultStream;
+import java.util.List;
 
 public interface OptionPricingService
 {
     OptionPriceResult calculateOptionPrice(OptionPricingRequest request);
+    InstrumentPriceResult calculateInstrumentPrice(InstrumentPricingRequest request);
     OptionPriceResultSet calculateRange(OptionPricingRequest baseRequest, String rangeKey, double startValue, double endValue, double increment);
     OptionPriceResultSet calculateRange(RangeCalculationRequest request);
+    RangeResultStream openRangeStream(RangeCalculationRequest request);
+    OptionPriceGrid calculateGrid(GridCalculationRequest request);
+    BatchPricingResultSet calculateBatch(List<OptionPricingRequest> requests);
+    double estimateRangeCpuMs(OptionPricingRequest baseRequest, String rangeKey, double startValue, double endValue, double increment);
+    double estimateGridCpuMs(GridCalculationRequest request);
+    double estimateBatchCpuMs(List<OptionPricingRequest> requests);
+    double unestimatedCpuMs(OptionPricingRequest baseRequest, long points, long pathCount);
+    double unestimatedBatchCpuMs(List<OptionPricingRequest> requests, BatchPricingResultSet resultSet);
     String getModelDetails();
 }
@@ -4,17 +4,31 @@ import com.leon.pricing.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.HashMap;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executor;
+import java.util.NoSuchElementException;
 
 @Service
 public class OptionPricingServiceImpl implements OptionPricingService
 {
     private static final Logger logger = LoggerFactory.getLogger(OptionPricingServiceImpl.class);
+    private static final int MIN_BATCH_CHUNK_SIZE = 64;
+    // Streamed ranges start with a block small enough to return quickly and double up to a bound on buffered results.
+    private static final int INITIAL_STREAM_BLOCK_POINTS_PER_CORE = 4;
+    private static final int MAX_STREAM_BLOCK_SIZE = 4096;
+    // Each grid point holds six doubles, so this caps a single grid response at a few hundred megabytes of JSON.
+    private static final int MAX_GRID_POINTS = 1_000_000;
+    // A year has at most 262 weekdays and at least 360 days on any calendar convention.
+    private static final int MAX_TRADING_DAY_BASIS = 262;
+    private static final int MIN_CALENDAR_DAY_BASIS = 360;
     
     @Autowired
     private EuropeanBlackScholesModel europeanBlackScholesModel;
@@ -28,13 +42,39 @@ public class OptionPricingServiceImpl implements OptionPricingService
     @Autowired
     private AmericanBlackScholesModel americanBlackScholesModel;
     
+    @Autowired
+    private QuasiMonteCarloOptionModel quasiMonteCarloOptionModel;
+    
+    @Autowired
+    private FiniteDifferenceOptionModel finiteDifferenceOptionModel;
+    
     @Autowired
     private PerformanceTrackingService performanceTrackingService;
     
     @Autowired
-    @Qualifier("rangeCalculationExecutor")
-    private Executor rangeCalculationExecutor;
-
+    private RangeCalculationEngine rangeCalculationEngine;
+    
+    @Autowired
+    private PricingResultCache pricingResultCache;
+    
+    @Autowired
+    private PricingCostEstimator pricingCostEstimator;
+    
+    @Autowired
+    private MarketDataStore marketDataStore;
+    
+    @Autowired
+    private PriceService priceService;
+    
+    @Autowired
+    private VolatilityService volatilityService;
+    
+    @Autowired
+    private InterestRateService interestRateService;
+    
+    @Autowired
+    private Clock clock;
+    
     @Value("${log.single.calculation}")
     private boolean logSingleCalculation;
 
@@ -56,12 +96,18 @@ public class OptionPricingServiceImpl implements OptionPricingService
             case "monte_carlo":
             case "monte_carlo_simulation":
                 return monteCarloOptionModel;
+            case "quasi_monte_carlo":
+            case "qmc":
+                return quasiMonteCarloOptionModel;
             case "binomial":
             case "binomial_tree":
                 return binomialTreeOptionModel;
             case "american":
             case "american_black_scholes":
                 return americanBlackScholesModel;
+            case "finite_difference":
+            case "crank_nicolson":
+                return finiteDifferenceOptionModel;
             default:
                 logger.warn("Unknown model type: {}, using default European Black-Scholes model", modelType);
                 return europeanBlackScholesModel;
@@ -73,14 +119,106 @@ public class OptionPricingServiceImpl implements OptionPricingService
     {
         validateRequest(request);
         OptionModel model = getOptionModel(request.getModelType());
-        model.setToCall(request.getIsCall());
-        model.setToEuropean(request.getIsEuropean());
-        Map<String, Double> input = createInputMap(request);
-        OptionPriceResult result = model.calculate(input, logSingleCalculation);
+        PricingContext context = createPricingContext(request);
+        OptionPriceResult result = pricingResultCache.calculate(model, context, () -> model.calculate(context, logSingleCalculation));
         logger.info("Option price calculation completed using {}: {}", model.getClass().getSimpleName(), result);
         return result;
     }
     
+    // The spot, volatility and rate are read from a single market data version, so an update landing mid-request cannot
+    // pair one instrument's new price with its old volatility. Anything not yet held is loaded through the market data
+    // services first and all three are then read again from the version that includes it.
+    @Override
+    public InstrumentPriceResult calculateInstrumentPrice(InstrumentPricingRequest request)
+    {
+        if (request == null)
+            throw new IllegalArgumentException("Request cannot be null");
+        
+        if (request.getInstrumentCode() == null || request.getInstrumentCode().isBlank())
+            throw new IllegalArgumentException("Instrument code cannot be null or empty");
+        
+        if (request.getCurrencyCode() == null || request.getCurrencyCode().isBlank())
+            throw new IllegalArgumentException("Currency code cannot be null or empty");
+        
+        String instrumentCode = request.getInstrumentCode();
+        String currencyCode = request.getCurrencyCode();
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        if (snapshot.getPrice(instrumentCode) == null || snapshot.getVolatility(instrumentCode) == null || snapshot.getInterestRate(currencyCode) == null)
+        {
+            if (snapshot.getPrice(instrumentCode) == null)
+                priceService.getPrice(instrumentCode);
+            if (snapshot.getVolatility(instrumentCode) == null)
+                volatilityService.getVolatility(instrumentCode);
+            if (snapshot.getInterestRate(currencyCode) == null)
+                interestRateService.getRate(currencyCode);
+            snapshot = marketDataStore.snapshot();
+        }
+        
+        Price price = snapshot.getPrice(instrumentCode);
+        Volatility volatility = snapshot.getVolatility(instrumentCode);
+        InterestRate interestRate = snapshot.getInterestRate(currencyCode);
+        if (price == null || (price.getClosePrice() == null && price.getOpenPrice() == null))
+            throw new NoSuchElementException("No price for instrument " + instrumentCode);
+        if (volatility == null || volatility.getVolatilityPercentage() == null)
+            throw new NoSuchElementException("No volatility for instrument " + instrumentCode);
+        if (interestRate == null || interestRate.getInterestRatePercentage() == null)
+            throw new NoSuchElementException("No interest rate for currency " + currencyCode);
+        
+        // Before today's close the last close is the latest price held; the open only stands in when there is none.
+        double underlyingPrice = price.getClosePrice() != null ? price.getClosePrice() : price.getOpenPrice();
+        OptionPricingRequest pricingRequest = new OptionPricingRequest(request.getStrike(), volatility.getVolatilityPercentage() / 100.0, underlyingPrice,
+                daysToExpiry(request), interestRate.getInterestRatePercentage() / 100.0, request.getIsCall(), request.getIsEuropean(), request.getDayCountConvention());
+        pricingRequest.setModelType(request.getModelType());
+        pricingRequest.setTargetStandardError(request.getTargetStandardError());
+        
+        OptionPriceResult result = calculateOptionPrice(pricingRequest);
+        return new InstrumentPriceResult(instrumentCode, currencyCode, pricingRequest.getUnderlyingPrice(), pricingRequest.getVolatility(),
+                pricingRequest.getInterestRate(), pricingRequest.getDaysToExpiry(), snapshot.getVersion(), result);
+    }
+    
+    // The days are counted on the basis the convention divides them by: weekdays up to expiry for a trading-day basis, as
+    // 250 or 252, and calendar days for a 360 or 365 one. There is no holiday calendar, so a trading-day count only skips
+    // weekends. Any other convention is rejected, as it is unclear which days it counts.
+    Double daysToExpiry(InstrumentPricingRequest request)
+    {
+        if (request.getDaysToExpiry() != null)
+            return request.getDaysToExpiry();
+        
+        if (request.getExpiryDate() == null)
+            throw new IllegalArgumentException("Either the expiry date or the days to expiry is required");
+        
+        Double dayCountConvention = request.getDayCountConvention();
+        if (dayCountConvention == null || dayCountConvention <= 0)
+            throw new IllegalArgumentException("Day count convention must be greater than 0");
+        
+        LocalDate today = LocalDate.now(clock);
+        if (request.getExpiryDate().isBefore(today))
+            throw new IllegalArgumentException("Expiry date " + request.getExpiryDate() + " is in the past");
+        
+        if (dayCountConvention <= MAX_TRADING_DAY_BASIS)
+            return (double) weekdaysBetween(today, request.getExpiryDate());
+        if (dayCountConvention >= MIN_CALENDAR_DAY_BASIS)
+            return (double) ChronoUnit.DAYS.between(today, request.getExpiryDate());
+        
+        throw new IllegalArgumentException(String.format("Day count convention %s is neither a trading-day basis (at most %d) nor a calendar-day basis (at least %d); give the days to expiry instead of the expiry date",
+                dayCountConvention, MAX_TRADING_DAY_BASIS, MIN_CALENDAR_DAY_BASIS));
+    }
+    
+    // Weekdays after the start date up to and including the end date, as the calendar count is days after today.
+    static long weekdaysBetween(LocalDate start, LocalDate end)
+    {
+        long days = ChronoUnit.DAYS.between(start, end);
+        long weekdays = (days / 7) * 5;
+        LocalDate date = start.plusDays((days / 7) * 7);
+        while (date.isBefore(end))
+        {
+            date = date.plusDays(1);
+            if (date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY)
+                weekdays++;
+        }
+        return weekdays;
+    }
+    
     @Override
     public OptionPriceResultSet calculateRange(OptionPricingRequest baseRequest, String rangeKey, double startValue, double endValue, double increment)
     {
@@ -91,12 +229,11 @@ public class OptionPricingServiceImpl implements OptionPricingService
         {
             validateRequest(baseRequest);
             validateRangeParameters(rangeKey, startValue, endValue, increment);
+            RangeKey key = RangeKey.fromString(rangeKey);
             OptionModel model = getOptionModel(baseRequest.getModelType());
-            model.setToCall(baseRequest.getIsCall());
-            model.setToEuropean(baseRequest.getIsEuropean());
-            Map<String, Double> input = createInputMap(baseRequest);
+            PricingContext context = createPricingContext(baseRequest);
             OptionPriceResultSet resultSet = new OptionPriceResultSet();
-            model.calculateRange(resultSet, input, rangeKey, startValue, endValue, increment, logRangeCalculations);
+            model.calculateRange(resultSet, context, key, startValue, endValue, increment, logRangeCalculations);
             long executionTime = System.currentTimeMillis() - startTime;
             logger.info("Range calculation completed using {} with {} results in {}ms", model.getClass().getSimpleName(), resultSet.getTotalCount(), executionTime);
             performanceTrackingService.recordRangeCalculation(baseRequest.getModelType(), executionTime);
@@ -116,10 +253,254 @@ public class OptionPricingServiceImpl implements OptionPricingService
         return calculateRange(request.getBaseRequest(), request.getRangeKey(), request.getStartValue(), request.getEndValue(), request.getIncrement());
     }
     
+    // Validation happens here, before anything is streamed, so a bad request can still be rejected with a 400.
+    @Override
+    public RangeResultStream openRangeStream(RangeCalculationRequest request)
+    {
+        OptionPricingRequest baseRequest = request.getBaseRequest();
+        validateRequest(baseRequest);
+        validateRangeParameters(request.getRangeKey(), request.getStartValue(), request.getEndValue(), request.getIncrement());
+        RangeKey key = RangeKey.fromString(request.getRangeKey());
+        OptionModel model = getOptionModel(baseRequest.getModelType());
+        PricingContext context = createPricingContext(baseRequest);
+
+        RangeResultStream stream = new RangeResultStream(model, context, key, request.getStartValue(), request.getEndValue(), request.getIncrement(),
+                Runtime.getRuntime().availableProcessors() * INITIAL_STREAM_BLOCK_POINTS_PER_CORE, MAX_STREAM_BLOCK_SIZE, logRangeCalculations,
+                executionTime ->
+                {
+                    logger.info("Streamed range calculation completed using {} in {}ms", model.getClass().getSimpleName(), executionTime);
+                    performanceTrackingService.recordRangeCalculation(baseRequest.getModelType(), executionTime);
+                });
+        logger.info("Streaming {} range points for {} from {} to {} with increment {}", stream.getPointCount(), key, request.getStartValue(), request.getEndValue(), request.getIncrement());
+        return stream;
+    }
+    
+    @Override
+    public OptionPriceGrid calculateGrid(GridCalculationRequest request)
+    {
+        long startTime = System.currentTimeMillis();
+        if (request == null || request.getAxes() == null || request.getAxes().isEmpty())
+            throw new IllegalArgumentException("Grid must have at least one axis");
+
+        OptionPricingRequest baseRequest = request.getBaseRequest();
+        validateRequest(baseRequest);
+        List<GridAxis> axes = request.getAxes();
+        RangeKey[] keys = new RangeKey[axes.size()];
+        double[][] axisValues = new double[axes.size()][];
+        long totalPoints = 1;
+
+        for (int axis = 0; axis < axes.size(); axis++)
+        {
+            GridAxis gridAxis = axes.get(axis);
+            if (gridAxis == null || gridAxis.getStartValue() == null || gridAxis.getEndValue() == null || gridAxis.getIncrement() == null)
+                throw new IllegalArgumentException("Grid axis " + axis + " must have a key, start value, end value and increment");
+
+            validateRangeParameters(gridAxis.getKey(), gridAxis.getStartValue(), gridAxis.getEndValue(), gridAxis.getIncrement());
+            keys[axis] = RangeKey.fromString(gridAxis.getKey());
+            for (int previous = 0; previous < axis; previous++)
+            {
+                if (keys[previous] == keys[axis])
+                    throw new IllegalArgumentException("Grid axis " + keys[axis] + " appears more than once");
+            }
+
+            int pointCount = RangeCalculationEngine.pointCount(gridAxis.getStartValue(), gridAxis.getEndValue(), gridAxis.getIncrement());
+            totalPoints *= pointCount;
+            if (totalPoints > MAX_GRID_POINTS)
+                throw new IllegalArgumentException("Grid exceeds the maximum of " + MAX_GRID_POINTS + " points");
+
+            axisValues[axis] = new double[pointCount];
+            for (int i = 0; i < pointCount; i++)
+                axisValues[axis][i] = gridAxis.getStartValue() + (i * gridAxis.getIncrement());
+        }
+
+        OptionModel model = getOptionModel(baseRequest.getModelType());
+        PricingContext context = createPricingContext(baseRequest);
+        OptionPriceGrid grid = new OptionPriceGrid(keys, axisValues);
+        rangeCalculationEngine.calculateGrid(grid, context, model, logRangeCalculations);
+
+        long executionTime = System.currentTimeMillis() - startTime;
+        logger.info("Grid calculation completed using {}: {} points with {} failures in {}ms", model.getClass().getSimpleName(), grid.size(), grid.getFailedCount(), executionTime);
+        performanceTrackingService.recordRangeCalculation(baseRequest.getModelType(), executionTime);
+        return grid;
+    }
+    
+    @Override
+    public BatchPricingResultSet calculateBatch(List<OptionPricingRequest> requests)
+    {
+        if (requests == null || requests.isEmpty())
+            throw new IllegalArgumentException("Batch must contain at least one pricing request");
+
+        long startTime = System.currentTimeMillis();
+        BatchPricingResult[] results = new BatchPricingResult[requests.size()];
+
+        // Group request positions by model so each task prices a homogeneous run of options.
+        Map<OptionModel, List<Integer>> indicesByModel = new LinkedHashMap<>();
+        for (int index = 0; index < requests.size(); index++)
+        {
+            OptionPricingRequest request = requests.get(index);
+            OptionModel model = getOptionModel(request == null ? null : request.getModelType());
+            indicesByModel.computeIfAbsent(model, key -> new ArrayList<>()).add(index);
+        }
+
+        List<OptionModel> chunkModels = new ArrayList<>();
+        List<List<Integer>> chunks = new ArrayList<>();
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (Map.Entry<OptionModel, List<Integer>> group : indicesByModel.entrySet())
+        {
+            List<Integer> indices = group.getValue();
+            int chunkSize = Math.max(MIN_BATCH_CHUNK_SIZE, (indices.size() + processors - 1) / processors);
+
+            for (int from = 0; from < indices.size(); from += chunkSize)
+            {
+                chunkModels.add(group.getKey());
+                chunks.add(indices.subList(from, Math.min(from + chunkSize, indices.size())));
+            }
+        }
+
+        // The request thread prices chunks alongside the backend's workers instead of waiting idle on their futures.
+        rangeCalculationEngine.forEachChunk(chunks.size(), (from, to) ->
+        {
+            for (int chunk = from; chunk < to; chunk++)
+                priceBatchChunk(chunkModels.get(chunk), requests, chunks.get(chunk), results);
+        });
+
+        BatchPricingResultSet resultSet = new BatchPricingResultSet(results);
+        logger.info("Batch pricing completed for {} options across {} models with {} errors in {}ms",
+                resultSet.getTotalCount(), indicesByModel.size(), resultSet.getErrorCount(), System.currentTimeMillis() - startTime);
+        return resultSet;
+    }
+
+    // The estimates validate only what they need to count points; anything else is still rejected when the request runs.
+    @Override
+    public double estimateRangeCpuMs(OptionPricingRequest baseRequest, String rangeKey, double startValue, double endValue, double increment)
+    {
+        validateRequest(baseRequest);
+        validateRangeParameters(rangeKey, startValue, endValue, increment);
+        return pricingCostEstimator.estimateRangeCpuMs(getOptionModel(baseRequest.getModelType()), createPricingContext(baseRequest),
+                RangeKey.fromString(rangeKey), startValue, endValue, RangeCalculationEngine.pointCount(startValue, endValue, increment));
+    }
+    
+    @Override
+    public double estimateGridCpuMs(GridCalculationRequest request)
+    {
+        if (request == null || request.getAxes() == null || request.getAxes().isEmpty())
+            throw new IllegalArgumentException("Grid must have at least one axis");
+        
+        OptionPricingRequest baseRequest = request.getBaseRequest();
+        validateRequest(baseRequest);
+        long totalPoints = 1;
+        int rowLength = 0;
+        for (GridAxis gridAxis : request.getAxes())
+        {
+            if (gridAxis == null || gridAxis.getStartValue() == null || gridAxis.getEndValue() == null || gridAxis.getIncrement() == null)
+                throw new IllegalArgumentException("Grid axes must have a key, start value, end value and increment");
+            
+            validateRangeParameters(gridAxis.getKey(), gridAxis.getStartValue(), gridAxis.getEndValue(), gridAxis.getIncrement());
+            rowLength = RangeCalculationEngine.pointCount(gridAxis.getStartValue(), gridAxis.getEndValue(), gridAxis.getIncrement());
+            totalPoints *= rowLength;
+            if (totalPoints > MAX_GRID_POINTS)
+                throw new IllegalArgumentException("Grid exceeds the maximum of " + MAX_GRID_POINTS + " points");
+        }
+        
+        // The last axis runs along each row of the grid, as in OptionPriceGrid.
+        if (rowLength == 0)
+            return 0.0;
+        
+        GridAxis rowAxis = request.getAxes().get(request.getAxes().size() - 1);
+        return (totalPoints / rowLength) * pricingCostEstimator.estimateRangeCpuMs(getOptionModel(baseRequest.getModelType()), createPricingContext(baseRequest),
+                RangeKey.fromString(rowAxis.getKey()), rowAxis.getStartValue(), rowAxis.getEndValue(), rowLength);
+    }
+    
+    // Invalid entries only fail themselves when the batch runs, so they are not charged.
+    @Override
+    public double estimateBatchCpuMs(List<OptionPricingRequest> requests)
+    {
+        if (requests == null || requests.isEmpty())
+            throw new IllegalArgumentException("Batch must contain at least one pricing request");
+        
+        double cpuMs = 0.0;
+        for (OptionPricingRequest request : requests)
+        {
+            try
+            {
+                validateRequest(request);
+                cpuMs += pricingCostEstimator.estimateCpuMs(getOptionModel(request.getModelType()), createPricingContext(request), 1);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // Reported per entry in the batch result.
+            }
+        }
+        return cpuMs;
+    }
+    
+    // Settles a finished range, stream or grid against the points it priced and the paths they report.
+    @Override
+    public double unestimatedCpuMs(OptionPricingRequest baseRequest, long points, long pathCount)
+    {
+        return pricingCostEstimator.unestimatedCpuMs(getOptionModel(baseRequest.getModelType()), createPricingContext(baseRequest), points, pathCount);
+    }
+    
+    @Override
+    public double unestimatedBatchCpuMs(List<OptionPricingRequest> requests, BatchPricingResultSet resultSet)
+    {
+        double cpuMs = 0.0;
+        for (BatchPricingResult result : resultSet.getResults())
+        {
+            if (result.isSuccess() && result.getResult().getPathCount() != null)
+                cpuMs += unestimatedCpuMs(requests.get(result.getIndex()), 1, result.getResult().getPathCount());
+        }
+        return cpuMs;
+    }
+    
+    private void priceBatchChunk(OptionModel model, List<OptionPricingRequest> requests, List<Integer> indices, BatchPricingResult[] results)
+    {
+        List<Integer> validIndices = new ArrayList<>(indices.size());
+        List<PricingContext> contexts = new ArrayList<>(indices.size());
+        for (int index : indices)
+        {
+            try
+            {
+                OptionPricingRequest request = requests.get(index);
+                validateRequest(request);
+                contexts.add(createPricingContext(request));
+                validIndices.add(index);
+            }
+            catch (Exception e)
+            {
+                results[index] = BatchPricingResult.failure(index, e.getMessage());
+            }
+        }
+
+        try
+        {
+            // Let the model price the whole chunk at once; models with a batch kernel override calculateAll.
+            OptionPriceResult[] chunkResults = model.calculateAll(contexts.toArray(new PricingContext[0]), logRangeCalculations);
+            for (int i = 0; i < chunkResults.length; i++)
+                results[validIndices.get(i)] = BatchPricingResult.success(validIndices.get(i), chunkResults[i]);
+        }
+        catch (Exception chunkException)
+        {
+            // Fall back to pricing one by one so a single bad option only fails its own slot.
+            for (int i = 0; i < contexts.size(); i++)
+            {
+                int index = validIndices.get(i);
+                try
+                {
+                    results[index] = BatchPricingResult.success(index, model.calculate(contexts.get(i), logRangeCalculations));
+                }
+                catch (Exception e)
+                {
+                    results[index] = BatchPricingResult.failure(index, e.getMessage());
+                }
+            }
+        }
+    }
+    
     @Override
     public String getModelDetails()
     {
-        return "Available Models: European Black-Scholes, Monte Carlo Simulation, Binomial Tree, American Black-Scholes";
+        return "Available Models: European Black-Scholes, Monte Carlo Simulation, Quasi-Monte Carlo, Binomial Tree, American Black-Scholes, Finite Difference";
     }
     
     private void validateRequest(OptionPricingRequest request)
@@ -136,6 +517,9 @@ public class OptionPricingServiceImpl implements OptionPricingService
         if (request.getUnderlyingPrice() == null || request.getUnderlyingPrice() <= 0)
             throw new IllegalArgumentException("Underlying price must be greater than 0");
         
+        if (request.getInterestRate() == null)
+            throw new IllegalArgumentException("Interest rate cannot be null");
+        
         if (request.getDaysToExpiry() == null || request.getDaysToExpiry() < 0)
             throw new IllegalArgumentException("Days to expiry must be non-negative");
         
@@ -147,6 +531,9 @@ public class OptionPricingServiceImpl implements OptionPricingService
         
         if (request.getIsEuropean() == null)
             throw new IllegalArgumentException("Is European flag cannot be null");
+        
+        if (request.getTargetStandardError() != null && request.getTargetStandardError() <= 0)
+            throw new IllegalArgumentException("Target standard error must be greater than 0");
     }
     
     private void validateRangeParameters(String rangeKey, double startValue, double endValue, double increment)
@@ -161,14 +548,10 @@ public class OptionPricingServiceImpl implements OptionPricingService
             throw new IllegalArgumentException("Start value must be less than end value");
     }
     
-    private Map<String, Double> createInputMap(OptionPricingRequest request)
+    private PricingContext createPricingContext(OptionPricingRequest request)
     {
-        Map<String, Double> input = new HashMap<>();
-        input.put(OptionModel.STRIKE, request.getStrike());
-        input.put(OptionModel.VOLATILITY, request.getVolatility());
-        input.put(OptionModel.UNDERLYING_PRICE, request.getUnderlyingPrice());
-        input.put(OptionModel.TIME_TO_EXPIRY, request.getTimeToExpiryInYears());
-        input.put(OptionModel.INTEREST_RATE, request.getInterestRate());
-        return input;
+        return new PricingContext(request.getUnderlyingPrice(), request.getStrike(), request.getVolatility(), request.getInterestRate(),
+                request.getTimeToExpiryInYears(), request.getDayCountConvention(), request.getIsCall(), request.getIsEuropean(),
+                request.getTargetStandardError() == null ? 0.0 : request.getTargetStandardError());
     }
 }
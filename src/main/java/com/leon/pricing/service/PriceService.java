@@ -1,6 +1,7 @@
 package com.leon.pricing.service;
 
 import com.leon.pricing.model.Price;
+import java.util.Collection;
 import java.util.List;
 
 public interface PriceService
@@ -8,4 +9,6 @@ public interface PriceService
     List<Price> loadPrices();
     Price updatePrice(String instrumentCode, Double closePrice, Double openPrice, String lastUpdatedBy);
     Price getPrice(String instrumentCode);
+    List<Price> updatePrices(List<Price> prices);
+    List<Price> getPrices(Collection<String> instrumentCodes);
 }
@@ -1,93 +1,98 @@
 package com.leon.pricing.service;
 
+import com.leon.pricing.model.MarketDataSnapshot;
+import com.leon.pricing.model.MarketDataStore;
 import com.leon.pricing.model.Price;
 import com.leon.pricing.repository.PriceRepository;
-import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class PriceServiceImpl implements PriceService
 {
     private static final Logger logger = LoggerFactory.getLogger(PriceServiceImpl.class);
-    private final Map<String, Price> priceCache = new HashMap<>();
+    @Autowired
+    private MarketDataStore marketDataStore;
+    @Autowired
+    private MarketDataWriteBehind marketDataWriteBehind;
     @Autowired
     private PriceRepository priceRepository;
 
-    @PostConstruct
-    private void initializeCache()
-    {
-        try
-        {
-            List<Price> prices = priceRepository.findAll();
-            prices.forEach(p -> priceCache.put(p.getInstrumentCode(), p));
-            logger.info("Initialized price cache with {} records", prices.size());
-        }
-        catch (Exception e)
-        {
-            logger.warn("Failed to initialize cache from database: {}", e.getMessage());
-        }
-    }
-    
+    // Filled at startup by MarketDataBootstrap and kept current by MarketDataChangeFollower.
     @Override
     public List<Price> loadPrices()
     {
-        if (priceCache.isEmpty())
-            initializeCache();
-        
-        List<Price> result = List.copyOf(priceCache.values());
+        List<Price> result = copiesOf(marketDataStore.snapshot().getPrices());
         logger.debug("Loaded {} price records from cache", result.size());
         return result;
     }
     
+    // Published prices are never modified: an update publishes a new instance under the same id and persists that,
+    // so readers holding the previous one are unaffected.
     @Override
     public Price updatePrice(String instrumentCode, Double closePrice, Double openPrice, String lastUpdatedBy)
     {
-        Price existingPrice = priceCache.get(instrumentCode);
+        Price existingPrice = marketDataStore.snapshot().getPrice(instrumentCode);
+        Price newPrice = new Price(instrumentCode, closePrice, openPrice, lastUpdatedBy);
+        if (existingPrice != null)
+            newPrice.setId(existingPrice.getId());
+
+        // Visible to pricing at once; the database write is coalesced with other updates and flushed behind.
+        marketDataStore.publishPrice(newPrice);
+        marketDataWriteBehind.writePrice(newPrice);
+
         if (existingPrice != null)
-        {
-            existingPrice.setClosePrice(closePrice);
-            existingPrice.setOpenPrice(openPrice);
-            existingPrice.setLastUpdatedBy(lastUpdatedBy);
-            existingPrice.setLastUpdatedOn(LocalDate.now());
-            Price savedPrice = priceRepository.save(existingPrice);
-            priceCache.put(instrumentCode, savedPrice);
             logger.info("Updated price for instrument {}: close={}, open={} by user {}", instrumentCode, closePrice, openPrice, lastUpdatedBy);
-            return savedPrice;
-        }
         else
-        {
-            Price newPrice = new Price(instrumentCode, closePrice, openPrice, lastUpdatedBy);
-            Price savedPrice = priceRepository.save(newPrice);
-            priceCache.put(instrumentCode, savedPrice);
             logger.info("Created new price for instrument {}: close={}, open={} by user {}", instrumentCode, closePrice, openPrice, lastUpdatedBy);
-            return savedPrice;
+
+        return new Price(newPrice);
+    }
+
+    // Applied as one market data version and handed to the write-behind together, so they are persisted in one bulk write.
+    // Where the same price appears more than once, the last entry wins.
+    @Override
+    public List<Price> updatePrices(List<Price> prices)
+    {
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        Map<String, Price> newPrices = new LinkedHashMap<>();
+        for (Price price : prices)
+        {
+            Price existingPrice = snapshot.getPrice(price.getInstrumentCode());
+            Price newPrice = new Price(price.getInstrumentCode(), price.getClosePrice(), price.getOpenPrice(), price.getLastUpdatedBy());
+            if (existingPrice != null)
+                newPrice.setId(existingPrice.getId());
+            newPrices.put(price.getInstrumentCode(), newPrice);
         }
+
+        marketDataStore.publishPrices(newPrices.values());
+        marketDataWriteBehind.writePrices(newPrices.values());
+        logger.info("Updated {} prices in bulk", newPrices.size());
+        return copiesOf(newPrices.values());
     }
     
     @Override
     public Price getPrice(String instrumentCode)
     {
-        Price cachedPrice = priceCache.get(instrumentCode);
+        Price cachedPrice = marketDataStore.snapshot().getPrice(instrumentCode);
         if (cachedPrice != null)
-            return cachedPrice;
+            return new Price(cachedPrice);
         
         try
         {
             Optional<Price> dbPrice = priceRepository.findByInstrumentCode(instrumentCode);
             if (dbPrice.isPresent())
-            {
-                Price price = dbPrice.get();
-                priceCache.put(instrumentCode, price);
-                return price;
-            }
+                return new Price(marketDataStore.publishPriceIfAbsent(dbPrice.get()));
         }
         catch (Exception e)
         {
@@ -96,4 +101,50 @@ public class PriceServiceImpl implements PriceService
         
         return null;
     }
+
+    // Codes missing from the store are fetched with a single query and published for later lookups; unknown codes are
+    // left out of the result.
+    @Override
+    public List<Price> getPrices(Collection<String> instrumentCodes)
+    {
+        Set<String> requestedCodes = new LinkedHashSet<>(instrumentCodes);
+        List<String> missingCodes = new ArrayList<>();
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        for (String instrumentCode : requestedCodes)
+        {
+            if (snapshot.getPrice(instrumentCode) == null)
+                missingCodes.add(instrumentCode);
+        }
+
+        if (!missingCodes.isEmpty())
+        {
+            try
+            {
+                marketDataStore.publishPricesIfAbsent(priceRepository.findByInstrumentCodeIn(missingCodes));
+                snapshot = marketDataStore.snapshot();
+            }
+            catch (Exception e)
+            {
+                logger.warn("Failed to retrieve {} prices from database: {}", missingCodes.size(), e.getMessage());
+            }
+        }
+
+        List<Price> result = new ArrayList<>(requestedCodes.size());
+        for (String instrumentCode : requestedCodes)
+        {
+            Price price = snapshot.getPrice(instrumentCode);
+            if (price != null)
+                result.add(new Price(price));
+        }
+        return result;
+    }
+
+    // The store shares its published instances with every reader, so callers outside it only ever get copies.
+    private static List<Price> copiesOf(Collection<Price> prices)
+    {
+        List<Price> copies = new ArrayList<>(prices.size());
+        for (Price price : prices)
+            copies.add(new Price(price));
+        return copies;
+    }
 }
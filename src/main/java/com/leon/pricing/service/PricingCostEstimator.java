@@ -0,0 +1,94 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.AmericanBlackScholesModel;
+import com.leon.pricing.model.BinomialTreeOptionModel;
+import com.leon.pricing.model.EuropeanBlackScholesModel;
+import com.leon.pricing.model.FiniteDifferenceOptionModel;
+import com.leon.pricing.model.MonteCarloOptionModel;
+import com.leon.pricing.model.OptionModel;
+import com.leon.pricing.model.PricingContext;
+import com.leon.pricing.model.QuasiMonteCarloOptionModel;
+import com.leon.pricing.model.RangeKey;
+import org.springframework.stereotype.Service;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the CPU time a request will take before it runs, from the model, its step or path count and the number of
+ * points. Each model reports the work of one point, or of a range that shares work, in its own units, and a per-model rate
+ * in nanoseconds per unit turns that into time. Every point is also charged a fixed overhead for assembling and writing its
+ * result, which is what dominates the cheap closed-form models. The rates start from figures measured on a development
+ * machine and are refined from single-threaded calls timed during warm-up, so they follow the hardware the service
+ * actually runs on. Models that only decide their work while running, such as simulations stopping at a target standard
+ * error, are estimated at their configured size and settled from the paths they report once the request has finished.
+ * The result cache is ignored: a repeated range is charged in full even if most of its points will be served from the
+ * cache.
+ */
+@Service
+public class PricingCostEstimator
+{
+    // Weight of each new warm-up sample; later samples, taken once the code is compiled, soon outweigh the early ones.
+    private static final double SAMPLE_WEIGHT = 0.1;
+    private static final double DEFAULT_NANOS_PER_UNIT = 2_000.0;
+    // Result set merge and JSON serialisation of one point, measured on ranges served from the result cache.
+    private static final double NANOS_PER_POINT = 10_000.0;
+    private static final Map<Class<?>, Double> INITIAL_NANOS_PER_UNIT = Map.of(
+            EuropeanBlackScholesModel.class, 2_000.0,
+            AmericanBlackScholesModel.class, 1_500.0,
+            BinomialTreeOptionModel.class, 10.0,
+            MonteCarloOptionModel.class, 45.0,
+            QuasiMonteCarloOptionModel.class, 200.0,
+            FiniteDifferenceOptionModel.class, 95.0);
+
+    private final Map<Class<?>, Double> nanosPerUnit = new ConcurrentHashMap<>(INITIAL_NANOS_PER_UNIT);
+    private final Map<Class<?>, Integer> sampleCounts = new ConcurrentHashMap<>();
+
+    public PricingCostEstimator() {}
+
+    public double estimateCpuMs(OptionModel model, PricingContext context, long points)
+    {
+        return toCpuMs(model, points * model.estimateWork(context), points);
+    }
+
+    public double estimateRangeCpuMs(OptionModel model, PricingContext context, RangeKey rangeKey, double startValue, double endValue, long points)
+    {
+        return toCpuMs(model, model.estimateRangeWork(context, rangeKey, startValue, endValue, points), points);
+    }
+
+    // CPU time the priced points used beyond their estimate, or less when negative, from the paths their results report.
+    public double unestimatedCpuMs(OptionModel model, PricingContext context, long points, long pathCount)
+    {
+        return model.unestimatedWork(context, points, pathCount) * nanosPerUnit.getOrDefault(model.getClass(), DEFAULT_NANOS_PER_UNIT) / 1_000_000.0;
+    }
+
+    private double toCpuMs(OptionModel model, double work, long points)
+    {
+        return ((work * nanosPerUnit.getOrDefault(model.getClass(), DEFAULT_NANOS_PER_UNIT)) + (points * NANOS_PER_POINT)) / 1_000_000.0;
+    }
+
+    // The elapsed time must come from a single thread, so that it measures CPU time rather than wall clock.
+    public void recordSample(OptionModel model, PricingContext context, long elapsedNanos)
+    {
+        double work = model.estimateWork(context);
+        if (work <= 0)
+            return;
+
+        double sample = elapsedNanos / work;
+        nanosPerUnit.merge(model.getClass(), sample, (current, next) -> current + SAMPLE_WEIGHT * (next - current));
+        sampleCounts.merge(model.getClass(), 1, Integer::sum);
+    }
+
+    public Map<String, Object> getStatistics()
+    {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (Map.Entry<Class<?>, Double> entry : nanosPerUnit.entrySet())
+        {
+            Map<String, Object> model = new LinkedHashMap<>();
+            model.put("nanosPerUnit", entry.getValue());
+            model.put("samples", sampleCounts.getOrDefault(entry.getKey(), 0));
+            statistics.put(entry.getKey().getSimpleName(), model);
+        }
+        return statistics;
+    }
+}
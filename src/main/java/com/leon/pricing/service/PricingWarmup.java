@@ -0,0 +1,219 @@
+package com.leon.pricing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leon.pricing.model.OptionModel;
+import com.leon.pricing.model.OptionPriceResult;
+import com.leon.pricing.model.OptionPriceResultSet;
+import com.leon.pricing.model.OptionPricingRequest;
+import com.leon.pricing.model.PricingContext;
+import com.leon.pricing.model.PricingResultCache;
+import com.leon.pricing.model.RangeKey;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs a synthetic pricing workload through every option model, request validation and the JSON mapping once the
+ * application has started, so that the first real requests find the model classes loaded and their hot paths compiled
+ * rather than interpreted. Each model gets a fixed time budget; inputs vary from call to call so every call does the full
+ * calculation instead of hitting the result cache, which is cleared afterwards. In the second half of each model's
+ * budget the single prices run on a one-thread pool and are timed to calibrate the cost estimates used by admission
+ * control, which are in CPU time: the Monte Carlo models spread one price over the common pool, and timing that by wall
+ * clock would undercharge them by the core count. /health reports ready only once this has finished. With pricing.warmup.exit=true the application exits when it
+ * is done, which makes it a training run for the class data sharing archive built by the fast-start profile.
+ */
+@Service
+public class PricingWarmup
+{
+    private static final Logger logger = LoggerFactory.getLogger(PricingWarmup.class);
+    // The JSON mapping and ranges cost more per call than a single price, so they are exercised on a fraction of calls.
+    private static final int JSON_EVERY = 4;
+    private static final int RANGE_EVERY = 16;
+
+    @Autowired
+    private List<OptionModel> optionModels;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PricingResultCache pricingResultCache;
+
+    @Autowired
+    private PricingCostEstimator pricingCostEstimator;
+
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
+    @Value("${pricing.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pricing.warmup.time.per.model.ms:1000}")
+    private long timePerModelMs;
+
+    @Value("${pricing.warmup.exit:false}")
+    private boolean exitWhenDone;
+
+    private volatile boolean complete;
+    private volatile long readyAfterMs = -1;
+    private volatile long warmupTimeMs;
+    private final Map<String, Integer> callsByModel = new LinkedHashMap<>();
+
+    public PricingWarmup() {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmup()
+    {
+        if (!enabled)
+        {
+            finish(0);
+            return;
+        }
+
+        Thread thread = new Thread(this::warmUp, "PricingWarmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    public Map<String, Object> getStatus()
+    {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("warmupComplete", complete);
+        status.put("warmupTimeMs", warmupTimeMs);
+        status.put("readyAfterMs", readyAfterMs);
+        synchronized (callsByModel)
+        {
+            status.put("warmupCallsByModel", new LinkedHashMap<>(callsByModel));
+        }
+        return status;
+    }
+
+    private void warmUp()
+    {
+        long startTime = System.currentTimeMillis();
+        // A parallel stream started from a worker of this pool runs in it, so the calibrated prices use exactly one thread.
+        ForkJoinPool calibrationPool = new ForkJoinPool(1);
+        try
+        {
+            warmUpModels(calibrationPool);
+        }
+        finally
+        {
+            calibrationPool.shutdown();
+        }
+
+        pricingResultCache.invalidateAll();
+        finish(System.currentTimeMillis() - startTime);
+
+        if (exitWhenDone)
+        {
+            logger.info("Warm-up training run finished, exiting");
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private void warmUpModels(ForkJoinPool calibrationPool)
+    {
+        for (OptionModel model : optionModels)
+        {
+            long modelStartTime = System.nanoTime();
+            long deadline = modelStartTime + timePerModelMs * 1_000_000L;
+            // The first half runs the request path on the shared pools; the second, with the code compiled, calibrates.
+            long calibrateAfter = modelStartTime + timePerModelMs * 500_000L;
+            int calls = 0;
+            int failures = 0;
+            while (System.nanoTime() < deadline)
+            {
+                try
+                {
+                    exercise(model, calls, System.nanoTime() < calibrateAfter ? null : calibrationPool);
+                }
+                catch (Exception e)
+                {
+                    // Some models reject some combinations (e.g. early exercise); the point is only to run the code.
+                    failures++;
+                }
+                calls++;
+            }
+
+            synchronized (callsByModel)
+            {
+                callsByModel.put(model.getClass().getSimpleName(), calls);
+            }
+            logger.debug("Warmed up {} with {} calls ({} rejected)", model.getClass().getSimpleName(), calls, failures);
+        }
+    }
+
+    private void finish(long elapsedMs)
+    {
+        warmupTimeMs = elapsedMs;
+        readyAfterMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        complete = true;
+        logger.info("Pricing warm-up finished in {}ms; ready {}ms after JVM start ({})", elapsedMs, readyAfterMs, callsByModel);
+    }
+
+    // Cycles through calls and puts, European and American exercise and a spread of spots, volatilities and expiries.
+    // With a calibration pool the single price runs on it and is timed.
+    private void exercise(OptionModel model, int call, ForkJoinPool calibrationPool) throws Exception
+    {
+        boolean isCall = call % 2 == 0;
+        boolean isEuropean = (call / 2) % 2 == 0;
+        double underlyingPrice = 80.0 + (call % 41);
+        double volatility = 0.15 + 0.01 * (call % 20);
+        double daysToExpiry = 30 + (call % 335);
+        PricingContext context = new PricingContext(underlyingPrice, 100.0, volatility, 0.03, daysToExpiry / 365.0, 365.0, isCall, isEuropean);
+        OptionPriceResult result = calibrationPool == null ? model.calculate(context, false) : calibrationPool.submit(() -> calibrate(model, context)).join();
+
+        if (call % JSON_EVERY == 0)
+        {
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("strike", 100.0);
+            request.put("volatility", volatility);
+            request.put("underlyingPrice", underlyingPrice);
+            request.put("daysToExpiry", daysToExpiry);
+            request.put("interestRate", 0.03);
+            request.put("isCall", isCall);
+            request.put("isEuropean", isEuropean);
+            request.put("dayCountConvention", 365.0);
+            // Bean validation builds its metadata for a class on first use, which would otherwise land on the first request.
+            validator.validate(objectMapper.readValue(objectMapper.writeValueAsString(request), OptionPricingRequest.class));
+            objectMapper.writeValueAsString(result);
+        }
+
+        if (call % RANGE_EVERY == 0)
+        {
+            OptionPriceResultSet resultSet = new OptionPriceResultSet();
+            model.calculateRange(resultSet, context, RangeKey.UNDERLYING_PRICE, underlyingPrice - 8.0, underlyingPrice + 8.0, 1.0, false);
+            objectMapper.writeValueAsString(resultSet);
+        }
+    }
+
+    // Timed on the calibration pool's thread, so the hand-off to the pool is not part of the sample.
+    private OptionPriceResult calibrate(OptionModel model, PricingContext context)
+    {
+        long startTime = System.nanoTime();
+        OptionPriceResult result = model.calculate(context, false);
+        pricingCostEstimator.recordSample(model, context, System.nanoTime() - startTime);
+        return result;
+    }
+}
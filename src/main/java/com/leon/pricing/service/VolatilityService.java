@@ -1,6 +1,7 @@
 package com.leon.pricing.service;
 
 import com.leon.pricing.model.Volatility;
+import java.util.Collection;
 import java.util.List;
 
 public interface VolatilityService
@@ -8,4 +9,6 @@ public interface VolatilityService
     List<Volatility> loadVolatilities();
     Volatility updateVolatility(String instrumentCode, Double volatilityPercentage, String lastUpdatedBy);
     Volatility getVolatility(String instrumentCode);
+    List<Volatility> updateVolatilities(List<Volatility> volatilities);
+    List<Volatility> getVolatilities(Collection<String> instrumentCodes);
 }
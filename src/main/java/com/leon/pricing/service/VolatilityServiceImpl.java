@@ -1,93 +1,97 @@
 package com.leon.pricing.service;
 
+import com.leon.pricing.model.MarketDataSnapshot;
+import com.leon.pricing.model.MarketDataStore;
 import com.leon.pricing.model.Volatility;
 import com.leon.pricing.repository.VolatilityRepository;
-import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class VolatilityServiceImpl implements VolatilityService
 {
     private static final Logger logger = LoggerFactory.getLogger(VolatilityServiceImpl.class);
-    private final Map<String, Volatility> volatilityCache = new HashMap<>();
+    @Autowired
+    private MarketDataStore marketDataStore;
+    @Autowired
+    private MarketDataWriteBehind marketDataWriteBehind;
     @Autowired
     private VolatilityRepository volatilityRepository;
 
-    @PostConstruct
-    private void initializeCache()
-    {
-        try
-        {
-            List<Volatility> volatilities = volatilityRepository.findAll();
-            volatilities.forEach(v -> volatilityCache.put(v.getInstrumentCode(), v));
-            logger.info("Initialized volatility cache with {} records", volatilities.size());
-        }
-        catch (Exception e)
-        {
-            logger.warn("Failed to initialize cache from database: {}", e.getMessage());
-        }
-    }
-    
+    // Filled at startup by MarketDataBootstrap and kept current by MarketDataChangeFollower.
     @Override
     public List<Volatility> loadVolatilities()
     {
-        if (volatilityCache.isEmpty())
-            initializeCache();
-        
-        List<Volatility> result = List.copyOf(volatilityCache.values());
+        List<Volatility> result = copiesOf(marketDataStore.snapshot().getVolatilities());
         logger.debug("Loaded {} volatility records from cache", result.size());
         return result;
     }
     
+    // Published volatilities are never modified: an update publishes a new instance under the same id and persists that.
     @Override
     public Volatility updateVolatility(String instrumentCode, Double volatilityPercentage, String lastUpdatedBy)
     {
-        Volatility existingVolatility = volatilityCache.get(instrumentCode);
+        Volatility existingVolatility = marketDataStore.snapshot().getVolatility(instrumentCode);
+        Volatility newVolatility = new Volatility(instrumentCode, volatilityPercentage, lastUpdatedBy);
         if (existingVolatility != null)
-        {
-            existingVolatility.setVolatilityPercentage(volatilityPercentage);
-            existingVolatility.setLastUpdatedBy(lastUpdatedBy);
-            existingVolatility.setLastUpdatedOn(LocalDate.now());
-            Volatility savedVolatility = volatilityRepository.save(existingVolatility);
-            volatilityCache.put(instrumentCode, savedVolatility);
-            logger.info("Updated volatility for instrument {}: {}% by user {}", instrumentCode, volatilityPercentage, lastUpdatedBy);
-            return savedVolatility;
+            newVolatility.setId(existingVolatility.getId());
 
-        }
+        // Visible to pricing at once; the database write is coalesced with other updates and flushed behind.
+        marketDataStore.publishVolatility(newVolatility);
+        marketDataWriteBehind.writeVolatility(newVolatility);
+
+        if (existingVolatility != null)
+            logger.info("Updated volatility for instrument {}: {}% by user {}", instrumentCode, volatilityPercentage, lastUpdatedBy);
         else
-        {
-            Volatility newVolatility = new Volatility(instrumentCode, volatilityPercentage, lastUpdatedBy);
-            Volatility savedVolatility = volatilityRepository.save(newVolatility);
-            volatilityCache.put(instrumentCode, savedVolatility);
             logger.info("Created new volatility for instrument {}: {}% by user {}", instrumentCode, volatilityPercentage, lastUpdatedBy);
-            return savedVolatility;
+
+        return new Volatility(newVolatility);
+    }
+
+    // Applied as one market data version and handed to the write-behind together, so they are persisted in one bulk write.
+    // Where the same volatility appears more than once, the last entry wins.
+    @Override
+    public List<Volatility> updateVolatilities(List<Volatility> volatilities)
+    {
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        Map<String, Volatility> newVolatilities = new LinkedHashMap<>();
+        for (Volatility volatility : volatilities)
+        {
+            Volatility existingVolatility = snapshot.getVolatility(volatility.getInstrumentCode());
+            Volatility newVolatility = new Volatility(volatility.getInstrumentCode(), volatility.getVolatilityPercentage(), volatility.getLastUpdatedBy());
+            if (existingVolatility != null)
+                newVolatility.setId(existingVolatility.getId());
+            newVolatilities.put(volatility.getInstrumentCode(), newVolatility);
         }
+
+        marketDataStore.publishVolatilities(newVolatilities.values());
+        marketDataWriteBehind.writeVolatilities(newVolatilities.values());
+        logger.info("Updated {} volatilities in bulk", newVolatilities.size());
+        return copiesOf(newVolatilities.values());
     }
     
     @Override
     public Volatility getVolatility(String instrumentCode)
     {
-        Volatility cachedVolatility = volatilityCache.get(instrumentCode);
+        Volatility cachedVolatility = marketDataStore.snapshot().getVolatility(instrumentCode);
         if (cachedVolatility != null)
-            return cachedVolatility;
+            return new Volatility(cachedVolatility);
 
         try
         {
             Optional<Volatility> dbVolatility = volatilityRepository.findByInstrumentCode(instrumentCode);
             if (dbVolatility.isPresent())
-            {
-                Volatility volatility = dbVolatility.get();
-                volatilityCache.put(instrumentCode, volatility);
-                return volatility;
-            }
+                return new Volatility(marketDataStore.publishVolatilityIfAbsent(dbVolatility.get()));
         }
         catch (Exception e)
         {
@@ -96,4 +100,50 @@ public class VolatilityServiceImpl implements VolatilityService
         
         return null;
     }
+
+    // Codes missing from the store are fetched with a single query and published for later lookups; unknown codes are
+    // left out of the result.
+    @Override
+    public List<Volatility> getVolatilities(Collection<String> instrumentCodes)
+    {
+        Set<String> requestedCodes = new LinkedHashSet<>(instrumentCodes);
+        List<String> missingCodes = new ArrayList<>();
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        for (String instrumentCode : requestedCodes)
+        {
+            if (snapshot.getVolatility(instrumentCode) == null)
+                missingCodes.add(instrumentCode);
+        }
+
+        if (!missingCodes.isEmpty())
+        {
+            try
+            {
+                marketDataStore.publishVolatilitiesIfAbsent(volatilityRepository.findByInstrumentCodeIn(missingCodes));
+                snapshot = marketDataStore.snapshot();
+            }
+            catch (Exception e)
+            {
+                logger.warn("Failed to retrieve {} volatilities from database: {}", missingCodes.size(), e.getMessage());
+            }
+        }
+
+        List<Volatility> result = new ArrayList<>(requestedCodes.size());
+        for (String instrumentCode : requestedCodes)
+        {
+            Volatility volatility = snapshot.getVolatility(instrumentCode);
+            if (volatility != null)
+                result.add(new Volatility(volatility));
+        }
+        return result;
+    }
+
+    // The store shares its published instances with every reader, so callers outside it only ever get copies.
+    private static List<Volatility> copiesOf(Collection<Volatility> volatilities)
+    {
+        List<Volatility> copies = new ArrayList<>(volatilities.size());
+        for (Volatility volatility : volatilities)
+            copies.add(new Volatility(volatility));
+        return copies;
+    }
 }
@@ -0,0 +1,73 @@
+package com.leon.pricing.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a full CRR quote, price and Greeks, from the current lattice kernel against the allocate-per-rollback kernel it
+ * replaced, kept in ReferenceBinomialTreeModel. Setup checks both give the same result to rounding, so the scores compare
+ * the same work. Run with mvn -B -Pbenchmark test-compile -Dbenchmark=BinomialLatticeBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class BinomialLatticeBenchmark
+{
+    @Param({"500", "1000", "5000"})
+    private int steps;
+
+    @Param({"true", "false"})
+    private boolean europeanOption;
+
+    private BinomialTreeOptionModel model;
+    private ReferenceBinomialTreeModel referenceModel;
+    private PricingContext context;
+
+    @Setup
+    public void setUp()
+    {
+        model = new BinomialTreeOptionModel();
+        model.setLatticeMethod(LatticeMethod.CRR);
+        model.setRichardsonExtrapolation(false);
+        model.setNumberOfSteps(steps);
+        referenceModel = new ReferenceBinomialTreeModel(steps);
+        context = new PricingContext(100.0, 100.0, 0.2, 0.05, 1.0, 250.0, false, europeanOption);
+
+        OptionPriceResult current = model.calculate(context, false);
+        OptionPriceResult reference = referenceModel.calculate(context);
+        if (!agree(current.getPrice(), reference.getPrice()) || !agree(current.getDelta(), reference.getDelta()) || !agree(current.getGamma(), reference.getGamma())
+                || !agree(current.getTheta(), reference.getTheta()) || !agree(current.getVega(), reference.getVega()) || !agree(current.getRho(), reference.getRho()))
+            throw new IllegalStateException("Current and reference lattices disagree: " + current + " vs " + reference);
+    }
+
+    // The current kernel folds discounting into its branch weights, so the two only agree to rounding.
+    private static boolean agree(double current, double reference)
+    {
+        return Math.abs(current - reference) <= 1e-9 * Math.max(1.0, Math.abs(reference));
+    }
+
+    @Benchmark
+    public OptionPriceResult current()
+    {
+        return model.calculate(context, false);
+    }
+
+    @Benchmark
+    public OptionPriceResult reference()
+    {
+        return referenceModel.calculate(context);
+    }
+}
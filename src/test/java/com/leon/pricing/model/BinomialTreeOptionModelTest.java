@@ -0,0 +1,131 @@
+package com.leon.pricing.model;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks that the lattices that are meant to converge smoothly do: Leisen-Reimer and binomial Black-Scholes, each with
+ * and without Richardson extrapolation, priced for European calls and puts at zero and positive rates. The reference is a
+ * closed form whose normal CDF is a series accurate to double precision, because the service's approximation is only good
+ * to about 1e-7 and so is coarser than a second-order lattice. CRR is left out: it oscillates in the step count, which is
+ * why it has no error guarantee.
+ */
+class BinomialTreeOptionModelTest
+{
+    private static final int COARSE_STEPS = 201;
+    private static final int FINE_STEPS = 801;
+
+    static Stream<Arguments> lattices()
+    {
+        // Method, Richardson, how much four times the steps must cut the error by, and the largest error allowed at the finer count.
+        return Stream.of(
+                Arguments.of(LatticeMethod.LEISEN_REIMER, false, 10.0, 1e-6),
+                Arguments.of(LatticeMethod.LEISEN_REIMER, true, 10.0, 1e-8),
+                Arguments.of(LatticeMethod.BINOMIAL_BLACK_SCHOLES, false, 3.0, 1e-3),
+                Arguments.of(LatticeMethod.BINOMIAL_BLACK_SCHOLES, true, 3.0, 1e-4));
+    }
+
+    @ParameterizedTest(name = "{0}, Richardson {1}")
+    @MethodSource("lattices")
+    void europeanPricesConvergeToBlackScholes(LatticeMethod latticeMethod, boolean richardsonExtrapolation, double minimumImprovement, double maximumError)
+    {
+        for (PricingContext context : europeanContexts())
+        {
+            double expected = blackScholesPrice(context);
+            double coarseError = Math.abs(model(latticeMethod, richardsonExtrapolation, COARSE_STEPS).calculate(context, false).getPrice() - expected);
+            double fineError = Math.abs(model(latticeMethod, richardsonExtrapolation, FINE_STEPS).calculate(context, false).getPrice() - expected);
+
+            assertThat(fineError).as("error at %d steps for %s", FINE_STEPS, context).isLessThan(maximumError);
+            assertThat(fineError).as("error at %d steps against %d for %s", FINE_STEPS, COARSE_STEPS, context).isLessThan(coarseError / minimumImprovement);
+        }
+    }
+
+    // With extrapolation the estimate is the correction applied, an upper bound; without it, it is the leading error term,
+    // which can fall a little short of the whole error.
+    @ParameterizedTest(name = "{0}, Richardson {1}")
+    @MethodSource("lattices")
+    void errorEstimateBoundsTheActualError(LatticeMethod latticeMethod, boolean richardsonExtrapolation)
+    {
+        double allowance = richardsonExtrapolation ? 1.0 : 1.25;
+        for (int steps : new int[] {COARSE_STEPS, FINE_STEPS})
+        {
+            BinomialTreeOptionModel model = model(latticeMethod, richardsonExtrapolation, steps);
+            for (PricingContext context : europeanContexts())
+            {
+                OptionPriceResult result = model.calculate(context, false);
+                assertThat(Math.abs(result.getPrice() - blackScholesPrice(context))).as("error at %d steps for %s", steps, context)
+                        .isLessThanOrEqualTo(allowance * result.getErrorEstimate());
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}, Richardson {1}")
+    @MethodSource("lattices")
+    void vegaAndRhoMatchBlackScholesIncludingAtAZeroRate(LatticeMethod latticeMethod, boolean richardsonExtrapolation)
+    {
+        BinomialTreeOptionModel model = model(latticeMethod, richardsonExtrapolation, FINE_STEPS);
+        EuropeanBlackScholesModel blackScholesModel = new EuropeanBlackScholesModel();
+        for (PricingContext context : europeanContexts())
+        {
+            OptionPriceResult result = model.calculate(context, false);
+            OptionPriceResult expected = blackScholesModel.calculate(context, false);
+
+            // The lattice quotes vega and rho per unit, Black-Scholes per 1%.
+            assertThat(result.getVega() * 0.01).as("vega for %s", context).isCloseTo(expected.getVega(), within(1e-4));
+            assertThat(result.getRho() * 0.01).as("rho for %s", context).isCloseTo(expected.getRho(), within(1e-4));
+        }
+    }
+
+    private static BinomialTreeOptionModel model(LatticeMethod latticeMethod, boolean richardsonExtrapolation, int steps)
+    {
+        BinomialTreeOptionModel model = new BinomialTreeOptionModel();
+        model.setLatticeMethod(latticeMethod);
+        model.setRichardsonExtrapolation(richardsonExtrapolation);
+        model.setNumberOfSteps(steps);
+        return model;
+    }
+
+    private static PricingContext[] europeanContexts()
+    {
+        PricingContext[] contexts = new PricingContext[12];
+        int index = 0;
+        for (double interestRate : new double[] {0.05, 0.0})
+        {
+            for (boolean isCall : new boolean[] {true, false})
+            {
+                for (double underlyingPrice : new double[] {90.0, 100.0, 110.0})
+                    contexts[index++] = new PricingContext(underlyingPrice, 100.0, 0.2, interestRate, 1.0, 250.0, isCall, true);
+            }
+        }
+        return contexts;
+    }
+
+    private static double blackScholesPrice(PricingContext context)
+    {
+        double volatilityOverExpiry = context.getVolatility() * Math.sqrt(context.getTimeToExpiryInYears());
+        double adjustedNormalizedDrift = (Math.log(context.getUnderlyingPrice() / context.getStrike())
+                + context.getInterestRate() * context.getTimeToExpiryInYears()) / volatilityOverExpiry + volatilityOverExpiry / 2;
+        double discountedStrike = context.getStrike() * Math.exp(-context.getInterestRate() * context.getTimeToExpiryInYears());
+        double sign = context.isCallOption() ? 1.0 : -1.0;
+        return sign * (context.getUnderlyingPrice() * normalCdf(sign * adjustedNormalizedDrift)
+                - discountedStrike * normalCdf(sign * (adjustedNormalizedDrift - volatilityOverExpiry)));
+    }
+
+    // Marsaglia's Taylor series for the normal CDF, summed until the terms no longer change the total.
+    private static double normalCdf(double x)
+    {
+        double sum = x;
+        double term = x;
+        for (int i = 3; sum + term != sum; i += 2)
+        {
+            term *= x * x / i;
+            sum += term;
+        }
+        return 0.5 + sum * Math.exp(-0.5 * x * x) / Math.sqrt(2 * Math.PI);
+    }
+}
@@ -0,0 +1,77 @@
+package com.leon.pricing.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the three ways a European batch can be priced: one calculate() per point, the scalar kernel and the vector
+ * kernel, over the same spot ladder. Scores are in ns per batch; divide by points for the cost of one option. The kernels
+ * are timed on a filled batch, as calculateRange and calculateGridTile use them, while calculate() builds its own result
+ * per point. Run with mvn -B -Pbenchmark test-compile -Dbenchmark=BlackScholesKernelBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class BlackScholesKernelBenchmark
+{
+    @Param({"8", "64", "1024", "16384"})
+    private int points;
+
+    private EuropeanBlackScholesModel model;
+    private PricingContext[] contexts;
+    private BlackScholesBatch batch;
+    private BlackScholesKernel scalarKernel;
+    private BlackScholesKernel vectorKernel;
+
+    @Setup
+    public void setUp()
+    {
+        model = new EuropeanBlackScholesModel();
+        scalarKernel = new ScalarBlackScholesKernel();
+        vectorKernel = new VectorBlackScholesKernel();
+
+        // Calls and puts alternate so neither kernel sees a single branch throughout.
+        contexts = new PricingContext[points];
+        batch = new BlackScholesBatch(points);
+        for (int i = 0; i < points; i++)
+        {
+            contexts[i] = new PricingContext(50.0 + 100.0 * i / points, 100.0, 0.25, 0.03, 0.75, 250.0, i % 2 == 0, true);
+            batch.set(i, contexts[i]);
+        }
+    }
+
+    @Benchmark
+    public void perPointCalculate(Blackhole blackhole)
+    {
+        for (PricingContext context : contexts)
+            blackhole.consume(model.calculate(context, false));
+    }
+
+    @Benchmark
+    public double[] scalarKernel()
+    {
+        scalarKernel.calculate(batch);
+        return batch.prices;
+    }
+
+    @Benchmark
+    public double[] vectorKernel()
+    {
+        vectorKernel.calculate(batch);
+        return batch.prices;
+    }
+}
@@ -0,0 +1,104 @@
+package com.leon.pricing.model;
+
+import com.leon.pricing.config.ExecutorConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the execution backends under a mix of range requests arriving together. The engine and models are wired
+ * by hand as Spring would wire them, with the result cache off so every range is priced. Six callers keep asking for
+ * 1001-point European spot ranges, which the vector kernel prices in a few large chunks. Two callers keep asking for
+ * 24-point American binomial ranges, which are priced a point at a time and hold workers far longer. Throughput mode gives
+ * the ranges of each kind completed per millisecond. Sample time mode gives their latency percentiles, where p99 shows how
+ * far the heavy ranges hold up the light ones. The virtual backend needs JDK 21; on older JDKs ExecutorConfig falls back
+ * to the platform backend, so its rows repeat the platform ones. Run with
+ * mvn -B -Pbenchmark test-compile -Dbenchmark=ExecutionBackendBenchmark.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class ExecutionBackendBenchmark
+{
+    private static final int EUROPEAN_RANGE_POINTS = 1001;
+    private static final int BINOMIAL_RANGE_POINTS = 24;
+    private static final int BINOMIAL_STEPS = 300;
+
+    @Param({"platform", "fork-join", "virtual"})
+    private String backend;
+
+    private ExecutionBackend executionBackend;
+    private EuropeanBlackScholesModel europeanModel;
+    private BinomialTreeOptionModel binomialModel;
+    private PricingContext europeanContext;
+    private PricingContext americanContext;
+
+    @Setup
+    public void setUp()
+    {
+        executionBackend = new ExecutorConfig().executionBackend(backend, 1000);
+
+        PricingResultCache pricingResultCache = new PricingResultCache();
+        ReflectionTestUtils.setField(pricingResultCache, "enabled", false);
+
+        RangeCalculationEngine rangeCalculationEngine = new RangeCalculationEngine();
+        ReflectionTestUtils.setField(rangeCalculationEngine, "executionBackend", executionBackend);
+        ReflectionTestUtils.setField(rangeCalculationEngine, "pricingResultCache", pricingResultCache);
+        ReflectionTestUtils.setField(rangeCalculationEngine, "maxConcurrentRanges", 8);
+        ReflectionTestUtils.invokeMethod(rangeCalculationEngine, "initializePermits");
+
+        europeanModel = new EuropeanBlackScholesModel();
+        ReflectionTestUtils.setField(europeanModel, "vectorizationEnabled", true);
+        ReflectionTestUtils.setField(europeanModel, "rangeCalculationEngine", rangeCalculationEngine);
+        ReflectionTestUtils.invokeMethod(europeanModel, "initializeKernel");
+
+        binomialModel = new BinomialTreeOptionModel();
+        binomialModel.setNumberOfSteps(BINOMIAL_STEPS);
+        ReflectionTestUtils.setField(binomialModel, "rangeCalculationEngine", rangeCalculationEngine);
+
+        europeanContext = new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, true, true);
+        americanContext = new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, false, false);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        executionBackend.shutdown();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public OptionPriceResultSet europeanRange()
+    {
+        OptionPriceResultSet results = new OptionPriceResultSet();
+        europeanModel.calculateRange(results, europeanContext, RangeKey.UNDERLYING_PRICE, 50.0, 150.0, 100.0 / (EUROPEAN_RANGE_POINTS - 1), false);
+        return results;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public OptionPriceResultSet binomialRange()
+    {
+        OptionPriceResultSet results = new OptionPriceResultSet();
+        binomialModel.calculateRange(results, americanContext, RangeKey.UNDERLYING_PRICE, 80.0, 80.0 + (BINOMIAL_RANGE_POINTS - 1), 1.0, false);
+        return results;
+    }
+}
@@ -0,0 +1,89 @@
+package com.leon.pricing.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks the Crank-Nicolson grid against closed forms where there are any: European prices and Greeks against
+ * Black-Scholes at spots away from the grid edges, American puts against their European and intrinsic lower bounds, and
+ * spot ranges against single quotes at the same spots, where the bumped Greeks of American options move most because the
+ * exercise boundary falls between nodes differently. The Black-Scholes model quotes vega and rho per 1%, so the grid's
+ * per-unit values are scaled to match.
+ */
+class FiniteDifferenceOptionModelTest
+{
+    private static final double[] INTERIOR_SPOTS = {70.0, 85.0, 100.0, 115.0, 130.0};
+
+    private final FiniteDifferenceOptionModel model = new FiniteDifferenceOptionModel();
+    private final EuropeanBlackScholesModel blackScholesModel = new EuropeanBlackScholesModel();
+
+    @ParameterizedTest(name = "rate {0}")
+    @ValueSource(doubles = {0.03, 0.0})
+    void europeanPricesAndGreeksMatchBlackScholesAtInteriorSpots(double interestRate)
+    {
+        for (boolean isCall : new boolean[] {true, false})
+        {
+            for (double underlyingPrice : INTERIOR_SPOTS)
+            {
+                PricingContext context = new PricingContext(underlyingPrice, 100.0, 0.25, interestRate, 0.75, 250.0, isCall, true);
+                OptionPriceResult result = model.calculate(context, false);
+                OptionPriceResult expected = blackScholesModel.calculate(context, false);
+
+                assertThat(result.getPrice()).as("price for %s", context).isCloseTo(expected.getPrice(), within(2e-3));
+                assertThat(result.getDelta()).as("delta for %s", context).isCloseTo(expected.getDelta(), within(1e-4));
+                assertThat(result.getGamma()).as("gamma for %s", context).isCloseTo(expected.getGamma(), within(1e-5));
+                assertThat(result.getVega() * 0.01).as("vega for %s", context).isCloseTo(expected.getVega(), within(1e-4));
+                assertThat(result.getRho() * 0.01).as("rho for %s", context).isCloseTo(expected.getRho(), within(1e-4));
+            }
+        }
+    }
+
+    @Test
+    void americanPutsAreWorthAtLeastTheEuropeanAndIntrinsic()
+    {
+        for (double underlyingPrice : new double[] {60.0, 80.0, 95.0, 100.0, 110.0, 130.0})
+        {
+            PricingContext american = new PricingContext(underlyingPrice, 100.0, 0.3, 0.05, 1.0, 250.0, false, false);
+            PricingContext european = new PricingContext(underlyingPrice, 100.0, 0.3, 0.05, 1.0, 250.0, false, true);
+            double americanPrice = model.calculate(american, false).getPrice();
+
+            assertThat(americanPrice).as("American put at %s", underlyingPrice).isGreaterThanOrEqualTo(model.calculate(european, false).getPrice());
+            assertThat(americanPrice).as("American put at %s", underlyingPrice).isGreaterThanOrEqualTo(100.0 - underlyingPrice - 1e-9);
+        }
+    }
+
+    @ParameterizedTest(name = "European {0}")
+    @ValueSource(booleans = {true, false})
+    void spotRangeMatchesSingleQuotesAtTheSameSpots(boolean isEuropean)
+    {
+        PricingContext context = new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, false, isEuropean);
+        OptionPriceResultSet resultSet = new OptionPriceResultSet();
+        model.calculateRange(resultSet, context, RangeKey.UNDERLYING_PRICE, 50.0, 200.0, 5.0, false);
+
+        double bumpedGreekTolerance = isEuropean ? 1e-4 : 2e-3;
+        assertThat(resultSet.getResults()).hasSize(31);
+        for (OptionPriceResult result : resultSet.getResults())
+        {
+            OptionPriceResult quote = model.calculate(context.withValue(RangeKey.UNDERLYING_PRICE, result.getRangeVariable()), false);
+            assertThat(result.getPrice()).as("price at %s", result.getRangeVariable()).isCloseTo(quote.getPrice(), within(2e-3));
+            assertThat(result.getDelta()).as("delta at %s", result.getRangeVariable()).isCloseTo(quote.getDelta(), within(1e-4));
+            assertThat(result.getVega() * 0.01).as("vega at %s", result.getRangeVariable()).isCloseTo(quote.getVega() * 0.01, within(bumpedGreekTolerance));
+            assertThat(result.getRho() * 0.01).as("rho at %s", result.getRangeVariable()).isCloseTo(quote.getRho() * 0.01, within(bumpedGreekTolerance));
+        }
+    }
+
+    @Test
+    void rangeTooWideForTheGridIsRejected()
+    {
+        PricingContext context = new PricingContext(100.0, 100.0, 0.05, 0.03, 0.05, 250.0, true, true);
+
+        assertThatThrownBy(() -> model.estimateRangeWork(context, RangeKey.UNDERLYING_PRICE, 1.0, 10_000.0, 10_000))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("narrow the range");
+    }
+}
@@ -0,0 +1,77 @@
+package com.leon.pricing.model;
+
+import org.junit.jupiter.api.Test;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A reload must not roll back a stamped entry with an unstamped database copy, while a replicated change without a stamp
+// still applies.
+class MarketDataStoreTest
+{
+    private final MarketDataStore marketDataStore = new MarketDataStore();
+
+    @Test
+    void reconcileKeepsStampedEntriesOverUnstampedCopies()
+    {
+        marketDataStore.publishPrice(new Price("AAPL", 101.0, 100.0, "local"));
+        marketDataStore.publishVolatility(new Volatility("AAPL", 25.0, "local"));
+        marketDataStore.publishInterestRate(new InterestRate("USD", 5.0, "local"));
+
+        marketDataStore.reconcilePrices(List.of(unstamped(new Price("AAPL", 1.0, 1.0, "database"))));
+        marketDataStore.reconcileVolatilities(List.of(unstamped(new Volatility("AAPL", 1.0, "database"))));
+        marketDataStore.reconcileInterestRates(List.of(unstamped(new InterestRate("USD", 1.0, "database"))));
+
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        assertThat(snapshot.getPrice("AAPL").getClosePrice()).isEqualTo(101.0);
+        assertThat(snapshot.getVolatility("AAPL").getVolatilityPercentage()).isEqualTo(25.0);
+        assertThat(snapshot.getInterestRate("USD").getInterestRatePercentage()).isEqualTo(5.0);
+    }
+
+    @Test
+    void reconcileFillsAbsentAndUnstampedEntriesAndTakesNewerOnes()
+    {
+        marketDataStore.publishPrice(unstamped(new Price("MSFT", 401.0, 400.0, "local")));
+        Price older = new Price("AAPL", 101.0, 100.0, "local");
+        older.setLastModified(Instant.parse("2024-01-01T00:00:00Z"));
+        marketDataStore.publishPrice(older);
+
+        Price newer = new Price("AAPL", 102.0, 101.0, "database");
+        newer.setLastModified(Instant.parse("2024-01-02T00:00:00Z"));
+        marketDataStore.reconcilePrices(List.of(newer, unstamped(new Price("MSFT", 402.0, 401.0, "database")), unstamped(new Price("GOOG", 151.0, 150.0, "database"))));
+
+        MarketDataSnapshot snapshot = marketDataStore.snapshot();
+        assertThat(snapshot.getPrice("AAPL").getClosePrice()).isEqualTo(102.0);
+        assertThat(snapshot.getPrice("MSFT").getClosePrice()).isEqualTo(402.0);
+        assertThat(snapshot.getPrice("GOOG").getClosePrice()).isEqualTo(151.0);
+    }
+
+    @Test
+    void replicatedChangesWithoutAStampAreTakenAsTheLatest()
+    {
+        marketDataStore.publishPrice(new Price("AAPL", 101.0, 100.0, "local"));
+
+        marketDataStore.publishPricesIfNewer(List.of(unstamped(new Price("AAPL", 102.0, 101.0, "database"))));
+
+        assertThat(marketDataStore.snapshot().getPrice("AAPL").getClosePrice()).isEqualTo(102.0);
+    }
+
+    private static Price unstamped(Price price)
+    {
+        price.setLastModified(null);
+        return price;
+    }
+
+    private static Volatility unstamped(Volatility volatility)
+    {
+        volatility.setLastModified(null);
+        return volatility;
+    }
+
+    private static InterestRate unstamped(InterestRate interestRate)
+    {
+        interestRate.setLastModified(null);
+        return interestRate;
+    }
+}
@@ -0,0 +1,81 @@
+package com.leon.pricing.model;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the antithetic, control-variate estimator against Black-Scholes in units of its own reported standard errors, so
+ * a wrong value and an understated error both fail. Seeds derive from the inputs, so every run draws the same paths and
+ * the bounds cannot fail by chance on one run and pass on the next. Black-Scholes quotes vega and rho per 1% and theta per
+ * day, so theta is left out and vega and rho are compared per unit.
+ */
+class MonteCarloOptionModelTest
+{
+    private static final double STANDARD_ERRORS = 4.0;
+    private static final long MAX_ADAPTIVE_SIMULATIONS = 10_000_000;
+
+    private final MonteCarloOptionModel model = new MonteCarloOptionModel();
+    private final EuropeanBlackScholesModel blackScholesModel = new EuropeanBlackScholesModel();
+
+    MonteCarloOptionModelTest()
+    {
+        RangeCalculationEngine rangeCalculationEngine = new RangeCalculationEngine();
+        ReflectionTestUtils.setField(rangeCalculationEngine, "executionBackend", new ForkJoinExecutionBackend(new ForkJoinPool(2)));
+        ReflectionTestUtils.setField(model, "rangeCalculationEngine", rangeCalculationEngine);
+    }
+
+    @Test
+    void pricesAndGreeksLandWithinAFewStandardErrorsOfBlackScholes()
+    {
+        for (double interestRate : new double[] {0.03, 0.0})
+        {
+            for (boolean isCall : new boolean[] {true, false})
+            {
+                for (double underlyingPrice : new double[] {80.0, 100.0, 120.0})
+                {
+                    PricingContext context = new PricingContext(underlyingPrice, 100.0, 0.25, interestRate, 0.75, 250.0, isCall, true);
+                    OptionPriceResult result = model.calculate(context, false);
+                    OptionPriceResult expected = blackScholesModel.calculate(context, false);
+                    StandardErrors standardErrors = result.getStandardErrors();
+
+                    assertThat(result.getPrice()).as("price for %s", context).isCloseTo(expected.getPrice(), withinStandardErrors(standardErrors.getPrice()));
+                    assertThat(result.getDelta()).as("delta for %s", context).isCloseTo(expected.getDelta(), withinStandardErrors(standardErrors.getDelta()));
+                    assertThat(result.getGamma()).as("gamma for %s", context).isCloseTo(expected.getGamma(), withinStandardErrors(standardErrors.getGamma()));
+                    assertThat(result.getVega()).as("vega for %s", context).isCloseTo(expected.getVega() * 100, withinStandardErrors(standardErrors.getVega()));
+                    assertThat(result.getRho()).as("rho for %s", context).isCloseTo(expected.getRho() * 100, withinStandardErrors(standardErrors.getRho()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void targetStandardErrorStopsBeforeTheCap()
+    {
+        PricingContext context = new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, true, true, 0.01);
+        OptionPriceResult result = model.calculate(context, false);
+
+        assertThat(result.getStandardErrors().getPrice()).isLessThanOrEqualTo(0.01);
+        assertThat(result.getPathCount()).isLessThan(MAX_ADAPTIVE_SIMULATIONS);
+        assertThat(result.getPrice()).isCloseTo(blackScholesModel.calculate(context, false).getPrice(), withinStandardErrors(result.getStandardErrors().getPrice()));
+    }
+
+    @Test
+    void adaptiveRunIsEstimatedAtTheDefaultSizeAndSettledOnItsPaths()
+    {
+        PricingContext context = new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, true, true, 0.01);
+        OptionPriceResult result = model.calculate(context, false);
+
+        assertThat(model.estimateWork(context)).isEqualTo(100_000.0);
+        assertThat(model.unestimatedWork(context, 1, result.getPathCount())).isEqualTo(result.getPathCount() - 100_000.0);
+        assertThat(model.unestimatedWork(new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, true, true), 1, result.getPathCount())).isZero();
+    }
+
+    private static Offset<Double> withinStandardErrors(double standardError)
+    {
+        return Offset.offset(STANDARD_ERRORS * standardError);
+    }
+}
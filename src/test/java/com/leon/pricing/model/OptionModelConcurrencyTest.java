@@ -0,0 +1,212 @@
+package com.leon.pricing.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prices the same inputs from many threads at once on every model and checks each result against the one the same model
+ * gives when the inputs are priced one after another. Every model is deterministic for given inputs, Monte Carlo
+ * included, so any difference at all means one calculation saw another's state. A second test runs concurrent batches
+ * through the vector Black-Scholes kernel. Settings are cut down from production so the suite runs in seconds; the code
+ * paths are the same.
+ */
+class OptionModelConcurrencyTest
+{
+    private static final int THREADS = 16;
+    private static final int PASSES = 3;
+    // The simulations fan their chunks out through the range engine; a pool of several workers makes sure they really split.
+    private static final RangeCalculationEngine RANGE_CALCULATION_ENGINE = rangeCalculationEngine();
+
+    static Stream<Arguments> models()
+    {
+        return Stream.of(
+                Arguments.of("European Black-Scholes", (Supplier<OptionModel>) OptionModelConcurrencyTest::europeanModel, true),
+                Arguments.of("American Black-Scholes", (Supplier<OptionModel>) AmericanBlackScholesModel::new, true),
+                Arguments.of("Binomial tree", (Supplier<OptionModel>) OptionModelConcurrencyTest::binomialModel, true),
+                Arguments.of("Monte Carlo", (Supplier<OptionModel>) OptionModelConcurrencyTest::monteCarloModel, false),
+                Arguments.of("Quasi-Monte Carlo", (Supplier<OptionModel>) OptionModelConcurrencyTest::quasiMonteCarloModel, false),
+                Arguments.of("Finite difference", (Supplier<OptionModel>) OptionModelConcurrencyTest::finiteDifferenceModel, true));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("models")
+    void concurrentCalculationsMatchSerialOnes(String name, Supplier<OptionModel> modelFactory, boolean supportsAmerican) throws Exception
+    {
+        OptionModel model = modelFactory.get();
+        List<PricingContext> contexts = contexts(supportsAmerican);
+        List<OptionPriceResult> expected = new ArrayList<>();
+        for (PricingContext context : contexts)
+            expected.add(model.calculate(context, false));
+
+        // Each thread walks the inputs from a different starting point, so neighbouring calls differ on every thread.
+        List<Callable<List<OptionPriceResult>>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++)
+        {
+            int offset = thread * 7;
+            tasks.add(() ->
+            {
+                OptionPriceResult[] results = new OptionPriceResult[contexts.size()];
+                for (int pass = 0; pass < PASSES; pass++)
+                {
+                    for (int i = 0; i < contexts.size(); i++)
+                    {
+                        int index = (offset + i) % contexts.size();
+                        OptionPriceResult result = model.calculate(contexts.get(index), false);
+                        if (results[index] == null)
+                            results[index] = result;
+                        else
+                            assertSameResult(results[index], result, contexts.get(index));
+                    }
+                }
+                return List.of(results);
+            });
+        }
+
+        for (List<OptionPriceResult> results : runTogether(tasks))
+        {
+            for (int i = 0; i < contexts.size(); i++)
+                assertSameResult(expected.get(i), results.get(i), contexts.get(i));
+        }
+    }
+
+    @Test
+    void concurrentVectorBatchesMatchSerialOnes() throws Exception
+    {
+        OptionModel model = europeanModel();
+        PricingContext[] contexts = contexts(false).toArray(PricingContext[]::new);
+        OptionPriceResult[] expected = model.calculateAll(contexts, false);
+
+        List<Callable<List<OptionPriceResult>>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++)
+            tasks.add(() -> List.of(model.calculateAll(contexts, false)));
+
+        for (List<OptionPriceResult> results : runTogether(tasks))
+        {
+            for (int i = 0; i < contexts.length; i++)
+                assertSameResult(expected[i], results.get(i), contexts[i]);
+        }
+    }
+
+    // All tasks are released at once so their calculations overlap as much as possible.
+    private static <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try
+        {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks)
+            {
+                futures.add(executor.submit(() ->
+                {
+                    start.await();
+                    return task.call();
+                }));
+            }
+
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures)
+                results.add(future.get());
+            return results;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<PricingContext> contexts(boolean includeAmerican)
+    {
+        List<PricingContext> contexts = new ArrayList<>();
+        int index = 0;
+        for (double underlyingPrice : new double[] {80.0, 95.0, 100.0, 120.0})
+        {
+            for (double volatility : new double[] {0.15, 0.4})
+            {
+                for (boolean isCall : new boolean[] {true, false})
+                {
+                    boolean isEuropean = !includeAmerican || index % 2 == 0;
+                    double timeToExpiry = 0.25 + 0.25 * (index % 4);
+                    contexts.add(new PricingContext(underlyingPrice, 100.0, volatility, 0.01 + 0.01 * (index % 5), timeToExpiry, 250.0, isCall, isEuropean));
+                    index++;
+                }
+            }
+        }
+        return contexts;
+    }
+
+    private static void assertSameResult(OptionPriceResult expected, OptionPriceResult actual, PricingContext context)
+    {
+        assertThat(actual.getPrice()).as("price for %s", context).isEqualTo(expected.getPrice());
+        assertThat(actual.getDelta()).as("delta for %s", context).isEqualTo(expected.getDelta());
+        assertThat(actual.getGamma()).as("gamma for %s", context).isEqualTo(expected.getGamma());
+        assertThat(actual.getTheta()).as("theta for %s", context).isEqualTo(expected.getTheta());
+        assertThat(actual.getVega()).as("vega for %s", context).isEqualTo(expected.getVega());
+        assertThat(actual.getRho()).as("rho for %s", context).isEqualTo(expected.getRho());
+        assertThat(actual.getErrorEstimate()).as("error estimate for %s", context).isEqualTo(expected.getErrorEstimate());
+    }
+
+    private static OptionModel europeanModel()
+    {
+        EuropeanBlackScholesModel model = new EuropeanBlackScholesModel();
+        ReflectionTestUtils.setField(model, "vectorizationEnabled", true);
+        ReflectionTestUtils.invokeMethod(model, "initializeKernel");
+        return model;
+    }
+
+    private static OptionModel binomialModel()
+    {
+        BinomialTreeOptionModel model = new BinomialTreeOptionModel();
+        model.setLatticeMethod(LatticeMethod.BINOMIAL_BLACK_SCHOLES);
+        model.setRichardsonExtrapolation(true);
+        model.setNumberOfSteps(200);
+        return model;
+    }
+
+    private static OptionModel monteCarloModel()
+    {
+        MonteCarloOptionModel model = new MonteCarloOptionModel();
+        model.setNumberOfSimulations(20_000);
+        ReflectionTestUtils.setField(model, "rangeCalculationEngine", RANGE_CALCULATION_ENGINE);
+        return model;
+    }
+
+    private static OptionModel quasiMonteCarloModel()
+    {
+        QuasiMonteCarloOptionModel model = new QuasiMonteCarloOptionModel();
+        model.setLog2PointsPerReplicate(9);
+        ReflectionTestUtils.setField(model, "rangeCalculationEngine", RANGE_CALCULATION_ENGINE);
+        return model;
+    }
+
+    private static OptionModel finiteDifferenceModel()
+    {
+        FiniteDifferenceOptionModel model = new FiniteDifferenceOptionModel();
+        model.setSpaceSteps(120);
+        model.setTimeSteps(60);
+        return model;
+    }
+
+    private static RangeCalculationEngine rangeCalculationEngine()
+    {
+        RangeCalculationEngine rangeCalculationEngine = new RangeCalculationEngine();
+        ReflectionTestUtils.setField(rangeCalculationEngine, "executionBackend", new ForkJoinExecutionBackend(new ForkJoinPool(4)));
+        return rangeCalculationEngine;
+    }
+}
@@ -0,0 +1,52 @@
+package com.leon.pricing.model;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Cached results are shared by every later hit, so nothing a caller does to its copy may reach them, and a model whose
+// settings change must not be served results priced under the old ones.
+class PricingResultCacheTest
+{
+    private final PricingResultCache pricingResultCache = new PricingResultCache();
+    private final PricingContext context = new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, true, true);
+
+    PricingResultCacheTest()
+    {
+        ReflectionTestUtils.setField(pricingResultCache, "enabled", true);
+        ReflectionTestUtils.setField(pricingResultCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(pricingResultCache, "expireAfterWriteSeconds", 300L);
+        ReflectionTestUtils.setField(pricingResultCache, "significantBits", 32);
+        ReflectionTestUtils.invokeMethod(pricingResultCache, "initializeCache");
+    }
+
+    @Test
+    void standardErrorsOfCachedResultsCannotBeChangedThroughCopies()
+    {
+        MonteCarloOptionModel model = new MonteCarloOptionModel();
+        OptionPriceResult priced = new OptionPriceResult(0.5, 0.02, 40.0, -5.0, 30.0, 10.0);
+        priced.setStandardErrors(new StandardErrors(0.01, 0.001, 0.0001, 0.1, 0.1, 0.1));
+
+        pricingResultCache.calculate(model, context, () -> priced).getStandardErrors().setPrice(1.0);
+        priced.getStandardErrors().setPrice(2.0);
+
+        assertThat(pricingResultCache.calculate(model, context, () -> null).getStandardErrors().getPrice()).isEqualTo(0.01);
+    }
+
+    @Test
+    void changingAModelSettingKeysANewEntry()
+    {
+        BinomialTreeOptionModel model = new BinomialTreeOptionModel();
+        model.setNumberOfSteps(200);
+        AtomicInteger calculations = new AtomicInteger();
+
+        pricingResultCache.calculate(model, context, () -> new OptionPriceResult(0.5, 0.02, 40.0, -5.0, 30.0, calculations.incrementAndGet()));
+        model.setNumberOfSteps(400);
+        OptionPriceResult result = pricingResultCache.calculate(model, context, () -> new OptionPriceResult(0.5, 0.02, 40.0, -5.0, 30.0, calculations.incrementAndGet()));
+
+        assertThat(calculations).hasValue(2);
+        assertThat(result.getPrice()).isEqualTo(2.0);
+    }
+}
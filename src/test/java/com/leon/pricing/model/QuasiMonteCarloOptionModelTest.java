@@ -0,0 +1,82 @@
+package com.leon.pricing.model;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the scrambled Sobol estimator against Black-Scholes in units of the standard error it derives from the spread of
+ * its replicates, which is the error a single QMC run cannot report. Scramblings are seeded from the inputs, so the
+ * bounds hold the same way on every run. Theta is left out and vega and rho are compared per unit, as in
+ * MonteCarloOptionModelTest.
+ */
+class QuasiMonteCarloOptionModelTest
+{
+    private static final double STANDARD_ERRORS = 4.0;
+    // 16 replicates of at most 2^19 points, each point driving an antithetic pair.
+    private static final long MAX_ADAPTIVE_PATHS = 16L * 2 * (1 << 19);
+
+    private final QuasiMonteCarloOptionModel model = new QuasiMonteCarloOptionModel();
+    private final EuropeanBlackScholesModel blackScholesModel = new EuropeanBlackScholesModel();
+
+    QuasiMonteCarloOptionModelTest()
+    {
+        RangeCalculationEngine rangeCalculationEngine = new RangeCalculationEngine();
+        ReflectionTestUtils.setField(rangeCalculationEngine, "executionBackend", new ForkJoinExecutionBackend(new ForkJoinPool(2)));
+        ReflectionTestUtils.setField(model, "rangeCalculationEngine", rangeCalculationEngine);
+    }
+
+    @Test
+    void pricesAndGreeksLandWithinAFewStandardErrorsOfBlackScholes()
+    {
+        for (double interestRate : new double[] {0.03, 0.0})
+        {
+            for (boolean isCall : new boolean[] {true, false})
+            {
+                for (double underlyingPrice : new double[] {80.0, 100.0, 120.0})
+                {
+                    PricingContext context = new PricingContext(underlyingPrice, 100.0, 0.25, interestRate, 0.75, 250.0, isCall, true);
+                    OptionPriceResult result = model.calculate(context, false);
+                    OptionPriceResult expected = blackScholesModel.calculate(context, false);
+                    StandardErrors standardErrors = result.getStandardErrors();
+
+                    assertThat(result.getPrice()).as("price for %s", context).isCloseTo(expected.getPrice(), withinStandardErrors(standardErrors.getPrice()));
+                    assertThat(result.getDelta()).as("delta for %s", context).isCloseTo(expected.getDelta(), withinStandardErrors(standardErrors.getDelta()));
+                    assertThat(result.getGamma()).as("gamma for %s", context).isCloseTo(expected.getGamma(), withinStandardErrors(standardErrors.getGamma()));
+                    assertThat(result.getVega()).as("vega for %s", context).isCloseTo(expected.getVega() * 100, withinStandardErrors(standardErrors.getVega()));
+                    assertThat(result.getRho()).as("rho for %s", context).isCloseTo(expected.getRho() * 100, withinStandardErrors(standardErrors.getRho()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void targetStandardErrorStopsBeforeTheCap()
+    {
+        PricingContext context = new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, true, true, 0.01);
+        OptionPriceResult result = model.calculate(context, false);
+
+        assertThat(result.getStandardErrors().getPrice()).isLessThanOrEqualTo(0.01);
+        assertThat(result.getPathCount()).isLessThan(MAX_ADAPTIVE_PATHS);
+        assertThat(result.getPrice()).isCloseTo(blackScholesModel.calculate(context, false).getPrice(), withinStandardErrors(result.getStandardErrors().getPrice()));
+    }
+
+    @Test
+    void adaptiveRunIsEstimatedAtTheDefaultSizeAndSettledOnItsPaths()
+    {
+        PricingContext context = new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, true, true, 0.01);
+        OptionPriceResult result = model.calculate(context, false);
+
+        assertThat(model.estimateWork(context)).isEqualTo(16.0 * (1 << 12));
+        assertThat(model.unestimatedWork(context, 1, result.getPathCount())).isEqualTo((result.getPathCount() / 2.0) - (16.0 * (1 << 12)));
+        assertThat(model.unestimatedWork(new PricingContext(100.0, 100.0, 0.25, 0.03, 0.75, 250.0, true, true), 1, result.getPathCount())).isZero();
+    }
+
+    private static Offset<Double> withinStandardErrors(double standardError)
+    {
+        return Offset.offset(STANDARD_ERRORS * standardError);
+    }
+}
@@ -0,0 +1,146 @@
+package com.leon.pricing.model;
+
+import static java.lang.Math.*;
+
+/**
+ * The CRR lattice as it was before the kernel moved to reusable per-thread buffers: a fresh exercise table and option
+ * value array for every rollback, the payoff branch inside the table build and the exercise branch inside the node loop.
+ * Kept only as the baseline for BinomialLatticeBenchmark; its results match BinomialTreeOptionModel with the CRR method
+ * to rounding.
+ */
+final class ReferenceBinomialTreeModel
+{
+    private final int numberOfSteps;
+
+    ReferenceBinomialTreeModel(int numberOfSteps)
+    {
+        this.numberOfSteps = numberOfSteps;
+    }
+
+    OptionPriceResult calculate(PricingContext context)
+    {
+        OptionPriceResult optionResult = new OptionPriceResult();
+        LatticeLayout layout = new LatticeLayout(context, context.getVolatility(), numberOfSteps);
+        LatticeResult lattice = rollBack(layout, context.getInterestRate(), context.isEuropeanOption());
+        optionResult.setPrice(lattice.price);
+        optionResult.setDelta(calculateDelta(layout, lattice));
+        optionResult.setGamma(calculateGamma(layout, lattice));
+        optionResult.setTheta(calculateTheta(layout, lattice));
+        optionResult.setVega(calculateVega(context));
+        optionResult.setRho(calculateRho(context, layout));
+        return optionResult;
+    }
+
+    private static final class LatticeLayout
+    {
+        private final int numberOfSteps;
+        private final double dt;
+        private final double underlyingPrice;
+        private final double up;
+        private final double down;
+        private final double[] exerciseValues;
+
+        private LatticeLayout(PricingContext context, double volatility, int numberOfSteps)
+        {
+            this.numberOfSteps = numberOfSteps;
+            this.dt = context.getTimeToExpiryInYears() / numberOfSteps;
+            this.underlyingPrice = context.getUnderlyingPrice();
+            double volatilityOverStep = volatility * sqrt(dt);
+            this.up = exp(volatilityOverStep);
+            this.down = 1.0 / up;
+            this.exerciseValues = new double[2 * numberOfSteps + 1];
+
+            for (int k = 0; k <= 2 * numberOfSteps; k++)
+            {
+                double stockPrice = underlyingPrice * exp((k - numberOfSteps) * volatilityOverStep);
+                exerciseValues[k] = calculatePayoff(context.isCallOption(), stockPrice, context.getStrike());
+            }
+        }
+
+        private double exerciseValue(int step, int i)
+        {
+            return exerciseValues[step - 2 * i + numberOfSteps];
+        }
+    }
+
+    private static final class LatticeResult
+    {
+        private double price;
+        private final double[] stepOneValues = new double[2];
+        private final double[] stepTwoValues = new double[3];
+    }
+
+    private static LatticeResult rollBack(LatticeLayout layout, double interestRate, boolean isEuropeanOption)
+    {
+        int numberOfSteps = layout.numberOfSteps;
+        double growthFactor = exp(interestRate * layout.dt);
+        double p = (growthFactor - layout.down) / (layout.up - layout.down);
+        double discountFactor = 1.0 / growthFactor;
+        LatticeResult result = new LatticeResult();
+
+        double[] optionValues = new double[numberOfSteps + 1];
+        for (int i = 0; i <= numberOfSteps; i++)
+            optionValues[i] = layout.exerciseValue(numberOfSteps, i);
+
+        for (int step = numberOfSteps - 1; step >= 0; step--)
+        {
+            for (int i = 0; i <= step; i++)
+            {
+                double holdValue = discountFactor * (p * optionValues[i] + (1 - p) * optionValues[i + 1]);
+                optionValues[i] = isEuropeanOption ? holdValue : max(layout.exerciseValue(step, i), holdValue);
+            }
+
+            if (step == 2)
+                System.arraycopy(optionValues, 0, result.stepTwoValues, 0, 3);
+            else if (step == 1)
+                System.arraycopy(optionValues, 0, result.stepOneValues, 0, 2);
+        }
+
+        result.price = optionValues[0];
+        return result;
+    }
+
+    private static double calculatePayoff(boolean isCallOption, double stockPrice, double strike)
+    {
+        return isCallOption ? max(stockPrice - strike, 0.0) : max(strike - stockPrice, 0.0);
+    }
+
+    private static double calculateDelta(LatticeLayout layout, LatticeResult lattice)
+    {
+        double underlyingPrice = layout.underlyingPrice;
+        return (lattice.stepOneValues[0] - lattice.stepOneValues[1]) / (underlyingPrice * layout.up - underlyingPrice * layout.down);
+    }
+
+    private static double calculateGamma(LatticeLayout layout, LatticeResult lattice)
+    {
+        double underlyingPrice = layout.underlyingPrice;
+        double priceUpUp = underlyingPrice * layout.up * layout.up;
+        double priceDownDown = underlyingPrice * layout.down * layout.down;
+        double deltaUp = (lattice.stepTwoValues[0] - lattice.stepTwoValues[1]) / (priceUpUp - underlyingPrice);
+        double deltaDown = (lattice.stepTwoValues[1] - lattice.stepTwoValues[2]) / (underlyingPrice - priceDownDown);
+        return (deltaUp - deltaDown) / (0.5 * (priceUpUp - priceDownDown));
+    }
+
+    private static double calculateTheta(LatticeLayout layout, LatticeResult lattice)
+    {
+        return (lattice.price - lattice.stepTwoValues[1]) / (2 * layout.dt);
+    }
+
+    private double calculateVega(PricingContext context)
+    {
+        double volatility = context.getVolatility();
+        double epsilon = volatility * 0.01;
+        double priceUp = rollBack(new LatticeLayout(context, volatility + epsilon, numberOfSteps), context.getInterestRate(), context.isEuropeanOption()).price;
+        double priceDown = rollBack(new LatticeLayout(context, volatility - epsilon, numberOfSteps), context.getInterestRate(), context.isEuropeanOption()).price;
+        return (priceUp - priceDown) / (2 * epsilon);
+    }
+
+    private static double calculateRho(PricingContext context, LatticeLayout layout)
+    {
+        double interestRate = context.getInterestRate();
+        double epsilon = interestRate * 0.01;
+        double priceUp = rollBack(layout, interestRate + epsilon, context.isEuropeanOption()).price;
+        double priceDown = rollBack(layout, interestRate - epsilon, context.isEuropeanOption()).price;
+        return (priceUp - priceDown) / (2 * epsilon);
+    }
+}
@@ -0,0 +1,197 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.InterestRate;
+import com.leon.pricing.model.MarketDataStore;
+import com.leon.pricing.model.Price;
+import com.leon.pricing.model.Volatility;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the follower against a local stand-in for MongoDB: the template's find runs the follower's lastModified query
+ * over in-memory collections, and change stream events are built by hand, so neither path needs a running database.
+ */
+class MarketDataChangeFollowerTest
+{
+    private static final Instant T0 = Instant.parse("2024-03-01T10:00:00Z");
+    private static final long OVERLAP_MS = 5_000;
+
+    private final List<Price> prices = new ArrayList<>();
+    private final List<Volatility> volatilities = new ArrayList<>();
+    private final List<InterestRate> interestRates = new ArrayList<>();
+    private MappingMongoConverter converter;
+    private MarketDataStore marketDataStore;
+    private MarketDataChangeFollower follower;
+
+    @BeforeEach
+    void setUp()
+    {
+        converter = MongoTestSupport.converter();
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(Price.class)).thenReturn("prices");
+        when(mongoTemplate.getCollectionName(Volatility.class)).thenReturn("volatilities");
+        when(mongoTemplate.getCollectionName(InterestRate.class)).thenReturn("interestRates");
+        when(mongoTemplate.indexOps(any(Class.class))).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.find(any(Query.class), eq(Price.class))).thenAnswer(call -> modifiedSince(call.getArgument(0), prices, Price::getLastModified));
+        when(mongoTemplate.find(any(Query.class), eq(Volatility.class))).thenAnswer(call -> modifiedSince(call.getArgument(0), volatilities, Volatility::getLastModified));
+        when(mongoTemplate.find(any(Query.class), eq(InterestRate.class))).thenAnswer(call -> modifiedSince(call.getArgument(0), interestRates, InterestRate::getLastModified));
+
+        marketDataStore = new MarketDataStore();
+        follower = new MarketDataChangeFollower();
+        ReflectionTestUtils.setField(follower, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(follower, "marketDataStore", marketDataStore);
+        ReflectionTestUtils.setField(follower, "pollOverlapMs", OVERLAP_MS);
+    }
+
+    @Test
+    void changeStreamInsertIsPublished()
+    {
+        follower.apply(change(OperationType.INSERT, "prices", price("AAPL", 101.0, T0)));
+        follower.apply(change(OperationType.UPDATE, "volatilities", volatility("AAPL", 22.0, T0)));
+        follower.apply(change(OperationType.REPLACE, "interestRates", interestRate("USD", 4.5, T0)));
+
+        assertThat(marketDataStore.snapshot().getPrice("AAPL").getClosePrice()).isEqualTo(101.0);
+        assertThat(marketDataStore.snapshot().getVolatility("AAPL").getVolatilityPercentage()).isEqualTo(22.0);
+        assertThat(marketDataStore.snapshot().getInterestRate("USD").getInterestRatePercentage()).isEqualTo(4.5);
+    }
+
+    @Test
+    void changeStreamEchoOfAnOlderWriteDoesNotRollBack()
+    {
+        follower.apply(change(OperationType.UPDATE, "prices", price("AAPL", 102.0, T0.plusSeconds(2))));
+        follower.apply(change(OperationType.UPDATE, "prices", price("AAPL", 101.0, T0.plusSeconds(1))));
+
+        assertThat(marketDataStore.snapshot().getPrice("AAPL").getClosePrice()).isEqualTo(102.0);
+    }
+
+    @Test
+    void changeStreamDeleteIsIgnored()
+    {
+        follower.apply(change(OperationType.INSERT, "prices", price("AAPL", 101.0, T0)));
+        follower.apply(change(OperationType.DELETE, "prices", null));
+
+        assertThat(marketDataStore.snapshot().getPrice("AAPL").getClosePrice()).isEqualTo(101.0);
+    }
+
+    @Test
+    void pollPublishesNewAndChangedDocuments()
+    {
+        prices.add(price("AAPL", 101.0, T0));
+        volatilities.add(volatility("AAPL", 22.0, T0));
+        interestRates.add(interestRate("USD", 4.5, T0));
+        follower.pollOnce();
+
+        prices.add(price("AAPL", 103.0, T0.plusSeconds(10)));
+        follower.pollOnce();
+
+        assertThat(marketDataStore.snapshot().getPrice("AAPL").getClosePrice()).isEqualTo(103.0);
+        assertThat(marketDataStore.snapshot().getVolatility("AAPL").getVolatilityPercentage()).isEqualTo(22.0);
+        assertThat(marketDataStore.snapshot().getInterestRate("USD").getInterestRatePercentage()).isEqualTo(4.5);
+    }
+
+    @Test
+    void pollPicksUpDocumentThatLandsAfterALaterStampedOne()
+    {
+        // MSFT was stamped first but reaches the database only after AAPL, stamped later, has already been polled.
+        prices.add(price("AAPL", 101.0, T0.plusSeconds(2)));
+        follower.pollOnce();
+        prices.add(price("MSFT", 401.0, T0.plusSeconds(1)));
+        follower.pollOnce();
+
+        assertThat(marketDataStore.snapshot().getPrice("MSFT")).isNotNull();
+        assertThat(marketDataStore.snapshot().getPrice("MSFT").getClosePrice()).isEqualTo(401.0);
+    }
+
+    @Test
+    void pollAfterChangeStreamPicksUpDocumentThatLandedLate()
+    {
+        follower.apply(change(OperationType.INSERT, "prices", price("AAPL", 101.0, T0.plusSeconds(3))));
+        prices.add(price("MSFT", 401.0, T0.plusSeconds(1)));
+        follower.pollOnce();
+
+        assertThat(marketDataStore.snapshot().getPrice("MSFT")).isNotNull();
+    }
+
+    @Test
+    void pollDoesNotRollBackAnEntryWhenTheOverlapRereadsIt()
+    {
+        prices.add(price("AAPL", 101.0, T0));
+        follower.pollOnce();
+        follower.apply(change(OperationType.UPDATE, "prices", price("AAPL", 102.0, T0.plusSeconds(1))));
+        follower.pollOnce();
+
+        assertThat(marketDataStore.snapshot().getPrice("AAPL").getClosePrice()).isEqualTo(102.0);
+    }
+
+    // The follower only ever asks for documents with lastModified at or after some instant, sorted by it.
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> modifiedSince(Query query, List<T> collection, Function<T, Instant> lastModified)
+    {
+        Instant since = (Instant) ((Map<String, Object>) query.getQueryObject().get("lastModified")).get("$gte");
+        return collection.stream()
+                .filter(entry -> !lastModified.apply(entry).isBefore(since))
+                .sorted(Comparator.comparing(lastModified))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ChangeStreamDocument<Document> change(OperationType operation, String collection, Object entity)
+    {
+        Document document = null;
+        if (entity != null)
+        {
+            document = new Document();
+            converter.write(entity, document);
+        }
+
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        when(change.getOperationType()).thenReturn(operation);
+        when(change.getFullDocument()).thenReturn(document);
+        when(change.getNamespace()).thenReturn(new MongoNamespace("pricing", collection));
+        return change;
+    }
+
+    private static Price price(String instrumentCode, double closePrice, Instant lastModified)
+    {
+        Price price = new Price(instrumentCode, closePrice, closePrice, "test");
+        price.setLastModified(lastModified);
+        return price;
+    }
+
+    private static Volatility volatility(String instrumentCode, double value, Instant lastModified)
+    {
+        Volatility volatility = new Volatility(instrumentCode, value, "test");
+        volatility.setLastModified(lastModified);
+        return volatility;
+    }
+
+    private static InterestRate interestRate(String currencyCode, double rate, Instant lastModified)
+    {
+        InterestRate interestRate = new InterestRate(currencyCode, rate, "test");
+        interestRate.setLastModified(lastModified);
+        return interestRate;
+    }
+}
@@ -0,0 +1,119 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.InterestRate;
+import com.leon.pricing.model.Price;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Checks the bulk writes handed to the collection; write-behind is disabled so each update is written on the calling thread.
+class MarketDataWriteBehindTest
+{
+    private final MongoCollection<Document> prices = collection();
+    private final MongoCollection<Document> interestRates = collection();
+    private MarketDataWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp()
+    {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(MongoTestSupport.converter());
+        when(mongoTemplate.getCollectionName(Price.class)).thenReturn("prices");
+        when(mongoTemplate.getCollectionName(InterestRate.class)).thenReturn("interestRates");
+        when(mongoTemplate.getCollection("prices")).thenReturn(prices);
+        when(mongoTemplate.getCollection("interestRates")).thenReturn(interestRates);
+
+        writeBehind = new MarketDataWriteBehind();
+        ReflectionTestUtils.setField(writeBehind, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(writeBehind, "enabled", false);
+    }
+
+    @Test
+    void updatesWithDifferentIdsUpsertTheSameInstrument()
+    {
+        // The second update was minted before this instance saw the first, so it carries a different id.
+        Price first = new Price("AAPL", 101.0, 100.0, "test");
+        Price second = new Price("AAPL", 102.0, 101.0, "test");
+        writeBehind.writePrice(first);
+        writeBehind.writePrice(second);
+
+        List<UpdateOneModel<Document>> upserts = writtenTo(prices);
+        assertThat(upserts).hasSize(2);
+        for (UpdateOneModel<Document> upsert : upserts)
+        {
+            assertThat(filterOf(upsert)).isEqualTo(new BsonDocument("instrumentCode", new BsonString("AAPL")));
+            assertThat(upsert.getOptions().isUpsert()).isTrue();
+            assertThat(((Document) upsert.getUpdate()).get("$set", Document.class)).doesNotContainKey("_id");
+        }
+        assertThat(((Document) upserts.get(0).getUpdate()).get("$setOnInsert", Document.class).get("_id")).isEqualTo(first.getId());
+        assertThat(((Document) upserts.get(1).getUpdate()).get("$setOnInsert", Document.class).get("_id")).isEqualTo(second.getId());
+    }
+
+    @Test
+    void interestRatesUpsertOnCurrencyCode()
+    {
+        writeBehind.writeInterestRate(new InterestRate("USD", 4.5, "test"));
+
+        List<UpdateOneModel<Document>> upserts = writtenTo(interestRates);
+        assertThat(upserts).hasSize(1);
+        assertThat(filterOf(upserts.get(0))).isEqualTo(new BsonDocument("currencyCode", new BsonString("USD")));
+        assertThat(((Document) upserts.get(0).getUpdate()).get("$setOnInsert", Document.class).get("_id")).isInstanceOf(UUID.class);
+    }
+
+    @Test
+    void nullFieldsAreUnsetAsAReplaceWouldLeaveThem()
+    {
+        writeBehind.writePrice(new Price("AAPL", 101.0, null, "test"));
+
+        Document update = (Document) writtenTo(prices).get(0).getUpdate();
+        assertThat(update.get("$set", Document.class)).containsEntry("closePrice", 101.0).doesNotContainKey("openPrice");
+        assertThat(update.get("$unset", Document.class)).containsOnlyKeys("openPrice");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> collection()
+    {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.withWriteConcern(any())).thenReturn(collection);
+        return collection;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<UpdateOneModel<Document>> writtenTo(MongoCollection<Document> collection)
+    {
+        ArgumentCaptor<List> writes = ArgumentCaptor.forClass(List.class);
+        verify(collection, atLeastOnce()).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        List<UpdateOneModel<Document>> upserts = new ArrayList<>();
+        for (List<? extends WriteModel<Document>> batch : (List<List<? extends WriteModel<Document>>>) (List) writes.getAllValues())
+        {
+            for (WriteModel<Document> write : batch)
+                upserts.add((UpdateOneModel<Document>) write);
+        }
+        return upserts;
+    }
+
+    private static BsonDocument filterOf(UpdateOneModel<Document> upsert)
+    {
+        return upsert.getFilter().toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+}
@@ -0,0 +1,26 @@
+package com.leon.pricing.service;
+
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import java.util.List;
+
+// Pieces of a local MongoDB stand-in shared by the tests that drive market data persistence without a database.
+final class MongoTestSupport
+{
+    private MongoTestSupport() {}
+
+    // Configured as Spring Boot configures the application's converter, so documents map exactly as they would.
+    static MappingMongoConverter converter()
+    {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
@@ -0,0 +1,90 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.InstrumentPricingRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OptionPricingServiceImplTest
+{
+    // A Wednesday, late enough in the day that the system zone's date could already be the next one.
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 6);
+
+    private OptionPricingServiceImpl service;
+
+    @BeforeEach
+    void setUp()
+    {
+        service = new OptionPricingServiceImpl();
+        Clock clock = Clock.fixed(ZonedDateTime.of(TODAY.atTime(23, 30), ZoneId.of("UTC")).toInstant(), ZoneId.of("UTC"));
+        ReflectionTestUtils.setField(service, "clock", clock);
+    }
+
+    @Test
+    void tradingDayBasisCountsWeekdaysToExpiry()
+    {
+        assertThat(service.daysToExpiry(expiringOn(LocalDate.of(2024, 3, 13), 250.0))).isEqualTo(5.0);
+        assertThat(service.daysToExpiry(expiringOn(LocalDate.of(2024, 3, 11), 252.0))).isEqualTo(3.0);
+        assertThat(service.daysToExpiry(expiringOn(LocalDate.of(2025, 3, 6), 250.0))).isEqualTo(261.0);
+    }
+
+    @Test
+    void calendarBasisCountsCalendarDaysToExpiry()
+    {
+        assertThat(service.daysToExpiry(expiringOn(LocalDate.of(2024, 3, 13), 365.0))).isEqualTo(7.0);
+        assertThat(service.daysToExpiry(expiringOn(LocalDate.of(2025, 3, 6), 360.0))).isEqualTo(365.0);
+    }
+
+    @Test
+    void expiryTodayHasNoDaysLeft()
+    {
+        assertThat(service.daysToExpiry(expiringOn(TODAY, 250.0))).isEqualTo(0.0);
+        assertThat(service.daysToExpiry(expiringOn(TODAY, 365.0))).isEqualTo(0.0);
+    }
+
+    @Test
+    void explicitDaysToExpiryAreUsedAsGiven()
+    {
+        InstrumentPricingRequest request = expiringOn(LocalDate.of(2024, 3, 13), 250.0);
+        request.setDaysToExpiry(42.0);
+        assertThat(service.daysToExpiry(request)).isEqualTo(42.0);
+    }
+
+    @Test
+    void expiryDateIsRejectedInThePastOrWithAnAmbiguousBasis()
+    {
+        assertThatThrownBy(() -> service.daysToExpiry(expiringOn(TODAY.minusDays(1), 250.0))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.daysToExpiry(expiringOn(LocalDate.of(2024, 3, 13), 300.0))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.daysToExpiry(expiringOn(LocalDate.of(2024, 3, 13), null))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void weekdaysBetweenMatchesADayByDayCount()
+    {
+        for (int startOffset = 0; startOffset < 7; startOffset++)
+        {
+            LocalDate start = TODAY.plusDays(startOffset);
+            for (int length = 0; length < 60; length++)
+            {
+                LocalDate end = start.plusDays(length);
+                long expected = start.datesUntil(end.plusDays(1)).skip(1)
+                        .filter(date -> date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY)
+                        .count();
+                assertThat(OptionPricingServiceImpl.weekdaysBetween(start, end)).as("%s to %s", start, end).isEqualTo(expected);
+            }
+        }
+    }
+
+    private static InstrumentPricingRequest expiringOn(LocalDate expiryDate, Double dayCountConvention)
+    {
+        return new InstrumentPricingRequest("AAPL", "USD", 100.0, expiryDate, true, true, dayCountConvention);
+    }
+}
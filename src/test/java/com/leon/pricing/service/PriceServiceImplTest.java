@@ -0,0 +1,69 @@
+package com.leon.pricing.service;
+
+import com.leon.pricing.model.MarketDataStore;
+import com.leon.pricing.model.Price;
+import com.leon.pricing.repository.PriceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Whatever a caller does to the prices it is given must not reach the instances the store has published.
+class PriceServiceImplTest
+{
+    private final MarketDataStore marketDataStore = new MarketDataStore();
+    private final PriceRepository priceRepository = mock(PriceRepository.class);
+    private PriceServiceImpl priceService;
+
+    @BeforeEach
+    void setUp()
+    {
+        priceService = new PriceServiceImpl();
+        ReflectionTestUtils.setField(priceService, "marketDataStore", marketDataStore);
+        ReflectionTestUtils.setField(priceService, "marketDataWriteBehind", mock(MarketDataWriteBehind.class));
+        ReflectionTestUtils.setField(priceService, "priceRepository", priceRepository);
+    }
+
+    @Test
+    void lookupsReturnCopiesOfPublishedPrices()
+    {
+        marketDataStore.publishPrice(new Price("AAPL", 101.0, 100.0, "test"));
+
+        priceService.getPrice("AAPL").setClosePrice(1.0);
+        priceService.getPrices(List.of("AAPL")).get(0).setClosePrice(2.0);
+        priceService.loadPrices().get(0).setClosePrice(3.0);
+
+        assertThat(marketDataStore.snapshot().getPrice("AAPL").getClosePrice()).isEqualTo(101.0);
+        assertThat(priceService.getPrice("AAPL").getClosePrice()).isEqualTo(101.0);
+    }
+
+    @Test
+    void updatesReturnCopiesOfWhatWasPublished()
+    {
+        Price updated = priceService.updatePrice("AAPL", 101.0, 100.0, "test");
+        Price updatedInBulk = priceService.updatePrices(List.of(new Price("MSFT", 401.0, 400.0, "test"))).get(0);
+        updated.setClosePrice(1.0);
+        updatedInBulk.setClosePrice(2.0);
+
+        assertThat(marketDataStore.snapshot().getPrice("AAPL").getClosePrice()).isEqualTo(101.0);
+        assertThat(marketDataStore.snapshot().getPrice("MSFT").getClosePrice()).isEqualTo(401.0);
+    }
+
+    @Test
+    void readThroughReturnsACopyOfWhatItPublished()
+    {
+        Price stored = new Price("AAPL", 101.0, 100.0, "test");
+        when(priceRepository.findByInstrumentCode("AAPL")).thenReturn(Optional.of(stored));
+
+        Price loaded = priceService.getPrice("AAPL");
+        loaded.setClosePrice(1.0);
+
+        assertThat(loaded.getId()).isEqualTo(stored.getId());
+        assertThat(marketDataStore.snapshot().getPrice("AAPL").getClosePrice()).isEqualTo(101.0);
+    }
+}